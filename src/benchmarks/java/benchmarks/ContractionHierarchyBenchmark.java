@@ -0,0 +1,90 @@
+package benchmarks;
+
+import de.westnordost.osmapi.map.data.Node;
+import entities.ContractionHierarchy;
+import fixtures.GeneratedCity;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.shortestpath.AStarShortestPath;
+import osm_to_graph.ImportedEdge;
+import osm_to_graph.MapSnapshot;
+import utils.Haversine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compares the queries of the contraction hierarchy with A* (as PathCalculator runs it) on the graph of a saved map
+ * (a map snapshot saved with the checkpoints, if its file is given) or on a generated city of 100 x 100 crossings, with irregular blocks, some
+ * streets missing and some one-way. Prints the time of preparing the hierarchy and the average time of a query between
+ * random nodes with both. The paths of the hierarchy are checked against A* by ContractionHierarchyTest.
+ * Arguments: [number of queries] [map snapshot file].
+ */
+public class ContractionHierarchyBenchmark {
+
+    private static final int WARM_UP_QUERIES = 200;
+
+    private ContractionHierarchyBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var numberOfQueries = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Graph<Node, ImportedEdge> graph;
+        if (args.length > 1) {
+            try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(args[1]))))) {
+                graph = MapSnapshot.read(in).getGraph();
+            }
+        } else {
+            graph = GeneratedCity.create();
+        }
+        System.out.printf("%d nodes, %d edges, %d cores%n", graph.vertexSet().size(), graph.edgeSet().size(),
+                Runtime.getRuntime().availableProcessors());
+
+        var contractionHierarchy = new ContractionHierarchy(graph);
+        var prepareStart = System.nanoTime();
+        contractionHierarchy.prepare();
+        var prepareNanos = System.nanoTime() - prepareStart;
+        System.out.printf("Contraction hierarchy prepared in %.0f ms, %d shortcuts%n", prepareNanos / 1e6, contractionHierarchy.getNumberOfShortcuts());
+
+        var random = new SplittableRandom(numberOfQueries);
+        var nodes = new ArrayList<>(graph.vertexSet());
+        var sources = new Node[WARM_UP_QUERIES + numberOfQueries];
+        var targets = new Node[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = nodes.get(random.nextInt(nodes.size()));
+            targets[i] = nodes.get(random.nextInt(nodes.size()));
+        }
+
+        var aStar = new AStarShortestPath<>(graph, new Haversine.OwnHeuristics());
+        long aStarNanos = 0;
+        long checksum = 0;
+        for (int i = 0; i < sources.length; i++) {
+            var start = System.nanoTime();
+            var path = aStar.getPath(sources[i], targets[i]);
+            var end = System.nanoTime();
+            if (i >= WARM_UP_QUERIES) {
+                aStarNanos += end - start;
+            }
+            checksum += path != null ? path.getLength() : 0;
+        }
+
+        long contractionHierarchyNanos = 0;
+        for (int i = 0; i < sources.length; i++) {
+            var start = System.nanoTime();
+            var path = contractionHierarchy.getPath(sources[i], targets[i]);
+            var end = System.nanoTime();
+            if (i >= WARM_UP_QUERIES) {
+                contractionHierarchyNanos += end - start;
+            }
+            checksum += path != null ? path.size() : 0;
+        }
+
+        System.out.printf("%d queries: A* %.1f us, contraction hierarchy %.1f us on average (%.0f times faster) [checksum %d]%n", numberOfQueries,
+                aStarNanos / 1e3 / numberOfQueries, contractionHierarchyNanos / 1e3 / numberOfQueries, (double) aStarNanos / contractionHierarchyNanos,
+                checksum);
+    }
+}
@@ -0,0 +1,189 @@
+package benchmarks;
+
+import entities.Entity;
+import entities.Point;
+import world.EntityStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares the entity store of the world with the synchronized list it has replaced, for 1000 and 10000 entities and 1, 2
+ * and 4 reading threads. One thread changes the entities like the simulation thread: every millisecond it removes random
+ * ones and adds new ones. The others go over all of them as fast as they can, like the map painter and the exporters: with
+ * the list they copy it holding its lock (as World.getAllEntities used to), with the store they iterate it without locking.
+ * Prints the average and the longest time of a batch of changes (which grows when the writer waits for the readers)
+ * and the passes over all entities done in a second. What the readers see is checked by EntityStoreTest.
+ */
+public class EntityStoreBenchmark {
+
+    private static final long WARM_UP_MILLIS = 1000;
+    private static final long MEASURED_MILLIS = 3000;
+    private static final int CHANGES_PER_BATCH = 20;
+    private static final long BATCH_PERIOD_NANOS = 1_000_000;
+
+    private EntityStoreBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var sizes = args.length > 0 ? args : new String[]{"1000", "10000"};
+        for (var size : sizes) {
+            for (var readers : new int[]{1, 2, 4}) {
+                var numberOfEntities = Integer.parseInt(size);
+                var list = run(new SynchronizedList(), numberOfEntities, readers);
+                var store = run(new Store(), numberOfEntities, readers);
+                System.out.printf("%5d entities, %d readers: synchronized list - batch %7.0f ns (longest %9.0f ns), %7.0f passes/s; "
+                                + "entity store - batch %7.0f ns (longest %9.0f ns), %7.0f passes/s%n",
+                        numberOfEntities, readers, list[0], list[1], list[2], store[0], store[1], store[2]);
+            }
+        }
+    }
+
+    // average and longest time of a batch of changes and passes per second
+    private static double[] run(Entities entities, int numberOfEntities, int numberOfReaders) throws InterruptedException {
+        var random = new SplittableRandom(numberOfEntities);
+        var present = new ArrayList<Entity>();
+        for (int i = 0; i < numberOfEntities; i++) {
+            var entity = new Point(random.nextDouble(), random.nextDouble());
+            present.add(entity);
+            entities.add(entity);
+        }
+
+        var running = new AtomicBoolean(true);
+        var measuring = new AtomicBoolean(false);
+        var batches = new AtomicLong();
+        var batchNanos = new AtomicLong();
+        var longestBatchNanos = new AtomicLong();
+        var passes = new AtomicLong();
+        var finished = new CountDownLatch(numberOfReaders + 1);
+
+        var writer = new Thread(() -> {
+            long done = 0;
+            long nanos = 0;
+            long longest = 0;
+            var nextBatch = System.nanoTime();
+            while (running.get()) {
+                var start = System.nanoTime();
+                for (int i = 0; i < CHANGES_PER_BATCH; i++) {
+                    // swap the removed entity with the last one, so the writer's own bookkeeping stays cheap
+                    var index = random.nextInt(present.size());
+                    var removed = present.get(index);
+                    present.set(index, present.get(present.size() - 1));
+                    present.remove(present.size() - 1);
+                    entities.remove(removed);
+
+                    var added = new Point(random.nextDouble(), random.nextDouble());
+                    present.add(added);
+                    entities.add(added);
+                }
+                var time = System.nanoTime() - start;
+                if (measuring.get()) {
+                    done++;
+                    nanos += time;
+                    longest = Math.max(longest, time);
+                }
+                nextBatch += BATCH_PERIOD_NANOS;
+                LockSupport.parkNanos(nextBatch - System.nanoTime());
+            }
+            batches.addAndGet(done);
+            batchNanos.addAndGet(nanos);
+            longestBatchNanos.set(longest);
+            finished.countDown();
+        });
+        writer.start();
+
+        var sink = new AtomicLong();
+        for (int r = 0; r < numberOfReaders; r++) {
+            new Thread(() -> {
+                long done = 0;
+                long checksum = 0;
+                while (running.get()) {
+                    for (var entity : entities.read()) {
+                        if (entity.getLatitude() < 0.5) {
+                            checksum++;
+                        }
+                    }
+                    if (measuring.get()) {
+                        done++;
+                    }
+                }
+                passes.addAndGet(done);
+                sink.addAndGet(checksum);
+                finished.countDown();
+            }).start();
+        }
+
+        Thread.sleep(WARM_UP_MILLIS);
+        measuring.set(true);
+        var start = System.nanoTime();
+        Thread.sleep(MEASURED_MILLIS);
+        measuring.set(false);
+        var seconds = (System.nanoTime() - start) / Math.pow(10, 9);
+        running.set(false);
+        finished.await();
+        return new double[]{(double) batchNanos.get() / batches.get(), longestBatchNanos.get(), passes.get() / seconds};
+    }
+
+    private interface Entities {
+
+        void add(Entity entity);
+
+        void remove(Entity entity);
+
+        // entities to go over by a reading thread
+        Collection<Entity> read();
+    }
+
+    // entities of the world before the entity store
+    private static class SynchronizedList implements Entities {
+
+        private final List<Entity> entities = new ArrayList<>();
+
+        @Override
+        public void add(Entity entity) {
+            synchronized (entities) {
+                entities.add(entity);
+            }
+        }
+
+        @Override
+        public void remove(Entity entity) {
+            synchronized (entities) {
+                entities.remove(entity);
+            }
+        }
+
+        @Override
+        public Collection<Entity> read() {
+            synchronized (entities) {
+                return new ArrayList<>(entities);
+            }
+        }
+    }
+
+    private static class Store implements Entities {
+
+        private final EntityStore entities = new EntityStore();
+
+        @Override
+        public void add(Entity entity) {
+            entities.add(entity);
+        }
+
+        @Override
+        public void remove(Entity entity) {
+            entities.remove(entity);
+        }
+
+        @Override
+        public Collection<Entity> read() {
+            return entities;
+        }
+    }
+}
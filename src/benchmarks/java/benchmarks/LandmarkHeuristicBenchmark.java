@@ -0,0 +1,90 @@
+package benchmarks;
+
+import de.westnordost.osmapi.map.data.Node;
+import entities.LandmarkHeuristic;
+import fixtures.GeneratedCity;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.interfaces.AStarAdmissibleHeuristic;
+import org.jgrapht.alg.shortestpath.AStarShortestPath;
+import osm_to_graph.ImportedEdge;
+import osm_to_graph.MapSnapshot;
+import utils.Haversine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compares A* guided by the distance in a straight line (as PathCalculator runs it by default) with A* guided by
+ * landmarks, on the graph of a saved map (a map snapshot saved with the checkpoints, if its file is given) or on the generated
+ * city. Prints the time of calculating the distances to the landmarks, and the average number of nodes settled and the
+ * average time of a query between random nodes. The paths found with landmarks are checked by LandmarkHeuristicTest.
+ * Arguments: [number of queries] [map snapshot file].
+ */
+public class LandmarkHeuristicBenchmark {
+
+    private static final int[] NUMBERS_OF_LANDMARKS = {4, 8, 16};
+    private static final int WARM_UP_QUERIES = 200;
+
+    private LandmarkHeuristicBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var numberOfQueries = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Graph<Node, ImportedEdge> graph;
+        if (args.length > 1) {
+            try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(args[1]))))) {
+                graph = MapSnapshot.read(in).getGraph();
+            }
+        } else {
+            graph = GeneratedCity.create();
+        }
+        System.out.printf("%d nodes, %d edges, %d cores%n", graph.vertexSet().size(), graph.edgeSet().size(),
+                Runtime.getRuntime().availableProcessors());
+
+        var random = new SplittableRandom(numberOfQueries);
+        var nodes = new ArrayList<>(graph.vertexSet());
+        var sources = new Node[WARM_UP_QUERIES + numberOfQueries];
+        var targets = new Node[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = nodes.get(random.nextInt(nodes.size()));
+            targets[i] = nodes.get(random.nextInt(nodes.size()));
+        }
+
+        runQueries(graph, new Haversine.OwnHeuristics(), "Distance in a straight line", sources, targets);
+        for (var numberOfLandmarks : NUMBERS_OF_LANDMARKS) {
+            var start = System.nanoTime();
+            var heuristic = new LandmarkHeuristic(graph, numberOfLandmarks);
+            var nanos = System.nanoTime() - start;
+            System.out.printf("%d landmarks calculated in %.0f ms%n", heuristic.getNumberOfLandmarks(), nanos / 1e6);
+            runQueries(graph, heuristic, numberOfLandmarks + " landmarks", sources, targets);
+        }
+    }
+
+    private static void runQueries(Graph<Node, ImportedEdge> graph, AStarAdmissibleHeuristic<Node> heuristic, String name,
+                                   Node[] sources, Node[] targets) {
+        var numberOfQueries = sources.length - WARM_UP_QUERIES;
+        var totalLength = 0.0;
+        long settledNodes = 0;
+        long nanos = 0;
+        for (int i = 0; i < sources.length; i++) {
+            // a new instance for every query, as PathCalculator takes one
+            var aStar = new AStarShortestPath<>(graph, heuristic);
+            var start = System.nanoTime();
+            var path = aStar.getPath(sources[i], targets[i]);
+            var end = System.nanoTime();
+            if (i < WARM_UP_QUERIES) {
+                continue;
+            }
+            nanos += end - start;
+            settledNodes += aStar.getNumberOfExpandedNodes();
+            totalLength += path != null ? path.getWeight() : 0;
+        }
+        System.out.printf("%s: %d nodes settled and %.1f us per query on average [length of the paths %.0f m]%n", name,
+                settledNodes / numberOfQueries, nanos / 1e3 / numberOfQueries, totalLength);
+    }
+}
@@ -0,0 +1,154 @@
+package benchmarks;
+
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Node;
+import entities.Map;
+import fixtures.GeneratedCity;
+import org.jgrapht.Graph;
+import osm_to_graph.ImportedEdge;
+import osm_to_graph.MapSnapshot;
+import utils.Haversine;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compares finding the nearest nodes in the KD-tree of the map with a scan of all nodes (as PathCalculator used to find them)
+ * on the graph of a saved map (a map snapshot saved with the checkpoints, if its file is given) or on the generated city.
+ * Runs queries for random points around the city: the nearest node, the nearest node after the nearest ones have been excluded
+ * (as when there is no route between them), and the 8 nearest nodes. The results are checked against the scan by NodeKdTreeTest.
+ * Arguments: [number of queries] [map snapshot file].
+ */
+public class NearestNodeBenchmark {
+
+    private static final int EXCLUDED_NODES = 6;
+    private static final int NEAREST_NODES = 8;
+    private static final int WARM_UP_QUERIES = 200;
+    // part of the size of the city by which the points may lie outside of it
+    private static final double OUTSIDE_MARGIN = 0.1;
+
+    private NearestNodeBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        var numberOfQueries = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Graph<Node, ImportedEdge> graph;
+        if (args.length > 1) {
+            try (var in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(args[1]))))) {
+                graph = MapSnapshot.read(in).getGraph();
+            }
+        } else {
+            graph = GeneratedCity.create();
+        }
+
+        var nodes = new LinkedHashMap<Long, Node>();
+        var minLatitude = Double.POSITIVE_INFINITY;
+        var maxLatitude = Double.NEGATIVE_INFINITY;
+        var minLongitude = Double.POSITIVE_INFINITY;
+        var maxLongitude = Double.NEGATIVE_INFINITY;
+        for (var node : graph.vertexSet()) {
+            nodes.put(node.getId(), node);
+            minLatitude = Math.min(minLatitude, node.getPosition().getLatitude());
+            maxLatitude = Math.max(maxLatitude, node.getPosition().getLatitude());
+            minLongitude = Math.min(minLongitude, node.getPosition().getLongitude());
+            maxLongitude = Math.max(maxLongitude, node.getPosition().getLongitude());
+        }
+        var buildStart = System.nanoTime();
+        var map = new Map(graph, nodes, new BoundingBox(minLatitude, minLongitude, maxLatitude, maxLongitude), new ArrayList<>());
+        var buildNanos = System.nanoTime() - buildStart;
+        System.out.printf("%d nodes, map created with its KD-tree in %.0f ms%n", nodes.size(), buildNanos / 1e6);
+
+        var random = new SplittableRandom(numberOfQueries);
+        var latitudeMargin = (maxLatitude - minLatitude) * OUTSIDE_MARGIN;
+        var longitudeMargin = (maxLongitude - minLongitude) * OUTSIDE_MARGIN;
+        var latitudes = new double[WARM_UP_QUERIES + numberOfQueries];
+        var longitudes = new double[latitudes.length];
+        for (int i = 0; i < latitudes.length; i++) {
+            latitudes[i] = random.nextDouble(minLatitude - latitudeMargin, maxLatitude + latitudeMargin);
+            longitudes[i] = random.nextDouble(minLongitude - longitudeMargin, maxLongitude + longitudeMargin);
+        }
+
+        long scanNanos = 0;
+        long treeNanos = 0;
+        long excludingScanNanos = 0;
+        long excludingTreeNanos = 0;
+        long nearestScanNanos = 0;
+        long nearestTreeNanos = 0;
+        long checksum = 0;
+        for (int i = 0; i < latitudes.length; i++) {
+            var start = System.nanoTime();
+            var expected = scan(nodes, latitudes[i], longitudes[i], 1, new ArrayList<>()).get(0);
+            var scanned = System.nanoTime();
+            var actual = map.getNearestNode(latitudes[i], longitudes[i], null);
+            var found = System.nanoTime();
+
+            var excludedList = scan(nodes, latitudes[i], longitudes[i], EXCLUDED_NODES, new ArrayList<>());
+            var excludedSet = new HashSet<>(excludedList);
+            var excludingStart = System.nanoTime();
+            var expectedExcluding = scan(nodes, latitudes[i], longitudes[i], 1, excludedList).get(0);
+            var excludingScanned = System.nanoTime();
+            var actualExcluding = map.getNearestNode(latitudes[i], longitudes[i], excludedSet::contains);
+            var excludingFound = System.nanoTime();
+
+            var nearestStart = System.nanoTime();
+            var expectedNearest = scan(nodes, latitudes[i], longitudes[i], NEAREST_NODES, new ArrayList<>());
+            var nearestScanned = System.nanoTime();
+            var actualNearest = map.getNearestNodes(latitudes[i], longitudes[i], NEAREST_NODES, null);
+            var nearestFound = System.nanoTime();
+            checksum += expected.getId() + actual.getId() + expectedExcluding.getId() + actualExcluding.getId()
+                    + expectedNearest.size() + actualNearest.size();
+
+            if (i >= WARM_UP_QUERIES) {
+                scanNanos += scanned - start;
+                treeNanos += found - scanned;
+                excludingScanNanos += excludingScanned - excludingStart;
+                excludingTreeNanos += excludingFound - excludingScanned;
+                nearestScanNanos += nearestScanned - nearestStart;
+                nearestTreeNanos += nearestFound - nearestScanned;
+            }
+        }
+
+        System.out.printf("%d queries [checksum %d]%n", numberOfQueries, checksum);
+        print("Nearest node", scanNanos, treeNanos, numberOfQueries);
+        print("Nearest node, " + EXCLUDED_NODES + " excluded", excludingScanNanos, excludingTreeNanos, numberOfQueries);
+        print(NEAREST_NODES + " nearest nodes", nearestScanNanos, nearestTreeNanos, numberOfQueries);
+    }
+
+    // the 'k' nearest nodes not in 'excluded' found by a scan of all of them, the first ones in the order of the map at the same distance
+    private static List<Node> scan(java.util.Map<Long, Node> nodes, double latitude, double longitude, int k, List<Node> excluded) {
+        var found = new ArrayList<Node>();
+        var distances = new ArrayList<Double>();
+        for (var node : nodes.values()) {
+            if (excluded.contains(node)) {
+                continue;
+            }
+            var distance = Haversine.distance(latitude, longitude, node.getPosition().getLatitude(), node.getPosition().getLongitude());
+            var position = found.size();
+            while (position > 0 && distances.get(position - 1) > distance) {
+                position--;
+            }
+            if (position < k) {
+                found.add(position, node);
+                distances.add(position, distance);
+                if (found.size() > k) {
+                    found.remove(k);
+                    distances.remove(k);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static void print(String query, long scanNanos, long treeNanos, int numberOfQueries) {
+        System.out.printf("%s: scan %.1f us, KD-tree %.1f us on average (%.0f times faster)%n", query,
+                scanNanos / 1e3 / numberOfQueries, treeNanos / 1e3 / numberOfQueries, (double) scanNanos / treeNanos);
+    }
+}
@@ -0,0 +1,125 @@
+package benchmarks;
+
+import entities.Entity;
+import entities.Point;
+import utils.Haversine;
+import world.SpatialGrid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Compares radius queries of the spatial grid with a scan of all entities (as World.getEntitiesNear used to work) for 40, 500
+ * and 5000 patrols spread over a city. Every round moves the patrols, refreshes the grid and runs the queries of the
+ * headquarters: ranges of 0..10 times the search distance around random incidents, until a patrol is found, as the dispatch
+ * used to work, and a single query for the 1..4 nearest patrols, as it works now. The results are checked by SpatialGridTest.
+ * Arguments: [numbers of patrols].
+ */
+public class SpatialIndexBenchmark {
+
+    private static final double MIN_LATITUDE = 49.98;
+    private static final double MAX_LATITUDE = 50.12;
+    private static final double MIN_LONGITUDE = 19.80;
+    private static final double MAX_LONGITUDE = 20.10;
+    private static final double SEARCH_DISTANCE = 1200;
+    private static final int INCIDENTS_PER_ROUND = 20;
+    private static final int WARM_UP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 200;
+    private static final int NEAREST_PATROLS = 4;
+
+    private SpatialIndexBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        var sizes = args.length > 0 ? args : new String[]{"40", "500", "5000"};
+        for (var size : sizes) {
+            run(Integer.parseInt(size));
+        }
+    }
+
+    private static void run(int numberOfPatrols) {
+        var random = new SplittableRandom(numberOfPatrols);
+        var patrols = new ArrayList<Entity>();
+        var grid = new SpatialGrid(SEARCH_DISTANCE);
+        for (int i = 0; i < numberOfPatrols; i++) {
+            var patrol = new Point(random.nextDouble(MIN_LATITUDE, MAX_LATITUDE), random.nextDouble(MIN_LONGITUDE, MAX_LONGITUDE));
+            patrols.add(patrol);
+            grid.add(patrol);
+        }
+
+        long scanNanos = 0;
+        long gridNanos = 0;
+        long nearestNanos = 0;
+        long numberOfQueries = 0;
+        long numberOfDispatches = 0;
+        long checksum = 0;
+        for (int round = 0; round < WARM_UP_ROUNDS + MEASURED_ROUNDS; round++) {
+            // patrols move about 100 meters in a tick
+            for (var patrol : patrols) {
+                patrol.setLatitude(clamp(patrol.getLatitude() + random.nextDouble(-0.001, 0.001), MIN_LATITUDE, MAX_LATITUDE));
+                patrol.setLongitude(clamp(patrol.getLongitude() + random.nextDouble(-0.0015, 0.0015), MIN_LONGITUDE, MAX_LONGITUDE));
+            }
+            var updateStart = System.nanoTime();
+            for (var patrol : patrols) {
+                grid.update(patrol);
+            }
+            var updateNanos = System.nanoTime() - updateStart;
+
+            for (int i = 0; i < INCIDENTS_PER_ROUND; i++) {
+                var latitude = random.nextDouble(MIN_LATITUDE, MAX_LATITUDE);
+                var longitude = random.nextDouble(MIN_LONGITUDE, MAX_LONGITUDE);
+
+                // one query for the closest patrols
+                var k = 1 + i % NEAREST_PATROLS;
+                var nearestStart = System.nanoTime();
+                var nearest = grid.getNearestEntities(latitude, longitude, k, SEARCH_DISTANCE * 10, x -> true);
+                var nearestEnd = System.nanoTime();
+                checksum += nearest.size();
+                if (round >= WARM_UP_ROUNDS) {
+                    nearestNanos += nearestEnd - nearestStart;
+                    numberOfDispatches++;
+                }
+
+                // like the headquarters looking for a patrol for an intervention: the range grows until someone is found
+                for (int j = 0; j <= 10; j++) {
+                    var range = SEARCH_DISTANCE * j;
+
+                    var scanStart = System.nanoTime();
+                    var expected = scan(patrols, latitude, longitude, range);
+                    var scanEnd = System.nanoTime();
+                    var actual = grid.getEntitiesNear(latitude, longitude, range);
+                    var gridEnd = System.nanoTime();
+
+                    checksum += expected.size() + actual.size();
+                    if (round >= WARM_UP_ROUNDS) {
+                        scanNanos += scanEnd - scanStart;
+                        gridNanos += gridEnd - scanEnd;
+                        numberOfQueries++;
+                    }
+                    if (!actual.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+            if (round >= WARM_UP_ROUNDS) {
+                gridNanos += updateNanos;
+            }
+        }
+
+        System.out.printf("%5d patrols: scan %8.0f ns/query, grid %8.0f ns/query (including updates), speed-up %.1fx; "
+                        + "dispatch by growing ranges %8.0f ns, by one nearest query %8.0f ns [checksum %d]%n",
+                numberOfPatrols, (double) scanNanos / numberOfQueries, (double) gridNanos / numberOfQueries,
+                (double) scanNanos / gridNanos, (double) scanNanos / numberOfDispatches, (double) nearestNanos / numberOfDispatches, checksum);
+    }
+
+    private static List<Entity> scan(List<Entity> entities, double latitude, double longitude, double range) {
+        return entities.stream().filter(entity -> Haversine.distance(entity.getLatitude(), entity.getLongitude(), latitude, longitude) <= range)
+                .collect(Collectors.toList());
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,20 @@
+package benchmarks;
+
+import fixtures.TickAllocations;
+
+/**
+ * Prints the memory allocated by the simulation thread in every phase of a tick, in the steady ticks and in the others,
+ * for the seeded simulation of TickAllocationTest with 40 (or the given number of) patrols. The test checks that the agent
+ * phases do not allocate in the steady ticks.
+ * Arguments: [number of patrols].
+ */
+public class TickAllocationBenchmark {
+
+    private TickAllocationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        var numberOfPatrols = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        System.out.println(TickAllocations.measure(numberOfPatrols));
+    }
+}
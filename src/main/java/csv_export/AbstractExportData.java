@@ -1,6 +1,7 @@
 package csv_export;
 
 import com.opencsv.CSVWriter;
+import world.SimulationContext;
 
 import java.io.File;
 import java.io.FileWriter;
@@ -13,10 +14,11 @@ public abstract class AbstractExportData {
 
     private final DateTimeFormatter dateFormat = new DateTimeFormatterBuilder().appendPattern("dd-MM-yyyy_HH-mm-ss").toFormatter();
 
-    File createExportFile(String csvDirectoryPath, String[] header, String csvFileName) {
+    File createExportFile(String baseCsvDirectoryPath, String[] header, String csvFileName) {
+        var csvDirectoryPath = SimulationContext.resolveDirectory(baseCsvDirectoryPath);
         File csvDirectory = new File(csvDirectoryPath);
         if (!(csvDirectory.exists() && csvDirectory.isDirectory())) {
-            csvDirectory.mkdir();
+            csvDirectory.mkdirs();
         }
 
         var csvFile = new File(csvDirectoryPath, dateFormat.format(LocalDateTime.now()) + csvFileName);
@@ -1,8 +1,8 @@
 package csv_export;
 
 import com.opencsv.CSVWriter;
-import entities.District;
 import entities.Patrol;
+import world.SimulationContext;
 import world.World;
 
 import java.io.File;
@@ -30,6 +30,11 @@ public class ExportChangingStateDetails extends AbstractExportData {
     }
 
     public static ExportChangingStateDetails getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(ExportChangingStateDetails.class, ExportChangingStateDetails::new);
+        }
+
         // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
         var result = instance;
         if (instance != null) {
@@ -55,7 +60,7 @@ public class ExportChangingStateDetails extends AbstractExportData {
 
     private void writeToFiringsDetailsCsvFile(long simulationTimeLong, Patrol patrol, String previousPatrolState, String currentPatrolState, boolean isNight) throws IOException {
         var csvWriter = new CSVWriter(new FileWriter(firingsDetailsCsvFile, true));
-        var district = getDistrict(patrol);
+        var district = world.getMap().getDistrict(patrol.getLatitude(), patrol.getLongitude());
         csvWriter.writeNext(new String[]{
                 String.valueOf(simulationTimeLong),
                 district != null ? district.getName() : "",
@@ -67,14 +72,5 @@ public class ExportChangingStateDetails extends AbstractExportData {
         }, false);
         csvWriter.close();
     }
-
-    private District getDistrict(Patrol patrol) {
-        for (var district : world.getDistricts()) {
-            if (district.contains(patrol.getPosition())) {
-                return district;
-            }
-        }
-        return null;
-    }
 }
 
@@ -0,0 +1,53 @@
+package csv_export;
+
+import com.opencsv.CSVWriter;
+import simulation.PairedComparison;
+import simulation.ReplicationRunner;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+public class ExportConfigurationComparison extends AbstractExportData {
+
+    private static final String CSV_DIRECTORY_PATH = "results";
+    private static final String[] comparisonHeader = new String[]{
+            "metric",
+            "numberOfPairs",
+            "numberOfFailedPairs",
+            "commonRandomNumbers",
+            "meanA",
+            "meanB",
+            "meanDifference",
+            "differenceStandardDeviation",
+            "lowerBound95",
+            "upperBound95",
+            "isSignificant",
+            "varianceRatio"
+    };
+
+    public File export(PairedComparison comparison, boolean commonRandomNumbers) {
+        var csvFile = createExportFile(CSV_DIRECTORY_PATH, comparisonHeader, "--Configuration Comparison.csv");
+        try (var csvWriter = new CSVWriter(new FileWriter(csvFile, true))) {
+            for (var metric : ReplicationRunner.Metric.values()) {
+                csvWriter.writeNext(new String[]{
+                        metric.toString(),
+                        String.valueOf(comparison.getNumberOfPairs()),
+                        String.valueOf(comparison.getNumberOfFailedPairs()),
+                        String.valueOf(commonRandomNumbers),
+                        String.valueOf(comparison.getMeanA(metric)),
+                        String.valueOf(comparison.getMeanB(metric)),
+                        String.valueOf(comparison.getMeanDifference(metric)),
+                        String.valueOf(comparison.getDifferenceStandardDeviation(metric)),
+                        String.valueOf(comparison.getMeanDifference(metric) - comparison.getHalfWidth(metric)),
+                        String.valueOf(comparison.getMeanDifference(metric) + comparison.getHalfWidth(metric)),
+                        String.valueOf(comparison.isSignificant(metric)),
+                        String.valueOf(comparison.getVarianceRatio(metric))
+                });
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return csvFile;
+    }
+}
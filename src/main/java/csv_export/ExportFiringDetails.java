@@ -4,6 +4,7 @@ import com.opencsv.CSVWriter;
 import entities.Firing;
 import entities.Patrol;
 import utils.Haversine;
+import world.SimulationContext;
 import world.World;
 
 import java.io.File;
@@ -35,6 +36,11 @@ public class ExportFiringDetails extends AbstractExportData {
     }
 
     public static ExportFiringDetails getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(ExportFiringDetails.class, ExportFiringDetails::new);
+        }
+
         // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
         var result = instance;
         if (instance != null) {
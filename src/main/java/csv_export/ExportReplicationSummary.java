@@ -0,0 +1,51 @@
+package csv_export;
+
+import com.opencsv.CSVWriter;
+import simulation.ReplicationRunner;
+import simulation.ReplicationSummary;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+
+public class ExportReplicationSummary extends AbstractExportData {
+
+    private static final String CSV_DIRECTORY_PATH = "results";
+    private static final String[] replicationSummaryHeader = new String[]{
+            "metric",
+            "numberOfReplications",
+            "numberOfFailedReplications",
+            "mean",
+            "standardDeviation",
+            "lowerBound95",
+            "upperBound95",
+            "values"
+    };
+
+    public File export(ReplicationSummary summary, List<EnumMap<ReplicationRunner.Metric, Double>> results) {
+        var csvFile = createExportFile(CSV_DIRECTORY_PATH, replicationSummaryHeader, "--Replication Summary.csv");
+        try (var csvWriter = new CSVWriter(new FileWriter(csvFile, true))) {
+            for (var metric : ReplicationRunner.Metric.values()) {
+                var values = new StringBuilder();
+                for (var result : results) {
+                    values.append(values.length() == 0 ? "" : ";").append(result.get(metric));
+                }
+                csvWriter.writeNext(new String[]{
+                        metric.toString(),
+                        String.valueOf(summary.getNumberOfReplications()),
+                        String.valueOf(summary.getNumberOfFailedReplications()),
+                        String.valueOf(summary.getMean(metric)),
+                        String.valueOf(summary.getStandardDeviation(metric)),
+                        String.valueOf(summary.getLowerBound(metric)),
+                        String.valueOf(summary.getUpperBound(metric)),
+                        values.toString()
+                });
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return csvFile;
+    }
+}
@@ -2,6 +2,7 @@ package csv_export;
 
 import com.opencsv.CSVWriter;
 import entities.Firing;
+import world.SimulationContext;
 import world.World;
 
 import java.io.File;
@@ -28,6 +29,11 @@ public class ExportRevokingPatrolsDetails extends AbstractExportData {
     }
 
     public static ExportRevokingPatrolsDetails getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(ExportRevokingPatrolsDetails.class, ExportRevokingPatrolsDetails::new);
+        }
+
         // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
         var result = instance;
         if (instance != null) {
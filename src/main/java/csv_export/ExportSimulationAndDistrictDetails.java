@@ -2,6 +2,7 @@ package csv_export;
 
 import com.opencsv.CSVWriter;
 import entities.*;
+import world.SimulationContext;
 import world.World;
 
 import java.io.File;
@@ -10,10 +11,12 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class ExportSimulationAndDistrictDetails extends Thread {
+public class ExportSimulationAndDistrictDetails {
 
     private static final String CSV_DIRECTORY_PATH = "results";
     private static final String[] simulationDetailsHeader = new String[]{
@@ -58,13 +61,14 @@ public class ExportSimulationAndDistrictDetails extends Thread {
     private int exportCounter = 1;
 
     public ExportSimulationAndDistrictDetails() {
-        File csvDirectory = new File(CSV_DIRECTORY_PATH);
+        var csvDirectoryPath = SimulationContext.resolveDirectory(CSV_DIRECTORY_PATH);
+        File csvDirectory = new File(csvDirectoryPath);
         if (!(csvDirectory.exists() && csvDirectory.isDirectory())) {
-            csvDirectory.mkdir();
+            csvDirectory.mkdirs();
         }
 
-        simulationDetailsCsvFile = new File(CSV_DIRECTORY_PATH, dateFormat.format(LocalDateTime.now()) + "--Simulation Details.csv");
-        districtsDetailsCsvFile = new File(CSV_DIRECTORY_PATH, dateFormat.format(LocalDateTime.now()) + "--Districts Details.csv");
+        simulationDetailsCsvFile = new File(csvDirectoryPath, dateFormat.format(LocalDateTime.now()) + "--Simulation Details.csv");
+        districtsDetailsCsvFile = new File(csvDirectoryPath, dateFormat.format(LocalDateTime.now()) + "--Districts Details.csv");
         try {
             if (!simulationDetailsCsvFile.createNewFile()) {
                 throw new IOException("Unable to create file");
@@ -84,54 +88,48 @@ public class ExportSimulationAndDistrictDetails extends Thread {
         }
     }
 
-    @Override
-    public void run() {
-        while (!world.hasSimulationDurationElapsed()) {
-            if (!world.isSimulationPaused() && exportCounter <= (world.getSimulationTimeLong() / periodOfTimeToExportDetailsInSeconds)) {
-                exportCounter++;
-                var allEntities = world.getAllEntities();
-                var allPatrols = allEntities.stream()
-                        .filter(Patrol.class::isInstance)
-                        .map(Patrol.class::cast)
-                        .collect(Collectors.toList());
-                var allIncidents = allEntities.stream()
-                        .filter(x -> x instanceof Incident && ((Incident) x).isActive())
-                        .map(Incident.class::cast)
-                        .collect(Collectors.toList());
-                var simulationTimeLong = world.getSimulationTimeLong();
-                var isNight = world.isNight();
-                try {
-                    writeToSimulationDetailsCsvFile(simulationTimeLong, allPatrols, allIncidents, isNight);
-                    writeToDistrictsDetailsCsvFile(simulationTimeLong, allPatrols, allIncidents, isNight);
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+    public int getExportCounter() {
+        return exportCounter;
+    }
 
-                // sleep for next 'periodOfTimeToExportDetails' minutes in simulation time
-                var sleepTime = ((periodOfTimeToExportDetailsInSeconds - (world.getSimulationTime() % periodOfTimeToExportDetailsInSeconds)) * 1000) / world.getConfig().getTimeRate();
-                try {
-                    sleep((long) sleepTime, (int) ((sleepTime - (long) sleepTime) * 1000000));
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                    Thread.currentThread().interrupt();
-                }
-            }
+    public void setExportCounter(int exportCounter) {
+        this.exportCounter = exportCounter;
+    }
+
+    public boolean exportDetailsIfDue() {
+        if (exportCounter > (world.getSimulationTimeLong() / periodOfTimeToExportDetailsInSeconds)) {
+            return false;
+        }
+        exportCounter++;
+        var allPatrols = world.getPatrols().asList();
+        var allIncidents = world.getIncidents().asList().stream()
+                .filter(Incident::isActive)
+                .collect(Collectors.toList());
+        var simulationTimeLong = world.getSimulationTimeLong();
+        var isNight = world.isNight();
+        try {
+            writeToSimulationDetailsCsvFile(simulationTimeLong, allPatrols, allIncidents, isNight);
+            writeToDistrictsDetailsCsvFile(simulationTimeLong, allIncidents, isNight);
+        } catch (IOException e) {
+            e.printStackTrace();
         }
+        return true;
     }
 
     private void writeToSimulationDetailsCsvFile(long simulationTimeLong, List<Patrol> allPatrols, List<Incident> allIncidents, boolean isNight) throws IOException {
+        var patrolStates = world.getPatrolStates();
         var csvWriter = new CSVWriter(new FileWriter(simulationDetailsCsvFile, true));
         csvWriter.writeNext(new String[]{
                 String.valueOf(simulationTimeLong),
                 String.valueOf(allPatrols.size()),
-                String.valueOf(allPatrols.stream().filter(x -> x.getState() == Patrol.State.PATROLLING).count()),
-                String.valueOf(allPatrols.stream().filter(x -> x.getState() == Patrol.State.CALCULATING_PATH).count()),
-                String.valueOf(allPatrols.stream().filter(x -> x.getState() == Patrol.State.TRANSFER_TO_INTERVENTION).count()),
-                String.valueOf(allPatrols.stream().filter(x -> x.getState() == Patrol.State.TRANSFER_TO_FIRING).count()),
-                String.valueOf(allPatrols.stream().filter(x -> x.getState() == Patrol.State.INTERVENTION).count()),
-                String.valueOf(allPatrols.stream().filter(x -> x.getState() == Patrol.State.FIRING).count()),
-                String.valueOf(world.getNeutralizedPatrolsTotal() + allPatrols.stream().filter(x -> x.getState() == Patrol.State.NEUTRALIZED).count()),
-                String.valueOf(allPatrols.stream().filter(x -> x.getState() == Patrol.State.RETURNING_TO_HQ).count()),
+                String.valueOf(patrolStates.count(Patrol.State.PATROLLING)),
+                String.valueOf(patrolStates.count(Patrol.State.CALCULATING_PATH)),
+                String.valueOf(patrolStates.count(Patrol.State.TRANSFER_TO_INTERVENTION)),
+                String.valueOf(patrolStates.count(Patrol.State.TRANSFER_TO_FIRING)),
+                String.valueOf(patrolStates.count(Patrol.State.INTERVENTION)),
+                String.valueOf(patrolStates.count(Patrol.State.FIRING)),
+                String.valueOf(world.getNeutralizedPatrolsTotal() + patrolStates.count(Patrol.State.NEUTRALIZED)),
+                String.valueOf(patrolStates.count(Patrol.State.RETURNING_TO_HQ)),
                 String.valueOf(allIncidents.size()),
                 String.valueOf(allIncidents.stream().filter(Intervention.class::isInstance).count()),
                 String.valueOf(allIncidents.stream().filter(x -> x instanceof Intervention && ((Intervention) x).getPatrolSolving() != null).count()),
@@ -142,24 +140,40 @@ public class ExportSimulationAndDistrictDetails extends Thread {
         csvWriter.close();
     }
 
-    private void writeToDistrictsDetailsCsvFile(long simulationTimeLong, List<Patrol> allPatrols, List<Incident> allIncidents, boolean isNight) throws IOException {
-        var districts = world.getDistricts();
+    private void writeToDistrictsDetailsCsvFile(long simulationTimeLong, List<Incident> allIncidents, boolean isNight) throws IOException {
+        var districts = world.getMap().getDistricts();
+        // patrols counted by district and state, and incidents by district, in one pass over each
+        var patrolsByDistrictAndState = new int[districts.size()][Patrol.State.values().length + 1];
+        world.countPatrolsByDistrict(patrolsByDistrictAndState);
+        var districtIndices = new IdentityHashMap<District, Integer>();
+        for (int i = 0; i < districts.size(); i++) {
+            districtIndices.put(districts.get(i), i);
+        }
+        var incidentsByDistrict = new int[districts.size()];
+        for (var incident : allIncidents) {
+            var index = districtIndices.get(incident.getDistrict());
+            if (index != null) {
+                incidentsByDistrict[index]++;
+            }
+        }
+
         var csvWriter = new CSVWriter(new FileWriter(districtsDetailsCsvFile, true));
-        for (District d : districts) {
-            var allPatrolsInDistrict = allPatrols.stream().filter(x -> d.contains(x.getPosition())).collect(Collectors.toList());
+        for (int i = 0; i < districts.size(); i++) {
+            var d = districts.get(i);
+            var patrolsInDistrictByState = patrolsByDistrictAndState[i];
             csvWriter.writeNext(new String[]{
                     String.valueOf(simulationTimeLong),
                     d.getName(),
                     String.valueOf(d.getThreatLevel()),
-                    String.valueOf(allPatrolsInDistrict.size()),
-                    String.valueOf(allPatrolsInDistrict.stream().filter(x -> x.getState() == Patrol.State.PATROLLING).count()),
-                    String.valueOf(allPatrolsInDistrict.stream().filter(x -> x.getState() == Patrol.State.CALCULATING_PATH).count()),
-                    String.valueOf(allPatrolsInDistrict.stream().filter(x -> x.getState() == Patrol.State.TRANSFER_TO_INTERVENTION).count()),
-                    String.valueOf(allPatrolsInDistrict.stream().filter(x -> x.getState() == Patrol.State.TRANSFER_TO_FIRING).count()),
-                    String.valueOf(allPatrolsInDistrict.stream().filter(x -> x.getState() == Patrol.State.INTERVENTION).count()),
-                    String.valueOf(allPatrolsInDistrict.stream().filter(x -> x.getState() == Patrol.State.FIRING).count()),
-                    String.valueOf(allPatrolsInDistrict.stream().filter(x -> x.getState() == Patrol.State.RETURNING_TO_HQ).count()),
-                    String.valueOf(allIncidents.stream().filter(x -> d.contains(x.getPosition())).count()),
+                    String.valueOf(Arrays.stream(patrolsInDistrictByState).sum()),
+                    String.valueOf(patrolsInDistrictByState[Patrol.State.PATROLLING.ordinal()]),
+                    String.valueOf(patrolsInDistrictByState[Patrol.State.CALCULATING_PATH.ordinal()]),
+                    String.valueOf(patrolsInDistrictByState[Patrol.State.TRANSFER_TO_INTERVENTION.ordinal()]),
+                    String.valueOf(patrolsInDistrictByState[Patrol.State.TRANSFER_TO_FIRING.ordinal()]),
+                    String.valueOf(patrolsInDistrictByState[Patrol.State.INTERVENTION.ordinal()]),
+                    String.valueOf(patrolsInDistrictByState[Patrol.State.FIRING.ordinal()]),
+                    String.valueOf(patrolsInDistrictByState[Patrol.State.RETURNING_TO_HQ.ordinal()]),
+                    String.valueOf(incidentsByDistrict[i]),
                     isNight ? "1" : "0"
             }, false);
         }
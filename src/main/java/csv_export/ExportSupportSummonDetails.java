@@ -4,6 +4,7 @@ import com.opencsv.CSVWriter;
 import entities.Firing;
 import entities.Patrol;
 import utils.Haversine;
+import world.SimulationContext;
 import world.World;
 
 import java.io.File;
@@ -32,6 +33,11 @@ public class ExportSupportSummonDetails extends AbstractExportData {
     }
 
     public static ExportSupportSummonDetails getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(ExportSupportSummonDetails.class, ExportSupportSummonDetails::new);
+        }
+
         // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
         var result = instance;
         if (instance != null) {
@@ -0,0 +1,54 @@
+package csv_export;
+
+import com.opencsv.CSVWriter;
+import simulation.ParameterSweep;
+import simulation.ReplicationRunner;
+import simulation.SweepParameter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class ExportSweepResults extends AbstractExportData {
+
+    private static final String CSV_DIRECTORY_PATH = "results";
+
+    public File export(List<SweepParameter> parameters, List<ParameterSweep.Row> rows) {
+        var header = new ArrayList<String>();
+        header.add("pointNumber");
+        header.add("replicationNumber");
+        for (var parameter : parameters) {
+            header.add(parameter.getName());
+        }
+        for (var metric : ReplicationRunner.Metric.values()) {
+            header.add(metric.toString());
+        }
+        header.add("failed");
+
+        var csvFile = createExportFile(CSV_DIRECTORY_PATH, header.toArray(new String[0]), "--Parameter Sweep Results.csv");
+        var sortedRows = new ArrayList<>(rows);
+        sortedRows.sort(Comparator.comparingInt(ParameterSweep.Row::getPointNumber).thenComparingInt(ParameterSweep.Row::getReplicationNumber));
+        try (var csvWriter = new CSVWriter(new FileWriter(csvFile, true))) {
+            for (var row : sortedRows) {
+                var line = new ArrayList<String>();
+                line.add(String.valueOf(row.getPointNumber()));
+                line.add(String.valueOf(row.getReplicationNumber()));
+                for (var value : row.getParameterValues()) {
+                    line.add(String.valueOf(value));
+                }
+                // failed runs have no metrics
+                for (var metric : ReplicationRunner.Metric.values()) {
+                    line.add(row.isFailed() ? "" : String.valueOf(row.getMetric(metric)));
+                }
+                line.add(String.valueOf(row.isFailed()));
+                csvWriter.writeNext(line.toArray(new String[0]));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return csvFile;
+    }
+}
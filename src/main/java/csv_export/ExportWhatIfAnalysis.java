@@ -0,0 +1,50 @@
+package csv_export;
+
+import com.opencsv.CSVWriter;
+import simulation.ReplicationRunner;
+import simulation.WhatIfResult;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+public class ExportWhatIfAnalysis extends AbstractExportData {
+
+    private static final String CSV_DIRECTORY_PATH = "results";
+    private static final String[] whatIfHeader = new String[]{
+            "branch",
+            "horizon",
+            "metric",
+            "valueAtFork",
+            "valueAtHorizon",
+            "change",
+            "changeRelativeToFirstBranch",
+            "failed"
+    };
+
+    public File export(List<WhatIfResult> results, long horizon) {
+        var csvFile = createExportFile(CSV_DIRECTORY_PATH, whatIfHeader, "--What-If Analysis.csv");
+        try (var csvWriter = new CSVWriter(new FileWriter(csvFile, true))) {
+            for (var result : results) {
+                // failed branches have no values, and neither has the relative change if the first branch has failed
+                var isCompared = !result.isFailed() && !results.get(0).isFailed();
+                for (var metric : ReplicationRunner.Metric.values()) {
+                    csvWriter.writeNext(new String[]{
+                            result.getBranchName(),
+                            String.valueOf(horizon),
+                            metric.toString(),
+                            result.isFailed() ? "" : String.valueOf(result.getValueAtFork(metric)),
+                            result.isFailed() ? "" : String.valueOf(result.getValueAtHorizon(metric)),
+                            result.isFailed() ? "" : String.valueOf(result.getChange(metric)),
+                            isCompared ? String.valueOf(result.getChange(metric) - results.get(0).getChange(metric)) : "",
+                            String.valueOf(result.isFailed())
+                    });
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return csvFile;
+    }
+}
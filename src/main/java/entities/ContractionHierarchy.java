@@ -0,0 +1,550 @@
+package entities;
+
+import de.westnordost.osmapi.map.data.Node;
+import org.jgrapht.Graph;
+import osm_to_graph.ImportedEdge;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Contraction hierarchy of the street graph, an alternative to A* for finding the shortest paths. Once, before the first
+ * query, the nodes are contracted from the least important ones: a contracted node leaves the graph, and shortcuts replace
+ * the shortest paths which went through it. Nodes which are not adjacent are contracted together, on all cores.
+ * A query is a Dijkstra search from both ends which only goes up the hierarchy, so it settles a small part of the nodes
+ * A* would, and the shortcuts on the found path are unpacked into the edges of the graph. The path has the same length
+ * as the one found by A*, and the same nodes when the shortest path is unique.
+ */
+public class ContractionHierarchy {
+
+    private static final int NO_EDGE = -1;
+    // nodes settled by a witness search at most, a witness which is not found only costs a superfluous shortcut
+    private static final int WITNESS_SEARCH_LIMIT = 500;
+
+    private final Graph<Node, ImportedEdge> graph;
+    // edges of the graph and shortcuts, each shortcut stands for two other edges
+    private final EdgeList edges = new EdgeList();
+    // searches are reused by the queries, which may run on several threads
+    private final ConcurrentLinkedQueue<Search> searches = new ConcurrentLinkedQueue<>();
+    private volatile boolean isPrepared = false;
+    private Node[] nodes;
+    private java.util.Map<Node, Integer> indices;
+    // edges going up the hierarchy out of every node (for the search from the source) and into it (from the target)
+    private int[] upwardOutOffsets;
+    private int[] upwardOutEdges;
+    private int[] upwardInOffsets;
+    private int[] upwardInEdges;
+    // state of the contraction, dropped when it is finished; only the edges between nodes which are not contracted are kept
+    private Adjacency[] outEdges;
+    private Adjacency[] inEdges;
+    private boolean[] isContracted;
+    private int[] priorities;
+    private int[] contractedNeighbours;
+    private int[] levels;
+
+    public ContractionHierarchy(Graph<Node, ImportedEdge> graph) {
+        this.graph = graph;
+    }
+
+    // contracts the graph, unless it has been done already (otherwise it is done by the first query)
+    public synchronized void prepare() {
+        if (isPrepared) {
+            return;
+        }
+        nodes = graph.vertexSet().toArray(new Node[0]);
+        indices = new HashMap<>();
+        outEdges = new Adjacency[nodes.length];
+        inEdges = new Adjacency[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            indices.put(nodes[i], i);
+            outEdges[i] = new Adjacency();
+            inEdges[i] = new Adjacency();
+        }
+        for (var edge : graph.edgeSet()) {
+            int source = indices.get(graph.getEdgeSource(edge));
+            int target = indices.get(graph.getEdgeTarget(edge));
+            if (source != target) {
+                addEdge(source, target, graph.getEdgeWeight(edge), NO_EDGE, NO_EDGE);
+            }
+        }
+        contract();
+        isPrepared = true;
+    }
+
+    public int getNumberOfShortcuts() {
+        prepare();
+        var shortcuts = 0;
+        for (int edge = 0; edge < edges.size; edge++) {
+            if (edges.firstChildren[edge] != NO_EDGE) {
+                shortcuts++;
+            }
+        }
+        return shortcuts;
+    }
+
+    // nodes of the shortest path from the source to the target (both included), null if there is no path between them
+    public List<Node> getPath(Node source, Node target) {
+        if (!isPrepared) {
+            prepare();
+        }
+        var sourceIndex = indices.get(source);
+        var targetIndex = indices.get(target);
+        if (sourceIndex == null || targetIndex == null) {
+            throw new IllegalArgumentException("Graph must contain the source and the target node");
+        }
+        var search = takeSearch();
+        try {
+            return search.findPath(sourceIndex, targetIndex);
+        } finally {
+            search.reset();
+            searches.add(search);
+        }
+    }
+
+    // adds an edge between nodes which are not contracted yet, or shortens the one already between them
+    private void addEdge(int source, int target, double weight, int firstChild, int secondChild) {
+        var out = outEdges[source];
+        var i = out.indexOf(target);
+        if (i == -1) {
+            var edge = edges.add(source, target, weight, firstChild, secondChild);
+            out.add(edge, target, weight);
+            inEdges[target].add(edge, source, weight);
+        } else if (out.weights[i] > weight) {
+            var edge = edges.add(source, target, weight, firstChild, secondChild);
+            out.set(i, edge, weight);
+            var in = inEdges[target];
+            in.set(in.indexOf(source), edge, weight);
+        }
+    }
+
+    private void addShortcut(int first, int second) {
+        addEdge(edges.sources[first], edges.targets[second], edges.weights[first] + edges.weights[second], first, second);
+    }
+
+    private void contract() {
+        var numberOfNodes = nodes.length;
+        isContracted = new boolean[numberOfNodes];
+        priorities = new int[numberOfNodes];
+        contractedNeighbours = new int[numberOfNodes];
+        levels = new int[numberOfNodes];
+        IntStream.range(0, numberOfNodes).parallel().forEach(node -> priorities[node] = calculatePriority(node));
+
+        var upwardOut = new int[numberOfNodes][];
+        var upwardIn = new int[numberOfNodes][];
+        var remaining = IntStream.range(0, numberOfNodes).toArray();
+        var numberOfRemaining = numberOfNodes;
+        var isInBatch = new boolean[numberOfNodes];
+        var isNeighbour = new boolean[numberOfNodes];
+        var batch = new IntList();
+        var neighbours = new IntList();
+        while (numberOfRemaining > 0) {
+            // nodes less important than all their neighbours, so no two of them are adjacent
+            batch.clear();
+            for (int i = 0; i < numberOfRemaining; i++) {
+                if (isLocalMinimum(remaining[i])) {
+                    batch.add(remaining[i]);
+                    isInBatch[remaining[i]] = true;
+                }
+            }
+
+            // shortcuts are found in parallel, but a witness through another node of the batch may be gone when the node
+            // is contracted, so such pairs of edges are checked again then
+            var shortcuts = new int[batch.size][];
+            var uncertain = new int[batch.size][];
+            IntStream.range(0, batch.size).parallel().forEach(i -> {
+                var search = takeSearch();
+                var found = new IntList();
+                var witnessedThroughBatch = new IntList();
+                findShortcuts(batch.values[i], isInBatch, search, found, witnessedThroughBatch);
+                shortcuts[i] = found.toArray();
+                uncertain[i] = witnessedThroughBatch.toArray();
+                searches.add(search);
+            });
+
+            neighbours.clear();
+            var search = takeSearch();
+            for (int i = 0; i < batch.size; i++) {
+                var node = batch.values[i];
+                upwardOut[node] = removeNode(node, outEdges[node], inEdges, neighbours, isNeighbour);
+                upwardIn[node] = removeNode(node, inEdges[node], outEdges, neighbours, isNeighbour);
+                for (int j = 0; j < shortcuts[i].length; j += 2) {
+                    addShortcut(shortcuts[i][j], shortcuts[i][j + 1]);
+                }
+                for (int j = 0; j < uncertain[i].length; j += 2) {
+                    var first = uncertain[i][j];
+                    var second = uncertain[i][j + 1];
+                    var weight = edges.weights[first] + edges.weights[second];
+                    search.findWitnesses(edges.sources[first], node, weight);
+                    var isWitnessed = search.forwardDistances[edges.targets[second]] <= weight;
+                    search.reset();
+                    if (!isWitnessed) {
+                        addShortcut(first, second);
+                    }
+                }
+                isInBatch[node] = false;
+            }
+            searches.add(search);
+
+            for (int i = 0; i < neighbours.size; i++) {
+                isNeighbour[neighbours.values[i]] = false;
+            }
+            IntStream.range(0, neighbours.size).parallel().forEach(i -> priorities[neighbours.values[i]] = calculatePriority(neighbours.values[i]));
+
+            var numberLeft = 0;
+            for (int i = 0; i < numberOfRemaining; i++) {
+                if (!isContracted[remaining[i]]) {
+                    remaining[numberLeft++] = remaining[i];
+                }
+            }
+            numberOfRemaining = numberLeft;
+        }
+
+        upwardOutOffsets = new int[numberOfNodes + 1];
+        upwardOutEdges = flatten(upwardOut, upwardOutOffsets);
+        upwardInOffsets = new int[numberOfNodes + 1];
+        upwardInEdges = flatten(upwardIn, upwardInOffsets);
+        outEdges = null;
+        inEdges = null;
+        isContracted = null;
+        priorities = null;
+        contractedNeighbours = null;
+        levels = null;
+    }
+
+    private boolean isLocalMinimum(int node) {
+        return isLessImportant(node, outEdges[node]) && isLessImportant(node, inEdges[node]);
+    }
+
+    private boolean isLessImportant(int node, Adjacency adjacency) {
+        for (int i = 0; i < adjacency.size; i++) {
+            var neighbour = adjacency.neighbours[i];
+            if (priorities[neighbour] < priorities[node] || (priorities[neighbour] == priorities[node] && neighbour < node)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // removes the edges of the contracted node from its neighbours, and returns them, as they all go up the hierarchy
+    private int[] removeNode(int node, Adjacency adjacency, Adjacency[] neighbourAdjacencies, IntList neighbours, boolean[] isNeighbour) {
+        isContracted[node] = true;
+        for (int i = 0; i < adjacency.size; i++) {
+            var neighbour = adjacency.neighbours[i];
+            neighbourAdjacencies[neighbour].remove(node);
+            contractedNeighbours[neighbour]++;
+            levels[neighbour] = Math.max(levels[neighbour], levels[node] + 1);
+            if (!isNeighbour[neighbour]) {
+                isNeighbour[neighbour] = true;
+                neighbours.add(neighbour);
+            }
+        }
+        return Arrays.copyOf(adjacency.edges, adjacency.size);
+    }
+
+    private static int[] flatten(int[][] lists, int[] offsets) {
+        for (int i = 0; i < lists.length; i++) {
+            offsets[i + 1] = offsets[i] + lists[i].length;
+        }
+        var flat = new int[offsets[lists.length]];
+        for (int i = 0; i < lists.length; i++) {
+            System.arraycopy(lists[i], 0, flat, offsets[i], lists[i].length);
+        }
+        return flat;
+    }
+
+    // shortcuts added by contracting the node less the edges removed (weighted twice), plus the neighbours contracted before
+    // and the level of the node, so that the contraction spreads evenly over the graph
+    private int calculatePriority(int node) {
+        var search = takeSearch();
+        var shortcuts = new IntList();
+        findShortcuts(node, null, search, shortcuts, null);
+        searches.add(search);
+        var edgeDifference = shortcuts.size / 2 - outEdges[node].size - inEdges[node].size;
+        return 2 * edgeDifference + contractedNeighbours[node] + levels[node];
+    }
+
+    // pairs of edges (into and out of the node) which need a shortcut, as no other path between their ends is as short,
+    // and the pairs with such a path only through the nodes of the batch (if it is given)
+    private void findShortcuts(int node, boolean[] isInBatch, Search search, IntList shortcuts, IntList witnessedThroughBatch) {
+        var in = inEdges[node];
+        var out = outEdges[node];
+        var maxOutWeight = 0.0;
+        for (int i = 0; i < out.size; i++) {
+            maxOutWeight = Math.max(maxOutWeight, out.weights[i]);
+        }
+        for (int i = 0; i < in.size; i++) {
+            var source = in.neighbours[i];
+            search.findWitnesses(source, node, in.weights[i] + maxOutWeight);
+            for (int j = 0; j < out.size; j++) {
+                var target = out.neighbours[j];
+                if (target == source) {
+                    continue;
+                }
+                if (search.forwardDistances[target] > in.weights[i] + out.weights[j]) {
+                    shortcuts.add(in.edges[i]);
+                    shortcuts.add(out.edges[j]);
+                } else if (isInBatch != null && search.isThrough(target, isInBatch)) {
+                    witnessedThroughBatch.add(in.edges[i]);
+                    witnessedThroughBatch.add(out.edges[j]);
+                }
+            }
+            search.reset();
+        }
+    }
+
+    private Search takeSearch() {
+        var search = searches.poll();
+        return search != null ? search : new Search();
+    }
+
+    // distances, parents and queues of a search, reset after every use
+    private final class Search {
+
+        private final double[] forwardDistances = new double[nodes.length];
+        private final double[] backwardDistances = new double[nodes.length];
+        private final int[] forwardParents = new int[nodes.length];
+        private final int[] backwardParents = new int[nodes.length];
+        private final NodeHeap forwardHeap = new NodeHeap(forwardDistances);
+        private final NodeHeap backwardHeap = new NodeHeap(backwardDistances);
+        private final IntList reached = new IntList();
+        private final IntList pathEdges = new IntList();
+        private final boolean[] isTarget = new boolean[nodes.length];
+
+        private Search() {
+            Arrays.fill(forwardDistances, Double.POSITIVE_INFINITY);
+            Arrays.fill(backwardDistances, Double.POSITIVE_INFINITY);
+            Arrays.fill(forwardParents, NO_EDGE);
+            Arrays.fill(backwardParents, NO_EDGE);
+        }
+
+        // distances from the source to the nodes after the contracted one, avoiding it, exact for the nodes which are
+        // settled before the limits are reached
+        private void findWitnesses(int source, int contractedNode, double maxDistance) {
+            var out = outEdges[contractedNode];
+            var targetsLeft = 0;
+            for (int i = 0; i < out.size; i++) {
+                var target = out.neighbours[i];
+                if (target != source && !isTarget[target]) {
+                    isTarget[target] = true;
+                    targetsLeft++;
+                }
+            }
+            reach(forwardDistances, forwardParents, forwardHeap, source, 0, NO_EDGE);
+            var settled = 0;
+            while (!forwardHeap.isEmpty() && settled < WITNESS_SEARCH_LIMIT && targetsLeft > 0) {
+                var node = forwardHeap.poll();
+                settled++;
+                if (isTarget[node]) {
+                    targetsLeft--;
+                }
+                var adjacency = outEdges[node];
+                var distanceToNode = forwardDistances[node];
+                for (int i = 0; i < adjacency.size; i++) {
+                    var target = adjacency.neighbours[i];
+                    var distance = distanceToNode + adjacency.weights[i];
+                    if (distance <= maxDistance && target != contractedNode) {
+                        reach(forwardDistances, forwardParents, forwardHeap, target, distance, adjacency.edges[i]);
+                    }
+                }
+            }
+            for (int i = 0; i < out.size; i++) {
+                isTarget[out.neighbours[i]] = false;
+            }
+        }
+
+        // whether the path found by the witness search to the node goes through any of the given ones
+        private boolean isThrough(int node, boolean[] nodes) {
+            for (var edge = forwardParents[node]; edge != NO_EDGE; edge = forwardParents[edges.sources[edge]]) {
+                if (nodes[edges.sources[edge]]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private List<Node> findPath(int source, int target) {
+            reach(forwardDistances, forwardParents, forwardHeap, source, 0, NO_EDGE);
+            reach(backwardDistances, backwardParents, backwardHeap, target, 0, NO_EDGE);
+            var shortest = Double.POSITIVE_INFINITY;
+            var meetingNode = -1;
+            while (true) {
+                var forwardKey = forwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : forwardDistances[forwardHeap.peek()];
+                var backwardKey = backwardHeap.isEmpty() ? Double.POSITIVE_INFINITY : backwardDistances[backwardHeap.peek()];
+                // neither search can find a shorter path any more
+                if (Math.min(forwardKey, backwardKey) >= shortest) {
+                    break;
+                }
+                if (forwardKey <= backwardKey) {
+                    var node = forwardHeap.poll();
+                    if (forwardDistances[node] + backwardDistances[node] < shortest) {
+                        shortest = forwardDistances[node] + backwardDistances[node];
+                        meetingNode = node;
+                    }
+                    for (int i = upwardOutOffsets[node]; i < upwardOutOffsets[node + 1]; i++) {
+                        var edge = upwardOutEdges[i];
+                        reach(forwardDistances, forwardParents, forwardHeap, edges.targets[edge], forwardDistances[node] + edges.weights[edge], edge);
+                    }
+                } else {
+                    var node = backwardHeap.poll();
+                    if (forwardDistances[node] + backwardDistances[node] < shortest) {
+                        shortest = forwardDistances[node] + backwardDistances[node];
+                        meetingNode = node;
+                    }
+                    for (int i = upwardInOffsets[node]; i < upwardInOffsets[node + 1]; i++) {
+                        var edge = upwardInEdges[i];
+                        reach(backwardDistances, backwardParents, backwardHeap, edges.sources[edge], backwardDistances[node] + edges.weights[edge], edge);
+                    }
+                }
+            }
+            if (meetingNode == -1) {
+                return null;
+            }
+
+            // edges from the source up to the meeting node, then down to the target
+            pathEdges.clear();
+            for (var node = meetingNode; forwardParents[node] != NO_EDGE; node = edges.sources[forwardParents[node]]) {
+                pathEdges.add(forwardParents[node]);
+            }
+            var path = new ArrayList<Node>();
+            path.add(nodes[source]);
+            for (int i = pathEdges.size - 1; i >= 0; i--) {
+                unpack(pathEdges.values[i], path);
+            }
+            for (var node = meetingNode; backwardParents[node] != NO_EDGE; node = edges.targets[backwardParents[node]]) {
+                unpack(backwardParents[node], path);
+            }
+            return path;
+        }
+
+        // adds the nodes of the edge to the path, without its source
+        private void unpack(int edge, List<Node> path) {
+            if (edges.firstChildren[edge] == NO_EDGE) {
+                path.add(nodes[edges.targets[edge]]);
+            } else {
+                unpack(edges.firstChildren[edge], path);
+                unpack(edges.secondChildren[edge], path);
+            }
+        }
+
+        private void reach(double[] distances, int[] parents, NodeHeap heap, int node, double distance, int edge) {
+            if (distance < distances[node]) {
+                if (forwardDistances[node] == Double.POSITIVE_INFINITY && backwardDistances[node] == Double.POSITIVE_INFINITY) {
+                    reached.add(node);
+                }
+                distances[node] = distance;
+                parents[node] = edge;
+                heap.push(node);
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < reached.size; i++) {
+                var node = reached.values[i];
+                forwardDistances[node] = Double.POSITIVE_INFINITY;
+                backwardDistances[node] = Double.POSITIVE_INFINITY;
+                forwardParents[node] = NO_EDGE;
+                backwardParents[node] = NO_EDGE;
+            }
+            reached.clear();
+            forwardHeap.clear();
+            backwardHeap.clear();
+        }
+    }
+
+    // edges in parallel arrays, numbered in the order they were added
+    private static final class EdgeList {
+
+        private int size = 0;
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private double[] weights = new double[16];
+        private int[] firstChildren = new int[16];
+        private int[] secondChildren = new int[16];
+
+        private int add(int source, int target, double weight, int firstChild, int secondChild) {
+            if (size == sources.length) {
+                var capacity = size * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                secondChildren = Arrays.copyOf(secondChildren, capacity);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            firstChildren[size] = firstChild;
+            secondChildren[size] = secondChild;
+            return size++;
+        }
+    }
+
+    // edges out of or into a node during the contraction, with their other ends and weights at hand for the witness searches
+    private static final class Adjacency {
+
+        private int size = 0;
+        private int[] edges = new int[4];
+        private int[] neighbours = new int[4];
+        private double[] weights = new double[4];
+
+        private void add(int edge, int neighbour, double weight) {
+            if (size == edges.length) {
+                edges = Arrays.copyOf(edges, size * 2);
+                neighbours = Arrays.copyOf(neighbours, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            neighbours[size] = neighbour;
+            set(size++, edge, weight);
+        }
+
+        private void set(int index, int edge, double weight) {
+            edges[index] = edge;
+            weights[index] = weight;
+        }
+
+        private int indexOf(int neighbour) {
+            for (int i = 0; i < size; i++) {
+                if (neighbours[i] == neighbour) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // the order of the other edges is kept, so that the contraction does not depend on the order of removals
+        private void remove(int neighbour) {
+            var index = indexOf(neighbour);
+            if (index != -1) {
+                size--;
+                System.arraycopy(edges, index + 1, edges, index, size - index);
+                System.arraycopy(neighbours, index + 1, neighbours, index, size - index);
+                System.arraycopy(weights, index + 1, weights, index, size - index);
+            }
+        }
+    }
+
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
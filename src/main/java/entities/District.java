@@ -18,13 +18,29 @@ public class District implements IDrawable {
     private final Long id;
     private final String name;
     private final Path2D boundaries;
-    private final List<Node> allNodesInDistrict = new ArrayList<>();
+    private final List<Node> allNodesInDistrict;
     private ThreatLevelEnum threatLevel = ThreatLevelEnum.RATHER_SAFE;
 
     public District(Long id, String name, Path2D boundaries) {
         this.boundaries = boundaries;
         this.id = id;
         this.name = name;
+        this.allNodesInDistrict = new ArrayList<>();
+    }
+
+    // district with the given threat level from the start, which is not logged as a change
+    public District(Long id, String name, Path2D boundaries, ThreatLevelEnum threatLevel) {
+        this(id, name, boundaries);
+        this.threatLevel = threatLevel;
+    }
+
+    // copy with its own threat level, sharing the boundaries and the nodes with 'district'
+    public District(District district) {
+        this.boundaries = district.boundaries;
+        this.id = district.id;
+        this.name = district.name;
+        this.allNodesInDistrict = district.allNodesInDistrict;
+        this.threatLevel = district.threatLevel;
     }
 
     public Long getId() {
@@ -40,7 +56,11 @@ public class District implements IDrawable {
     }
 
     public boolean contains(LatLon latLon) {
-        return this.boundaries.contains(latLon.getLatitude(), latLon.getLongitude());
+        return contains(latLon.getLatitude(), latLon.getLongitude());
+    }
+
+    public boolean contains(double latitude, double longitude) {
+        return this.boundaries.contains(latitude, longitude);
     }
 
     public void addNodeToDistrict(Node node) {
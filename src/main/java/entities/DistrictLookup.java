@@ -0,0 +1,122 @@
+package entities;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the district of a point in constant time. The bounding box of the districts is divided into a raster of cells,
+ * and every cell which lies entirely inside a district, or outside all of them, knows its district in advance. Only in
+ * the cells crossed by boundaries are the districts tested exactly (as District.contains does), and only the ones crossing
+ * the cell. A point belongs to the first district containing it, in the order of the list.
+ */
+class DistrictLookup {
+
+    static final int NO_DISTRICT = -1;
+    // about 200 meters in latitude
+    private static final double CELL_SIZE = 0.002;
+    private static final int MAX_CELLS_PER_SIDE = 512;
+    // cells are tested enlarged by the margin, so points rounded into a neighboring cell are still covered
+    private static final double CELL_MARGIN = Math.pow(10, -9);
+    private final Path2D[] boundaries;
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+    private final int rows;
+    private final int columns;
+    private final double cellHeight;
+    private final double cellWidth;
+    // district of every cell, NO_DISTRICT, or -2 - k for the k-th cell crossed by boundaries
+    private final int[] cells;
+    // districts which may contain points of the cells crossed by boundaries, in the order of the list
+    private final int[][] candidates;
+
+    DistrictLookup(List<District> districts) {
+        boundaries = new Path2D[districts.size()];
+        var districtBounds = new Rectangle2D[districts.size()];
+        Rectangle2D bounds = null;
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = districts.get(i).getBoundaries();
+            districtBounds[i] = boundaries[i].getBounds2D();
+            if (bounds == null) {
+                bounds = districtBounds[i];
+            } else {
+                bounds = bounds.createUnion(districtBounds[i]);
+            }
+        }
+        if (bounds == null) {
+            bounds = new Rectangle2D.Double();
+        }
+
+        // the boundaries of the districts are given as latitude (x) and longitude (y)
+        minLatitude = bounds.getMinX();
+        maxLatitude = bounds.getMaxX();
+        minLongitude = bounds.getMinY();
+        maxLongitude = bounds.getMaxY();
+        rows = getNumberOfCells(maxLatitude - minLatitude);
+        columns = getNumberOfCells(maxLongitude - minLongitude);
+        cellHeight = Math.max(maxLatitude - minLatitude, Double.MIN_NORMAL) / rows;
+        cellWidth = Math.max(maxLongitude - minLongitude, Double.MIN_NORMAL) / columns;
+
+        cells = new int[rows * columns];
+        var crossedCells = new ArrayList<int[]>();
+        var cell = new Rectangle2D.Double();
+        var found = new ArrayList<Integer>();
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                cell.setRect(minLatitude + row * cellHeight - CELL_MARGIN, minLongitude + column * cellWidth - CELL_MARGIN,
+                        cellHeight + 2 * CELL_MARGIN, cellWidth + 2 * CELL_MARGIN);
+                found.clear();
+                var isInside = false;
+                for (int i = 0; i < boundaries.length && !isInside; i++) {
+                    if (!districtBounds[i].intersects(cell) || !boundaries[i].intersects(cell)) {
+                        continue;
+                    }
+                    found.add(i);
+                    // the districts after one containing the whole cell are never reached
+                    isInside = boundaries[i].contains(cell);
+                }
+
+                var index = row * columns + column;
+                if (found.isEmpty()) {
+                    cells[index] = NO_DISTRICT;
+                } else if (isInside && found.size() == 1) {
+                    cells[index] = found.get(0);
+                } else {
+                    cells[index] = -2 - crossedCells.size();
+                    var crossedCell = new int[found.size()];
+                    for (int i = 0; i < crossedCell.length; i++) {
+                        crossedCell[i] = found.get(i);
+                    }
+                    crossedCells.add(crossedCell);
+                }
+            }
+        }
+        candidates = crossedCells.toArray(new int[0][]);
+    }
+
+    private static int getNumberOfCells(double length) {
+        return (int) Math.max(1, Math.min(MAX_CELLS_PER_SIDE, Math.ceil(length / CELL_SIZE)));
+    }
+
+    // index of the district containing the point in the list, NO_DISTRICT if there is none
+    int indexOf(double latitude, double longitude) {
+        if (!(latitude >= minLatitude && latitude <= maxLatitude && longitude >= minLongitude && longitude <= maxLongitude)) {
+            return NO_DISTRICT;
+        }
+        var row = Math.min((int) ((latitude - minLatitude) / cellHeight), rows - 1);
+        var column = Math.min((int) ((longitude - minLongitude) / cellWidth), columns - 1);
+        var cell = cells[row * columns + column];
+        if (cell >= NO_DISTRICT) {
+            return cell;
+        }
+        for (var district : candidates[-2 - cell]) {
+            if (boundaries[district].contains(latitude, longitude)) {
+                return district;
+            }
+        }
+        return NO_DISTRICT;
+    }
+}
@@ -2,19 +2,29 @@ package entities;
 
 import de.westnordost.osmapi.map.data.LatLon;
 import de.westnordost.osmapi.map.data.OsmLatLon;
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
+import world.World;
 
+import java.io.IOException;
 import java.util.UUID;
 
+/**
+ * Object placed in the world. Every entity has a compact id, the next one of its world (so the ids of a simulation do not
+ * depend on other simulations running at the same time), which is also its hash code.
+ */
 public abstract class Entity {
 
-    private final UUID uniqueID = UUID.randomUUID();
+    private final long id;
     private double latitude = 0;
     private double longitude = 0;
 
     protected Entity() {
+        this.id = World.getInstance().nextEntityId();
     }
 
     protected Entity(double latitude, double longitude) {
+        this();
         this.setLatitude(latitude);
         this.setLongitude(longitude);
     }
@@ -23,6 +33,19 @@ public abstract class Entity {
         this(position.getLatitude(), position.getLongitude());
     }
 
+    // restores the entity saved by writeCheckpoint
+    protected Entity(CheckpointInput in) throws IOException {
+        this.id = in.readLong();
+        this.latitude = in.readDouble();
+        this.longitude = in.readDouble();
+    }
+
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(id);
+        out.writeDouble(getLatitude());
+        out.writeDouble(getLongitude());
+    }
+
     public double getLatitude() {
         return latitude;
     }
@@ -40,16 +63,26 @@ public abstract class Entity {
     }
 
     public LatLon getPosition() {
-        return new OsmLatLon(latitude, longitude);
+        return new OsmLatLon(getLatitude(), getLongitude());
     }
 
     public void setPosition(LatLon position) {
-        this.latitude = position.getLatitude();
-        this.longitude = position.getLongitude();
+        setLatitude(position.getLatitude());
+        setLongitude(position.getLongitude());
     }
 
+    public long getId() {
+        return id;
+    }
+
+    // the id in the format of the exports and logs, created only when it is written
     public UUID getUniqueID() {
-        return uniqueID;
+        return new UUID(0, id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(id);
     }
 
     @Override
@@ -1,11 +1,14 @@
 package entities;
 
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
 import world.World;
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.viewer.GeoPosition;
 
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -31,6 +34,25 @@ public class Firing extends Incident implements IDrawable {
         this.district = district;
     }
 
+    public Firing(CheckpointInput in) throws IOException {
+        super(in);
+        this.requiredPatrols = in.readInt();
+        this.strength = in.readDouble();
+        this.district = in.readDistrict();
+        in.readEntityReferences(patrol -> patrolsSolving.add((Patrol) patrol));
+        in.readEntityReferences(patrol -> patrolsReaching.add((Patrol) patrol));
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeInt(requiredPatrols);
+        out.writeDouble(strength);
+        out.writeDistrict(district);
+        out.writeEntityReferences(patrolsSolving);
+        out.writeEntityReferences(patrolsReaching);
+    }
+
     public int getRequiredPatrols() {
         return requiredPatrols;
     }
@@ -52,17 +74,28 @@ public class Firing extends Incident implements IDrawable {
     }
 
     public void addSolvingPatrol(Patrol patrol) {
+        settleStrength();
         patrolsSolving.add(patrol);
+        World.getInstance().getIncidentActivity().wakeUp(this);
     }
 
     public void removeSolvingPatrol(Patrol patrol) {
+        settleStrength();
         patrolsSolving.remove(patrol);
+        World.getInstance().getIncidentActivity().wakeUp(this);
     }
 
     public double getStrength() {
-        return strength;
+        return strength - patrolsSolving.size() * (World.getInstance().getSimulationTime() - timeOfLastUpdate);
+    }
+
+    // the strength drops linearly while the number of solving patrols does not change, so it is updated only when the number changes
+    private void settleStrength() {
+        this.strength -= patrolsSolving.size() * (World.getInstance().getSimulationTime() - timeOfLastUpdate);
+        timeOfLastUpdate = World.getInstance().getSimulationTime();
     }
 
+    @Override
     public District getDistrict() {
         return district;
     }
@@ -80,7 +113,7 @@ public class Firing extends Incident implements IDrawable {
         g.fill(mark);
 
         if (World.getInstance().getConfig().isDrawFiringDetails()) {
-            drawString(g,(int) point.getX() + 5, (int) point.getY(), String.format("Time left: %.2f [minutes]", strength / 60 / patrolsSolving.size()));
+            drawString(g,(int) point.getX() + 5, (int) point.getY(), String.format("Time left: %.2f [minutes]", getStrength() / 60 / patrolsSolving.size()));
             drawString(g, (int) point.getX() + 5, (int) point.getY() - 15, String.format("Patrols Required: %d", requiredPatrols));
             drawString(g, (int) point.getX() + 5, (int) point.getY() - 30, String.format("Patrols Reaching: %d", patrolsReaching.size()));
             drawString(g, (int) point.getX() + 5, (int) point.getY() - 45, String.format("Patrols Solving :%d", patrolsSolving.size()));
@@ -91,8 +124,7 @@ public class Firing extends Incident implements IDrawable {
 
     @Override
     public void updateState() {
-        this.strength -= patrolsSolving.size() * (World.getInstance().getSimulationTime() - timeOfLastUpdate);
-        timeOfLastUpdate = World.getInstance().getSimulationTime();
+        settleStrength();
         if (this.strength <= 0) {
             setActive(false);
             World.getInstance().removeEntity(this);
@@ -101,4 +133,13 @@ public class Firing extends Incident implements IDrawable {
             }
         }
     }
+
+    @Override
+    public double getNextWakeUpTime() {
+        if (!isActive()) {
+            return super.getNextWakeUpTime();
+        }
+        // the moment the strength drops to zero
+        return patrolsSolving.isEmpty() ? Double.POSITIVE_INFINITY : timeOfLastUpdate + strength / patrolsSolving.size();
+    }
 }
@@ -5,21 +5,32 @@ import csv_export.ExportRevokingPatrolsDetails;
 import csv_export.ExportSupportSummonDetails;
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.viewer.GeoPosition;
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
+import simulation.EventScheduler;
+import utils.Haversine;
 import utils.Logger;
 import world.World;
 
 import java.awt.*;
 import java.awt.geom.Ellipse2D;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.ToIntFunction;
 
 public class Headquarters extends Entity implements IDrawable {
 
+    private static final int MAX_INTERVENTION_SEARCH_RING = 10;
+    private static final int MAX_FIRING_SEARCH_RING = 3;
+    private static final int TRANSFERRING_PATROLS_SEARCH_RING = 4;
+    private static final Comparator<Incident> BY_START_TIME = Comparator.comparingLong(Incident::getStartTime);
+    // incidents of the current dispatch sorted by start time, the lists are reused in every tick
+    private final List<Intervention> sortedInterventions = new ArrayList<>();
+    private final List<Firing> sortedFirings = new ArrayList<>();
     private final double searchRange;
     private final double durationOfTheShift;
-    private List<Incident> incidents = new ArrayList<>();
     private double endOfCurrentShift;
 
     public Headquarters(double latitude, double longitude) {
@@ -29,6 +40,21 @@ public class Headquarters extends Entity implements IDrawable {
         this.searchRange = World.getInstance().getConfig().getBasicSearchDistance();
     }
 
+    public Headquarters(CheckpointInput in) throws IOException {
+        super(in);
+        this.searchRange = in.readDouble();
+        this.durationOfTheShift = in.readDouble();
+        this.endOfCurrentShift = in.readDouble();
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeDouble(searchRange);
+        out.writeDouble(durationOfTheShift);
+        out.writeDouble(endOfCurrentShift);
+    }
+
     @Override
     public void drawSelf(Graphics2D g, JXMapViewer mapViewer) {
         var oldColor = g.getColor();
@@ -44,23 +70,36 @@ public class Headquarters extends Entity implements IDrawable {
     }
 
     public void assignTasks() {
-        checkIfTheShiftIsOver();
-
-        updateListOfIncidents();
-        var allInterventions = incidents.stream().filter(Intervention.class::isInstance).sorted(Comparator.comparingLong(Incident::getStartTime)).collect(Collectors.toList());
-        var allFirings = incidents.stream().filter(Firing.class::isInstance).sorted(Comparator.comparingLong(Incident::getStartTime)).collect(Collectors.toList());
-
-        checkAllFirings(allFirings);
-        checkAllInterventions(allInterventions);
+        // added one by one, as addAll would copy the registries into new arrays
+        var interventions = World.getInstance().getInterventions();
+        for (int i = 0; i < interventions.size(); i++) {
+            sortedInterventions.add(interventions.get(i));
+        }
+        sortedInterventions.sort(BY_START_TIME);
+        var firings = World.getInstance().getFirings();
+        for (int i = 0; i < firings.size(); i++) {
+            sortedFirings.add(firings.get(i));
+        }
+        sortedFirings.sort(BY_START_TIME);
+
+        try {
+            checkAllFirings(sortedFirings);
+            checkAllInterventions(sortedInterventions);
+        } finally {
+            // the incidents are not kept until the next tick
+            sortedInterventions.clear();
+            sortedFirings.clear();
+        }
     }
 
-    private void checkAllFirings(List<Incident> allFirings) {
-        for (var firing : allFirings) {
-            var requiredPatrols = ((Firing) firing).getRequiredPatrols();
-            var patrolsSolving = ((Firing) firing).getPatrolsSolving();
-            var patrolsReaching = ((Firing) firing).getPatrolsReaching();
-            revokeRedundantPatrols((Firing) firing, patrolsSolving, patrolsReaching, requiredPatrols);
-            summonSupportForFiring((Firing) firing, patrolsSolving, patrolsReaching, requiredPatrols);
+    private void checkAllFirings(List<Firing> allFirings) {
+        for (int i = 0; i < allFirings.size(); i++) {
+            var firing = allFirings.get(i);
+            var requiredPatrols = firing.getRequiredPatrols();
+            var patrolsSolving = firing.getPatrolsSolving();
+            var patrolsReaching = firing.getPatrolsReaching();
+            revokeRedundantPatrols(firing, patrolsSolving, patrolsReaching, requiredPatrols);
+            summonSupportForFiring(firing, patrolsSolving, patrolsReaching, requiredPatrols);
         }
     }
 
@@ -70,69 +109,56 @@ public class Headquarters extends Entity implements IDrawable {
                 ExportRevokingPatrolsDetails.getInstance().writeToCsvFileRevokedPatrols(firing, patrolsReaching.size());
             }
             for (int i = patrolsReaching.size() - 1; i >= 0; i--) {
-                patrolsReaching.get(i).setState(Patrol.State.PATROLLING);
+                patrolsReaching.get(i).revokeOrder();
                 firing.removeReachingPatrol(patrolsReaching.get(i));
             }
         }
     }
 
     private void summonSupportForFiring(Firing firing, List<Patrol> patrolsSolving, List<Patrol> patrolsReaching, int requiredPatrols) {
-        if (patrolsSolving.size() + patrolsReaching.size() < requiredPatrols) {
-            for (int i = 1; i < 4; i++) {
-                var foundPatrols = World.getInstance().getEntitiesNear(firing, searchRange * i)
-                        .stream()
-                        .filter(x -> x instanceof Patrol && ((Patrol) x).getState() == Patrol.State.PATROLLING)
-                        .map(Patrol.class::cast)
-                        .collect(Collectors.toList());
-                giveOrdersToFoundPatrols(firing, foundPatrols, i);
-                if (foundPatrols.size() + patrolsSolving.size() + patrolsReaching.size() >= requiredPatrols) {
-                    break;
-                }
-            }
-            if (patrolsSolving.size() + patrolsReaching.size() < requiredPatrols) {
-                var foundTransferringToInterventionPatrols = World.getInstance().getEntitiesNear(firing, searchRange * 3)
-                        .stream()
-                        .filter(x -> x instanceof Patrol && ((Patrol) x).getState() == Patrol.State.TRANSFER_TO_INTERVENTION)
-                        .map(Patrol.class::cast)
-                        .collect(Collectors.toList());
-                giveOrdersToFoundPatrols(firing, foundTransferringToInterventionPatrols, 4);
-            }
+        var missingPatrols = requiredPatrols - patrolsSolving.size() - patrolsReaching.size();
+        if (missingPatrols > 0) {
+            var foundPatrols = World.getInstance().getNearestPatrols(firing, missingPatrols, searchRange * MAX_FIRING_SEARCH_RING, Patrol.State.PATROLLING);
+            giveOrdersToFoundPatrols(firing, foundPatrols, patrol -> getSearchRing(firing, patrol));
+            missingPatrols -= foundPatrols.size();
+        }
+        if (missingPatrols > 0) {
+            // patrols on their way to interventions are taken only if there are not enough free ones
+            var foundTransferringToInterventionPatrols = World.getInstance().getNearestPatrols(firing, missingPatrols,
+                    searchRange * MAX_FIRING_SEARCH_RING, Patrol.State.TRANSFER_TO_INTERVENTION);
+            giveOrdersToFoundPatrols(firing, foundTransferringToInterventionPatrols, patrol -> TRANSFERRING_PATROLS_SEARCH_RING);
         }
     }
 
-    private void checkAllInterventions(List<Incident> allInterventions) {
-        for (var intervention : allInterventions) {
-            if (((Intervention) intervention).getPatrolSolving() == null) {
-                Patrol availablePatrol;
-                int i = 0;
-                while (true) {
-                    availablePatrol = World.getInstance().getEntitiesNear(intervention, searchRange * i)
-                            .stream()
-                            .filter(x -> x instanceof Patrol && ((Patrol) x).getState() == Patrol.State.PATROLLING)
-                            .map(Patrol.class::cast).findFirst()
-                            .orElse(null);
-                    if (availablePatrol != null || i > 10) {
-                        break;
-                    }
-                    i++;
-                }
-                if (availablePatrol != null) {
+    private void checkAllInterventions(List<Intervention> allInterventions) {
+        for (int i = 0; i < allInterventions.size(); i++) {
+            var intervention = allInterventions.get(i);
+            if (intervention.getPatrolSolving() == null) {
+                var foundPatrols = World.getInstance().getNearestPatrols(intervention, 1, searchRange * MAX_INTERVENTION_SEARCH_RING, Patrol.State.PATROLLING);
+                if (!foundPatrols.isEmpty()) {
+                    var availablePatrol = foundPatrols.get(0);
                     Logger.getInstance().logNewOtherMessage(availablePatrol + " took order from HQ.");
                     Logger.getInstance().logNewMessageChangingState(availablePatrol, availablePatrol.getState().toString(), "TRANSFER_TO_INTERVENTION");
                     availablePatrol.takeOrder(
                             availablePatrol.new Transfer(World.getInstance().getSimulationTimeLong(),
                                     intervention, Patrol.State.TRANSFER_TO_INTERVENTION));
-                    ((Intervention) intervention).setPatrolSolving(availablePatrol);
+                    intervention.setPatrolSolving(availablePatrol);
                 }
             }
         }
     }
 
-    private void giveOrdersToFoundPatrols(Incident firing, List<Patrol> foundPatrols, int numberOfIteration) {
+    // number of the ring of width 'searchRange' around the incident the patrol is in, as recorded in the export of summoned patrols
+    private int getSearchRing(Incident incident, Patrol patrol) {
+        var distance = Haversine.distance(incident.getLatitude(), incident.getLongitude(), patrol.getLatitude(), patrol.getLongitude());
+        return Math.max(1, (int) Math.ceil(distance / searchRange));
+    }
+
+    private void giveOrdersToFoundPatrols(Incident firing, List<Patrol> foundPatrols, ToIntFunction<Patrol> searchRing) {
         for (var p : foundPatrols) {
             Logger.getInstance().logNewOtherMessage(p + " took order from HQ.");
             Logger.getInstance().logNewMessageChangingState(p, p.getState().toString(), "TRANSFER_TO_FIRING");
-            ExportSupportSummonDetails.getInstance().writeToCsvFile((Firing) firing, p, p.getState().name(), numberOfIteration);
+            ExportSupportSummonDetails.getInstance().writeToCsvFile((Firing) firing, p, p.getState().name(), searchRing.applyAsInt(p));
             p.takeOrder(p.new Transfer(World.getInstance().getSimulationTimeLong(), firing, Patrol.State.TRANSFER_TO_FIRING));
             ((Firing) firing).addReachingPatrol(p);
         }
@@ -141,21 +167,35 @@ public class Headquarters extends Entity implements IDrawable {
         }
     }
 
-    private void updateListOfIncidents() {
-        var allEntities = World.getInstance().getAllEntities();
-        incidents = allEntities.stream().filter(Incident.class::isInstance).map(Incident.class::cast).collect(Collectors.toList());
+    public void scheduleShiftChanges() {
+        endOfCurrentShift = World.getInstance().getSimulationTime() + durationOfTheShift;
+        EventScheduler.getInstance().schedule(endOfCurrentShift, new ShiftChange());
     }
 
-    private void checkIfTheShiftIsOver() {
+    private void startNewShift() {
         var world = World.getInstance();
-        if (world.getSimulationTime() > endOfCurrentShift) {
-            for (int i = 0; i < world.getConfig().getNumberOfPolicePatrols(); i++) {
-                var newPatrol = new Patrol(this.getPosition());
-                newPatrol.setState(Patrol.State.PATROLLING);
-                world.addEntity(newPatrol);
-            }
-            endOfCurrentShift += durationOfTheShift;
-            Logger.getInstance().logNewOtherMessage("New shift has started");
+        var newPatrols = new ArrayList<Patrol>();
+        for (int i = 0; i < world.getConfig().getNumberOfPolicePatrols(); i++) {
+            var newPatrol = new Patrol(this.getPosition());
+            newPatrol.setState(Patrol.State.PATROLLING);
+            newPatrols.add(newPatrol);
+        }
+        world.addEntities(newPatrols);
+        endOfCurrentShift += durationOfTheShift;
+        EventScheduler.getInstance().schedule(endOfCurrentShift, new ShiftChange());
+        Logger.getInstance().logNewOtherMessage("New shift has started");
+    }
+
+    // scheduled start of the next shift, a separate class so that it can be saved in a checkpoint
+    public class ShiftChange implements EventScheduler.Thunk {
+
+        public Headquarters getHeadquarters() {
+            return Headquarters.this;
+        }
+
+        @Override
+        public void apply() {
+            startNewShift();
         }
     }
 }
@@ -1,9 +1,16 @@
 package entities;
 
+import simulation.DeferredEffects;
+
 public interface IAgent {
     void updateStateSelf() throws IllegalStateException;
 
     void performAction() throws IllegalStateException;
 
     void takeOrder(Patrol.Action action);
+
+    DeferredEffects getDeferredEffects();
+
+    // simulation time until which the agent does nothing, unless it is woken up (Double.POSITIVE_INFINITY - until it is woken up)
+    double getNextWakeUpTime();
 }
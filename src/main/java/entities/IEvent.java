@@ -4,4 +4,7 @@ public interface IEvent {
     void updateState();
 
     boolean isActive();
+
+    // simulation time until which the incident does not change, unless it is woken up (Double.POSITIVE_INFINITY - until it is woken up)
+    double getNextWakeUpTime();
 }
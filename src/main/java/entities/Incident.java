@@ -1,10 +1,13 @@
 package entities;
 
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
 import world.World;
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.viewer.GeoPosition;
 
 import java.awt.*;
+import java.io.IOException;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Rectangle2D;
 
@@ -25,6 +28,21 @@ public abstract class Incident extends Entity implements IEvent, IDrawable {
         timeOfLastUpdate = startTime;
     }
 
+    protected Incident(CheckpointInput in) throws IOException {
+        super(in);
+        startTime = in.readLong();
+        timeOfLastUpdate = in.readDouble();
+        isActive = in.readBoolean();
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(startTime);
+        out.writeDouble(timeOfLastUpdate);
+        out.writeBoolean(isActive);
+    }
+
     public long getStartTime() {
         return startTime;
     }
@@ -39,6 +57,15 @@ public abstract class Incident extends Entity implements IEvent, IDrawable {
 
     public void setActive(boolean active) {
         isActive = active;
+        World.getInstance().getIncidentActivity().wakeUp(this);
+    }
+
+    // district of the node at which the incident has happened
+    public abstract District getDistrict();
+
+    @Override
+    public double getNextWakeUpTime() {
+        return isActive ? Double.POSITIVE_INFINITY : World.getInstance().getSimulationTime();
     }
 
     @Override
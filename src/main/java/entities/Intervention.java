@@ -3,21 +3,28 @@ package entities;
 import entities.factories.IncidentFactory;
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.viewer.GeoPosition;
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
+import simulation.RandomStreams;
+import simulation.SimulationRandom;
 import world.World;
 
 import java.awt.*;
+import java.io.IOException;
 
 public class Intervention extends Incident implements IDrawable {
 
     private final long duration;
     private final boolean willChangeIntoFiring;
     private final long timeToChange;
+    private final SimulationRandom random;
     private District district;
 
     private Patrol patrolSolving;
 
     public Intervention(double latitude, double longitude) {
         super(latitude, longitude);
+        this.random = RandomStreams.getInstance().createEntityStream(RandomStreams.Stream.INCIDENT_PROPERTIES);
 
         // the default intervention duration is the middle of the values entered by the user in the configuration
         var config = World.getInstance().getConfig();
@@ -28,6 +35,7 @@ public class Intervention extends Incident implements IDrawable {
 
     public Intervention(double latitude, double longitude, long duration, District district) {
         super(latitude, longitude);
+        this.random = RandomStreams.getInstance().createEntityStream(RandomStreams.Stream.INCIDENT_PROPERTIES);
         this.duration = duration;
         this.district = district;
 
@@ -37,6 +45,7 @@ public class Intervention extends Incident implements IDrawable {
 
     public Intervention(double latitude, double longitude, long duration, boolean willChangeIntoFiring, long timeToChange, District district) {
         super(latitude, longitude);
+        this.random = RandomStreams.getInstance().createEntityStream(RandomStreams.Stream.INCIDENT_PROPERTIES);
         this.duration = duration;
         this.willChangeIntoFiring = willChangeIntoFiring;
         this.district = district;
@@ -46,6 +55,31 @@ public class Intervention extends Incident implements IDrawable {
         this.timeToChange = timeToChange;
     }
 
+    public Intervention(CheckpointInput in) throws IOException {
+        super(in);
+        this.duration = in.readLong();
+        this.willChangeIntoFiring = in.readBoolean();
+        this.timeToChange = in.readLong();
+        this.random = in.readRandom();
+        this.district = in.readDistrict();
+        in.readEntityReference(patrol -> this.patrolSolving = (Patrol) patrol);
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeLong(duration);
+        out.writeBoolean(willChangeIntoFiring);
+        out.writeLong(timeToChange);
+        out.writeRandom(random);
+        out.writeDistrict(district);
+        out.writeEntityReference(patrolSolving);
+    }
+
+    public SimulationRandom getRandom() {
+        return random;
+    }
+
     @Override
     public void updateState() {
         super.updateState();
@@ -59,10 +93,28 @@ public class Intervention extends Incident implements IDrawable {
             } else if (patrolSolving.getAction() instanceof Patrol.IncidentParticipation && patrolSolving.getAction().getStartTime() + this.getDuration() < World.getInstance().getSimulationTime()) {
                 setActive(false);
                 World.getInstance().removeEntity(this);
+                World.getInstance().getAgentActivity().wakeUp(patrolSolving);
             }
         }
     }
 
+    @Override
+    public double getNextWakeUpTime() {
+        if (!isActive()) {
+            return super.getNextWakeUpTime();
+        }
+        if (patrolSolving == null) {
+            // until a patrol is assigned
+            return Double.POSITIVE_INFINITY;
+        }
+        var patrolAction = patrolSolving.getAction();
+        if (patrolAction instanceof Patrol.IncidentParticipation) {
+            return patrolAction.getStartTime() + (willChangeIntoFiring ? timeToChange : duration);
+        }
+        // until the patrol changes its action, unless it has been sent somewhere else
+        return patrolAction != null && patrolAction.getTarget() == this ? Double.POSITIVE_INFINITY : World.getInstance().getSimulationTime();
+    }
+
     @Override
     public void drawSelf(Graphics2D g, JXMapViewer mapViewer) {
         super.drawSelf(g, mapViewer);
@@ -88,12 +140,14 @@ public class Intervention extends Incident implements IDrawable {
 
     public void setPatrolSolving(Patrol patrolSolving) {
         this.patrolSolving = patrolSolving;
+        World.getInstance().getIncidentActivity().wakeUp(this);
     }
 
     public long getDuration() {
         return duration;
     }
 
+    @Override
     public District getDistrict() {
         return district;
     }
@@ -0,0 +1,145 @@
+package entities;
+
+import de.westnordost.osmapi.map.data.Node;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.interfaces.AStarAdmissibleHeuristic;
+import osm_to_graph.ImportedEdge;
+import utils.Haversine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+/**
+ * A* heuristic from landmarks (ALT). The distances from and to a few landmarks are calculated once, and by the triangle
+ * inequality the distance from v to t is at least d(L, t) - d(L, v) and d(v, L) - d(t, L) for every landmark L. The estimate
+ * is the largest of these bounds and of the distance in a straight line, so it is never weaker than Haversine.OwnHeuristics,
+ * and it stays consistent, as each of the bounds is. The landmarks are the nodes farthest from the center of the city
+ * in equal sectors around it, and the searches from and to them run in parallel.
+ */
+public class LandmarkHeuristic implements AStarAdmissibleHeuristic<Node> {
+
+    private final java.util.Map<Node, Integer> indices = new HashMap<>();
+    // distances from every landmark to every node and from every node to every landmark, infinite if there is no path
+    private final double[][] distancesFrom;
+    private final double[][] distancesTo;
+
+    public LandmarkHeuristic(Graph<Node, ImportedEdge> graph, int numberOfLandmarks) {
+        var nodes = graph.vertexSet().toArray(new Node[0]);
+        for (int i = 0; i < nodes.length; i++) {
+            indices.put(nodes[i], i);
+        }
+
+        // edges out of and into every node, in consecutive ranges of the arrays
+        var outOffsets = new int[nodes.length + 1];
+        var inOffsets = new int[nodes.length + 1];
+        for (var edge : graph.edgeSet()) {
+            outOffsets[indices.get(graph.getEdgeSource(edge)) + 1]++;
+            inOffsets[indices.get(graph.getEdgeTarget(edge)) + 1]++;
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            outOffsets[i + 1] += outOffsets[i];
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        var targets = new int[outOffsets[nodes.length]];
+        var outWeights = new double[targets.length];
+        var sources = new int[inOffsets[nodes.length]];
+        var inWeights = new double[sources.length];
+        var outFilled = Arrays.copyOf(outOffsets, nodes.length);
+        var inFilled = Arrays.copyOf(inOffsets, nodes.length);
+        for (var edge : graph.edgeSet()) {
+            int source = indices.get(graph.getEdgeSource(edge));
+            int target = indices.get(graph.getEdgeTarget(edge));
+            var weight = graph.getEdgeWeight(edge);
+            targets[outFilled[source]] = target;
+            outWeights[outFilled[source]++] = weight;
+            sources[inFilled[target]] = source;
+            inWeights[inFilled[target]++] = weight;
+        }
+
+        var landmarks = selectLandmarks(nodes, outOffsets, inOffsets, numberOfLandmarks);
+        distancesFrom = new double[landmarks.length][];
+        distancesTo = new double[landmarks.length][];
+        IntStream.range(0, 2 * landmarks.length).parallel().forEach(i -> {
+            if (i < landmarks.length) {
+                distancesFrom[i] = findDistances(landmarks[i], outOffsets, targets, outWeights);
+            } else {
+                distancesTo[i - landmarks.length] = findDistances(landmarks[i - landmarks.length], inOffsets, sources, inWeights);
+            }
+        });
+    }
+
+    // the node farthest from the center in each of the sectors around it, skipping the nodes without edges
+    private static int[] selectLandmarks(Node[] nodes, int[] outOffsets, int[] inOffsets, int numberOfLandmarks) {
+        var centerLatitude = 0.0;
+        var centerLongitude = 0.0;
+        for (var node : nodes) {
+            centerLatitude += node.getPosition().getLatitude() / nodes.length;
+            centerLongitude += node.getPosition().getLongitude() / nodes.length;
+        }
+        var landmarks = new int[numberOfLandmarks];
+        var distances = new double[numberOfLandmarks];
+        Arrays.fill(landmarks, -1);
+        for (int i = 0; i < nodes.length; i++) {
+            if (outOffsets[i] == outOffsets[i + 1] && inOffsets[i] == inOffsets[i + 1]) {
+                continue;
+            }
+            var latitude = nodes[i].getPosition().getLatitude();
+            var longitude = nodes[i].getPosition().getLongitude();
+            var angle = Math.atan2(latitude - centerLatitude, (longitude - centerLongitude) * Math.cos(Math.toRadians(centerLatitude)));
+            var sector = Math.min((int) ((angle + Math.PI) / (2 * Math.PI) * numberOfLandmarks), numberOfLandmarks - 1);
+            var distance = Haversine.distance(centerLatitude, centerLongitude, latitude, longitude);
+            if (landmarks[sector] == -1 || distance > distances[sector]) {
+                landmarks[sector] = i;
+                distances[sector] = distance;
+            }
+        }
+        return Arrays.stream(landmarks).filter(landmark -> landmark != -1).toArray();
+    }
+
+    // Dijkstra's algorithm over the given edges of all nodes
+    private static double[] findDistances(int source, int[] offsets, int[] ends, double[] weights) {
+        var distances = new double[offsets.length - 1];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0;
+        var heap = new NodeHeap(distances);
+        heap.push(source);
+        while (!heap.isEmpty()) {
+            var node = heap.poll();
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                var distance = distances[node] + weights[i];
+                if (distance < distances[ends[i]]) {
+                    distances[ends[i]] = distance;
+                    heap.push(ends[i]);
+                }
+            }
+        }
+        return distances;
+    }
+
+    public int getNumberOfLandmarks() {
+        return distancesFrom.length;
+    }
+
+    @Override
+    public double getCostEstimate(Node sourceVertex, Node targetVertex) {
+        var estimate = Haversine.distance(sourceVertex.getPosition().getLatitude(), sourceVertex.getPosition().getLongitude(),
+                targetVertex.getPosition().getLatitude(), targetVertex.getPosition().getLongitude());
+        var source = indices.get(sourceVertex);
+        var target = indices.get(targetVertex);
+        if (source == null || target == null) {
+            return estimate;
+        }
+        for (int i = 0; i < distancesFrom.length; i++) {
+            var from = distancesFrom[i];
+            if (from[source] != Double.POSITIVE_INFINITY && from[target] != Double.POSITIVE_INFINITY) {
+                estimate = Math.max(estimate, from[target] - from[source]);
+            }
+            var to = distancesTo[i];
+            if (to[source] != Double.POSITIVE_INFINITY && to[target] != Double.POSITIVE_INFINITY) {
+                estimate = Math.max(estimate, to[source] - to[target]);
+            }
+        }
+        return estimate;
+    }
+}
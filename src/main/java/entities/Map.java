@@ -2,42 +2,111 @@ package entities;
 
 import osm_to_graph.ImportedEdge;
 import de.westnordost.osmapi.map.data.BoundingBox;
-import de.westnordost.osmapi.map.data.LatLon;
 import de.westnordost.osmapi.map.data.Node;
-import de.westnordost.osmapi.map.data.OsmLatLon;
 import org.jgrapht.Graph;
 import org.jgrapht.GraphPath;
 import org.jgrapht.alg.shortestpath.AStarShortestPath;
 import utils.Haversine;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 public class Map {
 
+    public static final int NO_DISTRICT = DistrictLookup.NO_DISTRICT;
     private final Graph<Node, ImportedEdge> graph;
     private final java.util.Map<Long, Node> myNodes;
+    // nodes in the order of myNodes, so that random ones are drawn without copying them
+    private final List<Node> nodeList;
+    // nodes of nodeList by their positions, shared by the copies of the map
+    private final NodeKdTree nodeTree;
     private final BoundingBox boundingBox;
     private final List<District> districts;
+    // shared by the copies of the map, as they have the same districts in the same order
+    private final DistrictLookup districtLookup;
+    // index of the district of every node in 'districts', nodes outside of all districts are left out
+    private final java.util.Map<Node, Integer> nodeDistricts;
     private final AStarShortestPath<Node, ImportedEdge> pathCalculator;
+    // prepared on the first query and shared by the copies of the map, as they have the same graph
+    private final ContractionHierarchy contractionHierarchy;
+    // landmark heuristics by the number of landmarks, calculated on first use and shared by the copies of the map
+    private final java.util.Map<Integer, LandmarkHeuristic> landmarkHeuristics;
 
     public Map(Graph<Node, ImportedEdge> graph, java.util.Map<Long, Node> myNodes, BoundingBox boundingBox, List<District> districts) {
         this.graph = graph;
         this.myNodes = myNodes;
+        this.nodeList = new ArrayList<>(myNodes.values());
+        this.nodeTree = new NodeKdTree(nodeList);
         this.boundingBox = boundingBox;
         this.districts = districts;
+        this.districtLookup = new DistrictLookup(districts);
+        this.nodeDistricts = new IdentityHashMap<>();
         this.pathCalculator = new AStarShortestPath<>(graph, new Haversine.OwnHeuristics());
+        this.contractionHierarchy = new ContractionHierarchy(graph);
+        this.landmarkHeuristics = new ConcurrentHashMap<>();
         assignNodesToDistricts();
     }
 
+    private Map(Map map, List<District> districts) {
+        this.graph = map.graph;
+        this.myNodes = map.myNodes;
+        this.nodeList = map.nodeList;
+        this.nodeTree = map.nodeTree;
+        this.boundingBox = map.boundingBox;
+        this.districts = districts;
+        this.districtLookup = map.districtLookup;
+        this.nodeDistricts = map.nodeDistricts;
+        this.pathCalculator = new AStarShortestPath<>(graph, new Haversine.OwnHeuristics());
+        this.contractionHierarchy = map.contractionHierarchy;
+        this.landmarkHeuristics = map.landmarkHeuristics;
+    }
+
+    // copy for another simulation, sharing the read-only graph and nodes, but not the districts, whose threat levels change
+    public Map copyWithOwnDistricts() {
+        var copiedDistricts = new ArrayList<District>();
+        for (var district : districts) {
+            copiedDistricts.add(new District(district));
+        }
+        return new Map(this, copiedDistricts);
+    }
+
     public AStarShortestPath<Node, ImportedEdge> getPathCalculator() {
         return new AStarShortestPath<>(graph, new Haversine.OwnHeuristics());
     }
 
+    // A* guided by the given number of landmarks, or by the distance in a straight line only if it is 0
+    public AStarShortestPath<Node, ImportedEdge> getPathCalculator(int numberOfLandmarks) {
+        if (numberOfLandmarks == 0) {
+            return getPathCalculator();
+        }
+        return new AStarShortestPath<>(graph, getLandmarkHeuristic(numberOfLandmarks));
+    }
+
+    public LandmarkHeuristic getLandmarkHeuristic(int numberOfLandmarks) {
+        return landmarkHeuristics.computeIfAbsent(numberOfLandmarks, k -> new LandmarkHeuristic(graph, k));
+    }
+
+    public ContractionHierarchy getContractionHierarchy() {
+        return contractionHierarchy;
+    }
+
     public java.util.Map<Long, Node> getMyNodes() {
         return myNodes;
     }
 
+    public int getNumberOfNodes() {
+        return nodeList.size();
+    }
+
+    // nodes are numbered in the order of getMyNodes
+    public Node getNode(int index) {
+        return nodeList.get(index);
+    }
+
     public Graph<Node, ImportedEdge> getGraph() {
         return graph;
     }
@@ -51,37 +120,53 @@ public class Map {
     }
 
     public void assignNodesToDistricts() {
-        for (java.util.Map.Entry<Long, Node> me : myNodes.entrySet()) {
-            for (var d : districts) {
-                if (d.contains(me.getValue().getPosition())) {
-                    d.addNodeToDistrict(me.getValue());
-                    break;
-                }
+        for (var node : nodeList) {
+            var index = districtLookup.indexOf(node.getPosition().getLatitude(), node.getPosition().getLongitude());
+            if (index != DistrictLookup.NO_DISTRICT) {
+                districts.get(index).addNodeToDistrict(node);
+                nodeDistricts.put(node, index);
             }
         }
     }
 
+    // district containing the point (the first one, if the districts overlap), null if there is none
+    public District getDistrict(double latitude, double longitude) {
+        var index = districtLookup.indexOf(latitude, longitude);
+        return index != DistrictLookup.NO_DISTRICT ? districts.get(index) : null;
+    }
+
+    // index of the district containing the point in getDistricts(), NO_DISTRICT if there is none
+    public int getDistrictIndex(double latitude, double longitude) {
+        return districtLookup.indexOf(latitude, longitude);
+    }
+
+    // district of the node, found when the map was created, null if the node is outside of all districts
+    public District getDistrict(Node node) {
+        var index = nodeDistricts.get(node);
+        return index != null ? districts.get(index) : null;
+    }
+
     // patrols use nodeList to navigate the route
     public List<Node> getPathNodeList(double sourceLatitude, double sourceLongitude, double targetLatitude, double targetLongitude) {
-        Node nearSourceNode = findNearestNode(new OsmLatLon(sourceLatitude, sourceLongitude), null);
-        Node nearTargetNode1 = findNearestNode(new OsmLatLon(targetLatitude, targetLongitude), null);
+        Node nearSourceNode = getNearestNode(sourceLatitude, sourceLongitude, null);
+        Node nearTargetNode1 = getNearestNode(targetLatitude, targetLongitude, null);
         GraphPath<Node, ImportedEdge> path = pathCalculator.getPath(nearSourceNode, nearTargetNode1);
 
         // the case where the route between nodes does not exist
         if (path == null) {
-            List<Node> forbiddenNodes = new ArrayList<>();
+            var forbiddenNodes = new HashSet<Node>();
             while (path == null) {
                 forbiddenNodes.add(nearSourceNode);
                 forbiddenNodes.add(nearTargetNode1);
-                nearSourceNode = findNearestNode(new OsmLatLon(sourceLatitude, sourceLongitude), forbiddenNodes);
-                nearTargetNode1 = findNearestNode(new OsmLatLon(targetLatitude, targetLongitude), forbiddenNodes);
+                nearSourceNode = getNearestNode(sourceLatitude, sourceLongitude, forbiddenNodes::contains);
+                nearTargetNode1 = getNearestNode(targetLatitude, targetLongitude, forbiddenNodes::contains);
 
                 // calculation of the route between two points in the case where initially there is no route between them, the simulation stops working smoothly
                 while (nearSourceNode == null || nearSourceNode.equals(nearTargetNode1)) {
                     forbiddenNodes.add(nearSourceNode);
                     forbiddenNodes.add(nearTargetNode1);
-                    nearSourceNode = findNearestNode(new OsmLatLon(sourceLatitude, sourceLongitude), forbiddenNodes);
-                    nearTargetNode1 = findNearestNode(new OsmLatLon(targetLatitude, targetLongitude), forbiddenNodes);
+                    nearSourceNode = getNearestNode(sourceLatitude, sourceLongitude, forbiddenNodes::contains);
+                    nearTargetNode1 = getNearestNode(targetLatitude, targetLongitude, forbiddenNodes::contains);
                 }
                 path = pathCalculator.getPath(nearSourceNode, nearTargetNode1);
             }
@@ -89,21 +174,14 @@ public class Map {
         return path.getVertexList();
     }
 
-    private Node findNearestNode(LatLon point, List<Node> forbiddenNodes) {
-        return getNearestNode(point, forbiddenNodes, myNodes);
+    // nearest node to the point (the first one in the order of getMyNodes, if there are several), skipping the nodes accepted
+    // by 'excluded' (null - none are skipped), null if all nodes are skipped
+    public Node getNearestNode(double latitude, double longitude, Predicate<Node> excluded) {
+        return nodeTree.getNearest(latitude, longitude, excluded);
     }
 
-    public static Node getNearestNode(LatLon point, List<Node> forbiddenNodes, java.util.Map<Long, Node> myNodes) {
-        var distance = Double.MAX_VALUE;
-        Node nearestNode = null;
-        for (java.util.Map.Entry<Long, Node> me : myNodes.entrySet()) {
-            LatLon nodePosition = me.getValue().getPosition();
-            var tmpDistance = Haversine.distance(point.getLatitude(), point.getLongitude(), nodePosition.getLatitude(), nodePosition.getLongitude());
-            if (tmpDistance < distance && !forbiddenNodes.contains(me.getValue())) {
-                distance = tmpDistance;
-                nearestNode = me.getValue();
-            }
-        }
-        return nearestNode;
+    // up to 'k' nearest nodes to the point, the closest first, skipping the nodes accepted by 'excluded' (null - none are skipped)
+    public List<Node> getNearestNodes(double latitude, double longitude, int k, Predicate<Node> excluded) {
+        return nodeTree.getNearest(latitude, longitude, k, excluded);
     }
 }
@@ -0,0 +1,102 @@
+package entities;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of node numbers ordered by their distances, kept in an array shared with the search, and by the numbers,
+ * so that the order does not depend on the order of insertions. A node is moved up when its distance decreases.
+ */
+class NodeHeap {
+
+    private final double[] keys;
+    private final int[] heap;
+    private final int[] positions;
+    private int size = 0;
+
+    NodeHeap(double[] keys) {
+        this.keys = keys;
+        this.heap = new int[keys.length];
+        this.positions = new int[keys.length];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    int poll() {
+        var first = heap[0];
+        positions[first] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return first;
+    }
+
+    // adds the node, or moves it up after its key has decreased
+    void push(int node) {
+        var position = positions[node];
+        if (position == -1) {
+            position = size++;
+            heap[position] = node;
+            positions[node] = position;
+        }
+        siftUp(position);
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        var node = heap[position];
+        while (position > 0) {
+            var parentPosition = (position - 1) / 2;
+            var parent = heap[parentPosition];
+            if (!isLess(node, parent)) {
+                break;
+            }
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private void siftDown(int position) {
+        var node = heap[position];
+        while (true) {
+            var childPosition = 2 * position + 1;
+            if (childPosition >= size) {
+                break;
+            }
+            if (childPosition + 1 < size && isLess(heap[childPosition + 1], heap[childPosition])) {
+                childPosition++;
+            }
+            var child = heap[childPosition];
+            if (!isLess(child, node)) {
+                break;
+            }
+            heap[position] = child;
+            positions[child] = position;
+            position = childPosition;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private boolean isLess(int first, int second) {
+        return keys[first] < keys[second] || (keys[first] == keys[second] && first < second);
+    }
+}
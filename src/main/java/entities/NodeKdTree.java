@@ -0,0 +1,208 @@
+package entities;
+
+import de.westnordost.osmapi.map.data.Node;
+import utils.Haversine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Static KD-tree over the nodes of the map, finding the nearest ones to a point in logarithmic time instead of a scan
+ * of all of them. The nodes are kept as points on the unit sphere, where the straight-line distance to a splitting plane
+ * bounds the distance along the surface from below, so whole subtrees are skipped; the nodes which are not skipped are
+ * compared by Haversine.distance, as the scan did. Nodes at the same distance are taken in the order of the list.
+ */
+class NodeKdTree {
+
+    private static final double EARTH_RADIUS = 6371000;
+    private static final int LEAF_SIZE = 8;
+    // the lower bounds are lowered by the margin, so that rounding never skips a node at the same distance
+    private static final double BOUNDS_MARGIN = 1.000001;
+    private final List<Node> nodes;
+    // coordinates of every node on the unit sphere (x, y, z), indexed as the list
+    private final double[][] coordinates;
+    // indices of the nodes in the order of the tree, the middle of every range splits it along 'axes' of that position
+    private final int[] order;
+    private final byte[] axes;
+
+    NodeKdTree(List<Node> nodes) {
+        this.nodes = nodes;
+        coordinates = new double[3][nodes.size()];
+        order = new int[nodes.size()];
+        axes = new byte[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            var latitude = Math.toRadians(nodes.get(i).getPosition().getLatitude());
+            var longitude = Math.toRadians(nodes.get(i).getPosition().getLongitude());
+            coordinates[0][i] = Math.cos(latitude) * Math.cos(longitude);
+            coordinates[1][i] = Math.cos(latitude) * Math.sin(longitude);
+            coordinates[2][i] = Math.sin(latitude);
+            order[i] = i;
+        }
+        build(0, order.length);
+    }
+
+    private void build(int from, int to) {
+        if (to - from <= LEAF_SIZE) {
+            return;
+        }
+        // split along the axis in which the nodes are spread the most
+        var axis = 0;
+        var maxSpread = -1.0;
+        for (int i = 0; i < 3; i++) {
+            var min = Double.POSITIVE_INFINITY;
+            var max = Double.NEGATIVE_INFINITY;
+            for (int j = from; j < to; j++) {
+                min = Math.min(min, coordinates[i][order[j]]);
+                max = Math.max(max, coordinates[i][order[j]]);
+            }
+            if (max - min > maxSpread) {
+                maxSpread = max - min;
+                axis = i;
+            }
+        }
+        var middle = (from + to) >>> 1;
+        select(from, to - 1, middle, coordinates[axis]);
+        axes[middle] = (byte) axis;
+        build(from, middle);
+        build(middle + 1, to);
+    }
+
+    // puts the node which would be at 'nth' in the sorted range there, with the ones not greater before it and not less after it
+    private void select(int from, int to, int nth, double[] values) {
+        while (from < to) {
+            var pivot = values[order[(from + to) >>> 1]];
+            var i = from;
+            var j = to;
+            while (i <= j) {
+                while (values[order[i]] < pivot) {
+                    i++;
+                }
+                while (values[order[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    var swapped = order[i];
+                    order[i++] = order[j];
+                    order[j--] = swapped;
+                }
+            }
+            if (nth <= j) {
+                to = j;
+            } else if (nth >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // nearest node not excluded by the predicate, null if all of them are
+    Node getNearest(double latitude, double longitude, Predicate<Node> excluded) {
+        var nearest = getNearest(latitude, longitude, 1, excluded);
+        return nearest.isEmpty() ? null : nearest.get(0);
+    }
+
+    // up to 'k' nearest nodes not excluded by the predicate, the closest first
+    List<Node> getNearest(double latitude, double longitude, int k, Predicate<Node> excluded) {
+        var query = new Query(latitude, longitude, k, excluded);
+        if (k > 0) {
+            query.search(0, order.length);
+        }
+        var sorted = new ArrayList<>(query.nearest);
+        sorted.sort(Comparator.naturalOrder());
+        var result = new ArrayList<Node>(sorted.size());
+        for (var candidate : sorted) {
+            result.add(nodes.get(candidate.index));
+        }
+        return result;
+    }
+
+    private class Query {
+
+        private final double latitude;
+        private final double longitude;
+        private final double[] point = new double[3];
+        private final int k;
+        private final Predicate<Node> excluded;
+        // the farthest of the nearest nodes found so far on top
+        private final PriorityQueue<Candidate> nearest = new PriorityQueue<>(Comparator.reverseOrder());
+
+        private Query(double latitude, double longitude, int k, Predicate<Node> excluded) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            point[0] = Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(longitude));
+            point[1] = Math.cos(Math.toRadians(latitude)) * Math.sin(Math.toRadians(longitude));
+            point[2] = Math.sin(Math.toRadians(latitude));
+            this.k = k;
+            this.excluded = excluded;
+        }
+
+        private void search(int from, int to) {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    consider(order[i]);
+                }
+                return;
+            }
+            var middle = (from + to) >>> 1;
+            consider(order[middle]);
+            var axis = axes[middle];
+            var difference = point[axis] - coordinates[axis][order[middle]];
+            if (difference < 0) {
+                search(from, middle);
+                if (isWorthSearching(-difference)) {
+                    search(middle + 1, to);
+                }
+            } else {
+                search(middle + 1, to);
+                if (isWorthSearching(difference)) {
+                    search(from, middle);
+                }
+            }
+        }
+
+        // whether a node whose straight-line distance on the unit sphere is at least 'chord' may be among the nearest
+        private boolean isWorthSearching(double chord) {
+            if (nearest.size() < k) {
+                return true;
+            }
+            var distance = 2 * EARTH_RADIUS * Math.asin(Math.min(1, chord / 2)) / BOUNDS_MARGIN;
+            return distance <= nearest.peek().distance;
+        }
+
+        private void consider(int index) {
+            var node = nodes.get(index);
+            if (excluded != null && excluded.test(node)) {
+                return;
+            }
+            var distance = Haversine.distance(latitude, longitude, node.getPosition().getLatitude(), node.getPosition().getLongitude());
+            var candidate = new Candidate(index, distance);
+            if (nearest.size() < k) {
+                nearest.add(candidate);
+            } else if (candidate.compareTo(nearest.peek()) < 0) {
+                nearest.poll();
+                nearest.add(candidate);
+            }
+        }
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+
+        private final int index;
+        private final double distance;
+
+        private Candidate(int index, double distance) {
+            this.index = index;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            var result = Double.compare(distance, other.distance);
+            return result != 0 ? result : Integer.compare(index, other.index);
+        }
+    }
+}
@@ -4,38 +4,63 @@ import de.westnordost.osmapi.map.data.LatLon;
 import de.westnordost.osmapi.map.data.Node;
 import org.jxmapviewer.JXMapViewer;
 import org.jxmapviewer.viewer.GeoPosition;
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
+import simulation.DeferredEffects;
+import simulation.PathCalculationExecutor;
 import simulation.PathCalculator;
+import simulation.RandomStreams;
+import simulation.SimulationRandom;
 import utils.Haversine;
 import utils.Logger;
+import world.PatrolStore;
 import world.World;
 
 import java.awt.*;
-import java.awt.geom.Ellipse2D;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
 import java.util.List;
-import java.util.concurrent.ThreadLocalRandom;
 
 public class Patrol extends Entity implements IAgent, IDrawable {
 
+    private static final byte NO_ACTION = 0;
+    private static final byte TRANSFER = 1;
+    private static final byte INCIDENT_PARTICIPATION = 2;
+    // colors of the states on the map, created once instead of every time a patrol is painted
+    private static final Color PATROLLING_COLOR = new Color(0, 153, 0); // green
+    private static final Color RETURNING_TO_HQ_COLOR = new Color(0, 100, 0); // dark green
+    private static final Color TRANSFER_TO_INTERVENTION_COLOR = new Color(255, 87, 36); // yellowish
+    private static final Color TRANSFER_TO_FIRING_COLOR = new Color(255, 131, 54); // orangeish
+    private static final Color INTERVENTION_COLOR = new Color(0, 92, 230); // blue
+    private static final Color FIRING_COLOR = new Color(153, 0, 204); // purple
+    private static final Color NEUTRALIZED_COLOR = new Color(255, 255, 255); // white
+    private static final Color CALCULATING_PATH_COLOR = new Color(255, 123, 255); // pink
     private final double durationOfTheShift;
     private final double basePatrollingSpeed;
     private final double baseTransferSpeed;
     private final double basePrivilegedSpeed;
     private final double shiftEndTime;
     private final double timeBetweenDrawNeutralization;
+    private final SimulationRandom random;
+    private final DeferredEffects deferredEffects = new DeferredEffects();
     private double timeOfLastMove;
     private State state;
     private State previousState;
     private Action action;
     private double timeOfLastDrawNeutralization;
+    // slot of the store of the world which keeps the position and the state of the patrol, null if they are kept in the patrol;
+    // the store and the index are published together, as the position is also read by other threads (e.g. the GUI painter)
+    private volatile StoreSlot storeSlot;
 
     public Patrol() {
+        this.random = RandomStreams.getInstance().createEntityStream(RandomStreams.Stream.PATROLS);
         this.basePatrollingSpeed = World.getInstance().getConfig().getBasePatrollingSpeed();
         this.baseTransferSpeed = World.getInstance().getConfig().getBaseTransferSpeed();
         this.basePrivilegedSpeed = World.getInstance().getConfig().getBasePrivilegedSpeed();
         this.timeOfLastMove = World.getInstance().getSimulationTime();
         this.durationOfTheShift = World.getInstance().getDurationOfTheShift();
         this.shiftEndTime = World.getInstance().getSimulationTime() + durationOfTheShift;
-        this.timeBetweenDrawNeutralization = ThreadLocalRandom.current().nextInt(1000) + 3000.0;
+        this.timeBetweenDrawNeutralization = random.nextInt(1000) + 3000.0;
         this.timeOfLastDrawNeutralization = World.getInstance().getSimulationTime();
     }
 
@@ -50,6 +75,7 @@ public class Patrol extends Entity implements IAgent, IDrawable {
     }
 
     public Patrol(double x, double y, double baseTransferSpeed, double basePatrollingSpeed, double basePrivilegedSpeed) {
+        this.random = RandomStreams.getInstance().createEntityStream(RandomStreams.Stream.PATROLS);
         this.setLatitude(x);
         this.setLongitude(y);
         this.basePatrollingSpeed = basePatrollingSpeed;
@@ -58,10 +84,82 @@ public class Patrol extends Entity implements IAgent, IDrawable {
         this.timeOfLastMove = World.getInstance().getSimulationTime();
         this.durationOfTheShift = World.getInstance().getDurationOfTheShift();
         this.shiftEndTime = World.getInstance().getSimulationTime() + durationOfTheShift;
-        this.timeBetweenDrawNeutralization = ThreadLocalRandom.current().nextInt(1000) + 3000.0;
+        this.timeBetweenDrawNeutralization = random.nextInt(1000) + 3000.0;
         this.timeOfLastDrawNeutralization = World.getInstance().getSimulationTime();
     }
 
+    public Patrol(CheckpointInput in) throws IOException {
+        super(in);
+        this.durationOfTheShift = in.readDouble();
+        this.basePatrollingSpeed = in.readDouble();
+        this.baseTransferSpeed = in.readDouble();
+        this.basePrivilegedSpeed = in.readDouble();
+        this.shiftEndTime = in.readDouble();
+        this.timeBetweenDrawNeutralization = in.readDouble();
+        this.random = in.readRandom();
+        this.timeOfLastMove = in.readDouble();
+        this.timeOfLastDrawNeutralization = in.readDouble();
+        this.state = in.readEnum(State.class);
+        this.previousState = in.readEnum(State.class);
+        readActionCheckpoint(in);
+    }
+
+    private void readActionCheckpoint(CheckpointInput in) throws IOException {
+        var actionType = in.readByte();
+        if (actionType == NO_ACTION) {
+            return;
+        }
+        var startTime = in.readLong();
+        if (actionType == TRANSFER) {
+            var transfer = new Transfer(startTime, in.readNodeList());
+            in.readEntityReference(target -> transfer.target = target);
+            // the calculation of the path was interrupted, so it is started again
+            if (transfer.pathNodeList == null) {
+                in.runAfterRestore(() -> transfer.calculatePath(previousState));
+            }
+            action = transfer;
+        } else if (actionType == INCIDENT_PARTICIPATION) {
+            var incidentParticipation = new IncidentParticipation(startTime, null);
+            in.readEntityReference(target -> incidentParticipation.target = target);
+            action = incidentParticipation;
+        } else {
+            throw new IOException("Unknown type of action: " + actionType);
+        }
+    }
+
+    @Override
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        super.writeCheckpoint(out);
+        out.writeDouble(durationOfTheShift);
+        out.writeDouble(basePatrollingSpeed);
+        out.writeDouble(baseTransferSpeed);
+        out.writeDouble(basePrivilegedSpeed);
+        out.writeDouble(shiftEndTime);
+        out.writeDouble(timeBetweenDrawNeutralization);
+        out.writeRandom(random);
+        out.writeDouble(timeOfLastMove);
+        out.writeDouble(timeOfLastDrawNeutralization);
+        out.writeEnum(state);
+        out.writeEnum(previousState);
+
+        // the action is read once, as the path may be set by another thread in the meantime
+        var currentAction = action;
+        if (currentAction instanceof Transfer) {
+            out.writeByte(TRANSFER);
+            out.writeLong(currentAction.startTime);
+            out.writeNodeList(((Transfer) currentAction).getPathNodeList());
+            out.writeEntityReference(currentAction.target);
+        } else if (currentAction instanceof IncidentParticipation) {
+            out.writeByte(INCIDENT_PARTICIPATION);
+            out.writeLong(currentAction.startTime);
+            out.writeEntityReference(currentAction.target);
+        } else if (currentAction == null) {
+            out.writeByte(NO_ACTION);
+        } else {
+            throw new IllegalStateException("Action " + currentAction.getClass().getSimpleName() + " cannot be saved in a checkpoint");
+        }
+    }
+
     public void updateStateSelf() {
         if (state == State.PATROLLING) {
             updateStateIfPatrolling();
@@ -84,13 +182,13 @@ public class Patrol extends Entity implements IAgent, IDrawable {
         String currentStateToLog = "PATROLLING";
         if (isShiftOver()) {
             setState(State.RETURNING_TO_HQ);
-            var hq = World.getInstance().getAllEntities().stream().filter(Headquarters.class::isInstance).findFirst().orElse(null);
+            var hq = World.getInstance().getHeadquarters().getFirst();
             setAction(new Transfer(World.getInstance().getSimulationTimeLong(), hq, this.state));
         } else if (action == null) {
             drawNewTarget(currentStateToLog);
         } else if (action instanceof Transfer) {
             // if pathNodeList is empty, it draws a new patrol target
-            if (((Transfer) action).pathNodeList != null && ((Transfer) action).pathNodeList.isEmpty()) {
+            if (((Transfer) action).pathNodeList != null && ((Transfer) action).isPathFinished()) {
                 drawNewTarget(currentStateToLog);
             }
         } else {
@@ -101,9 +199,9 @@ public class Patrol extends Entity implements IAgent, IDrawable {
     private void updateStateIfTransferToIntervention() {
         // if patrol has reached his destination, patrol changes state to INTERVENTION
         if (action instanceof Transfer) {
-            if (((Transfer) action).pathNodeList.isEmpty()) {
+            if (((Transfer) action).isPathFinished()) {
                 setState(State.INTERVENTION);
-                action = new IncidentParticipation(World.getInstance().getSimulationTimeLong(), (Incident) action.target);
+                setAction(new IncidentParticipation(World.getInstance().getSimulationTimeLong(), (Incident) action.target));
             }
         } else {
             throw new IllegalTransferStateException();
@@ -113,7 +211,7 @@ public class Patrol extends Entity implements IAgent, IDrawable {
     private void updateStateIfIntervention() {
         if (action.target instanceof Firing) {
             setState(State.FIRING);
-            action = new IncidentParticipation(World.getInstance().getSimulationTimeLong(), (Incident) action.target);
+            setAction(new IncidentParticipation(World.getInstance().getSimulationTimeLong(), (Incident) action.target));
         }
         // if the duration of the intervention is over, patrol changes state to PATROLLING
         else if (action instanceof IncidentParticipation) {
@@ -121,7 +219,8 @@ public class Patrol extends Entity implements IAgent, IDrawable {
                 setState(State.PATROLLING);
                 drawNewTarget(null);
             } else if (!(((Intervention) (action).target).isActive())) {
-                World.getInstance().removeEntity((action.target));
+                var intervention = action.target;
+                deferredEffects.run(() -> World.getInstance().removeEntity(intervention));
                 setState(State.PATROLLING);
                 drawNewTarget(null);
             }
@@ -133,11 +232,14 @@ public class Patrol extends Entity implements IAgent, IDrawable {
     private void updateStateIfTransferToFiring() {
         // if patrol has reached his destination, patrol changes state to FIRING
         if (action instanceof Transfer) {
-            if (((Transfer) action).pathNodeList != null && ((Transfer) action).pathNodeList.isEmpty()) {
+            if (((Transfer) action).pathNodeList != null && ((Transfer) action).isPathFinished()) {
                 setState(State.FIRING);
-                ((Firing) action.target).removeReachingPatrol(this);
-                ((Firing) action.target).addSolvingPatrol(this);
-                action = new IncidentParticipation(World.getInstance().getSimulationTimeLong(), (Incident) action.target);
+                var firing = (Firing) action.target;
+                deferredEffects.run(() -> {
+                    firing.removeReachingPatrol(this);
+                    firing.addSolvingPatrol(this);
+                });
+                setAction(new IncidentParticipation(World.getInstance().getSimulationTimeLong(), (Incident) action.target));
             }
         } else {
             throw new IllegalTransferStateException();
@@ -151,8 +253,9 @@ public class Patrol extends Entity implements IAgent, IDrawable {
                 setState(State.PATROLLING);
                 drawNewTarget(null);
             } else if (World.getInstance().getSimulationTime() > timeOfLastDrawNeutralization + timeBetweenDrawNeutralization) {
-                if (ThreadLocalRandom.current().nextDouble() < 0.001) {
-                    ((Firing) this.action.target).removeSolvingPatrol(this);
+                if (random.nextDouble() < 0.001) {
+                    var firing = (Firing) this.action.target;
+                    deferredEffects.run(() -> firing.removeSolvingPatrol(this));
                     setState(State.NEUTRALIZED);
                 }
                 timeOfLastDrawNeutralization = World.getInstance().getSimulationTime();
@@ -170,20 +273,19 @@ public class Patrol extends Entity implements IAgent, IDrawable {
 
     private void updateStateIfReturningToHQ() {
         if (action == null) {
-            World.getInstance().getAllEntities()
-                    .stream()
-                    .filter(Headquarters.class::isInstance)
-                    .findFirst()
-                    .ifPresent(hq -> action = new Transfer(World.getInstance().getSimulationTimeLong(), hq, this.state));
+            var hq = World.getInstance().getHeadquarters().getFirst();
+            if (hq != null) {
+                setAction(new Transfer(World.getInstance().getSimulationTimeLong(), hq, this.state));
+            }
         } else if (!(action instanceof Transfer)) {
             throw new IllegalTransferStateException();
         }
     }
 
     private void drawNewTarget(String previousState) {
-        var world = World.getInstance();
-        var node = (Node) world.getMap().getMyNodes().values().toArray()[ThreadLocalRandom.current().nextInt(world.getMap().getMyNodes().size())];
-        this.action = new Transfer(World.getInstance().getSimulationTimeLong(), new Point(node.getPosition().getLatitude(), node.getPosition().getLongitude()), this.state);
+        var map = World.getInstance().getMap();
+        var node = map.getNode(random.nextInt(map.getNumberOfNodes()));
+        setAction(new Transfer(World.getInstance().getSimulationTimeLong(), new Point(node.getPosition().getLatitude(), node.getPosition().getLongitude()), this.state));
         if (previousState != null) {
             logChangingState(previousState, this.state.toString());
         }
@@ -199,9 +301,11 @@ public class Patrol extends Entity implements IAgent, IDrawable {
                 break;
             case RETURNING_TO_HQ:
                 if (action instanceof Transfer && ((Transfer) this.action).pathNodeList != null) {
-                    if (((Transfer) action).pathNodeList.isEmpty()) {
-                        World.getInstance().removeEntity(this);
-                        Logger.getInstance().logNewOtherMessage(this + " removed itself after ending shift and coming back to HQ");
+                    if (((Transfer) action).isPathFinished()) {
+                        deferredEffects.run(() -> {
+                            World.getInstance().removeEntity(this);
+                            Logger.getInstance().logNewOtherMessage(this + " removed itself after ending shift and coming back to HQ");
+                        });
 
                     } else {
                         move(simulationTime);
@@ -222,58 +326,76 @@ public class Patrol extends Entity implements IAgent, IDrawable {
 
     private void move(double simulationTime) {
         // speed changed from km/h to m/s
-        double traveledDistance = getSpeed() * 1000 / 3600 * Math.abs(simulationTime - timeOfLastMove);
+        // a patrol which has been waiting (and skipped by the tick engine) moves as if it had been updated in the previous tick
+        var timeSinceLastMove = Math.min(Math.abs(simulationTime - timeOfLastMove), World.getInstance().getConfig().getSimulationTimeStep());
+        double traveledDistance = getSpeed() * 1000 / 3600 * timeSinceLastMove;
         if (action instanceof Transfer) {
+            var transfer = (Transfer) action;
+            // the position is read and written once, as it may be kept in the patrol store
+            var latitude = getLatitude();
+            var longitude = getLongitude();
 
-            double distanceToNearestNode = getDistanceToNearestNode();
+            double distanceToNearestNode = transfer.getDistanceToNextNode(latitude, longitude);
             while (distanceToNearestNode < traveledDistance) {
-                if (((Transfer) action).pathNodeList.size() == 1) break;
+                if (transfer.getNumberOfNodesLeft() == 1) break;
 
                 traveledDistance -= distanceToNearestNode;
-                Node removedNode = ((Transfer) action).pathNodeList.remove(0);
-                setPosition(removedNode.getPosition());
-                distanceToNearestNode = getDistanceToNearestNode();
+                LatLon passedNodePosition = transfer.passNextNode().getPosition();
+                latitude = passedNodePosition.getLatitude();
+                longitude = passedNodePosition.getLongitude();
+                distanceToNearestNode = transfer.getDistanceToNextNode(latitude, longitude);
             }
-            LatLon nearestNodePosition = ((Transfer) action).pathNodeList.get(0).getPosition();
+            LatLon nearestNodePosition = transfer.getNextNode().getPosition();
             if (distanceToNearestNode > traveledDistance) {
                 double distanceFactor = traveledDistance / distanceToNearestNode;
-                setLatitude((getLatitude() + (nearestNodePosition.getLatitude() - getLatitude()) * distanceFactor));
-                setLongitude((getLongitude() + (nearestNodePosition.getLongitude() - getLongitude()) * distanceFactor));
+                latitude = latitude + (nearestNodePosition.getLatitude() - latitude) * distanceFactor;
+                longitude = longitude + (nearestNodePosition.getLongitude() - longitude) * distanceFactor;
             } else {
-                setPosition(nearestNodePosition);
-                ((Transfer) action).pathNodeList.remove(0);
+                latitude = nearestNodePosition.getLatitude();
+                longitude = nearestNodePosition.getLongitude();
+                transfer.passNextNode();
             }
+            setLatitude(latitude);
+            setLongitude(longitude);
         } else {
             throw new IllegalTransferStateException();
         }
     }
 
     private void logChangingState(String previousState, String currentState) {
-        Logger.getInstance().logNewMessageChangingState(this, previousState, currentState);
+        // the action is taken now, as the patrol may get a new one before the message is written
+        var currentAction = action;
+        deferredEffects.run(() -> Logger.getInstance().logNewMessageChangingState(this, currentAction, previousState, currentState));
     }
 
     @Override
     public void takeOrder(Action action) {
-        this.action = action;
+        setAction(action);
     }
 
-    private double getDistanceToNearestNode() {
-        if (((Transfer) action).pathNodeList.isEmpty()) throw new IllegalStateException("pathNodeList is empty!");
+    // the patrol goes back to patrolling, and if the path of the order is still being calculated, it is not waited for
+    public void revokeOrder() {
+        setState(State.PATROLLING);
+        if (action instanceof Transfer && ((Transfer) action).cancelPathCalculation()) {
+            setAction(null);
+        }
+    }
 
-        LatLon sourceNodePosition = ((Transfer) action).pathNodeList.get(0).getPosition();
-        return Haversine.distance(getLatitude(), getLongitude(), sourceNodePosition.getLatitude(), sourceNodePosition.getLongitude());
+    @Override
+    public DeferredEffects getDeferredEffects() {
+        return deferredEffects;
     }
 
     public double getSpeed() {
         switch (state) {
             case PATROLLING, RETURNING_TO_HQ:
-                return basePatrollingSpeed - (ThreadLocalRandom.current().nextBoolean() ? ThreadLocalRandom.current().nextDouble(basePatrollingSpeed * 10 / 100) : 0);
+                return basePatrollingSpeed - (random.nextBoolean() ? random.nextDouble(basePatrollingSpeed * 10 / 100) : 0);
             case TRANSFER_TO_INTERVENTION:
                 return baseTransferSpeed;
             case TRANSFER_TO_FIRING:
-                return basePrivilegedSpeed + (ThreadLocalRandom.current().nextBoolean() ? ThreadLocalRandom.current().nextDouble(basePrivilegedSpeed * 10 / 100) : 0);
+                return basePrivilegedSpeed + (random.nextBoolean() ? random.nextDouble(basePrivilegedSpeed * 10 / 100) : 0);
             default:
-                Logger.getInstance().logNewOtherMessage("The patrol is currently not moving");
+                deferredEffects.run(() -> Logger.getInstance().logNewOtherMessage("The patrol is currently not moving"));
                 return basePatrollingSpeed;
         }
     }
@@ -288,16 +410,133 @@ public class Patrol extends Entity implements IAgent, IDrawable {
 
     public void setState(State state) {
         var previousStateToLog = this.state;
-        this.state = state;
+        changeState(state);
+        World.getInstance().getAgentActivity().wakeUp(this);
         logChangingState(previousStateToLog != null ? previousStateToLog.toString() : " ", this.state.toString());
     }
 
+    private void changeState(State state) {
+        this.state = state;
+        var slot = storeSlot;
+        if (slot != null) {
+            slot.store.setState(slot.index, state);
+        }
+        // the index is shared, so it is updated with the other effects of the patrol (the patrol may be planning its step in parallel)
+        deferredEffects.run(() -> World.getInstance().updatePatrolState(this));
+    }
+
+    @Override
+    public double getLatitude() {
+        while (true) {
+            var slot = storeSlot;
+            if (slot == null) {
+                return super.getLatitude();
+            }
+            var latitude = slot.store.getLatitude(slot.index);
+            // the slot may have been given to another patrol in the meantime, then the position is read again
+            VarHandle.acquireFence();
+            if (storeSlot == slot) {
+                return latitude;
+            }
+        }
+    }
+
+    @Override
+    public void setLatitude(double latitude) {
+        var slot = storeSlot;
+        if (slot != null) {
+            slot.store.setLatitude(slot.index, latitude);
+        } else {
+            super.setLatitude(latitude);
+        }
+    }
+
+    @Override
+    public double getLongitude() {
+        while (true) {
+            var slot = storeSlot;
+            if (slot == null) {
+                return super.getLongitude();
+            }
+            var longitude = slot.store.getLongitude(slot.index);
+            VarHandle.acquireFence();
+            if (storeSlot == slot) {
+                return longitude;
+            }
+        }
+    }
+
+    @Override
+    public void setLongitude(double longitude) {
+        var slot = storeSlot;
+        if (slot != null) {
+            slot.store.setLongitude(slot.index, longitude);
+        } else {
+            super.setLongitude(longitude);
+        }
+    }
+
+    /**
+     * Called by the patrol store (on the simulation thread) when the patrol gets a slot in it, moves to another one, or leaves it
+     * (null, -1). A leaving patrol takes its position back before it stops reading the slot, so other threads never see it missing.
+     */
+    public void setStoreSlot(PatrolStore store, int slot) {
+        var previousSlot = storeSlot;
+        if (store == null) {
+            if (previousSlot != null) {
+                super.setLatitude(previousSlot.store.getLatitude(previousSlot.index));
+                super.setLongitude(previousSlot.store.getLongitude(previousSlot.index));
+            }
+            storeSlot = null;
+        } else {
+            storeSlot = new StoreSlot(store, slot);
+        }
+    }
+
+    public int getStoreSlot() {
+        var slot = storeSlot;
+        return slot != null ? slot.index : -1;
+    }
+
+    public boolean isInStore(PatrolStore store) {
+        var slot = storeSlot;
+        return store != null && slot != null && slot.store == store;
+    }
+
     public Action getAction() {
         return action;
     }
 
     public void setAction(Action action) {
+        var previousAction = this.action;
         this.action = action;
+        // the incidents watch the actions of their patrols
+        wakeUpIfIncident(previousAction != null ? previousAction.target : null);
+        wakeUpIfIncident(action != null ? action.target : null);
+        World.getInstance().getAgentActivity().wakeUp(this);
+    }
+
+    private void wakeUpIfIncident(Entity entity) {
+        if (entity instanceof Incident) {
+            World.getInstance().getIncidentActivity().wakeUp((Incident) entity);
+        }
+    }
+
+    @Override
+    public double getNextWakeUpTime() {
+        var simulationTime = World.getInstance().getSimulationTime();
+        switch (state) {
+            case INTERVENTION, NEUTRALIZED:
+                // until the intervention ends or changes into a firing
+                return Double.POSITIVE_INFINITY;
+            case FIRING:
+                // until the next neutralization draw, or until the firing ends
+                return timeOfLastDrawNeutralization + timeBetweenDrawNeutralization;
+            case CALCULATING_PATH:
+                return action instanceof Transfer && ((Transfer) action).pathNodeList == null ? Double.POSITIVE_INFINITY : simulationTime;
+            default:
+                return simulationTime;
+        }
     }
 
     public double getTimeSinceLastActive() {
@@ -309,14 +548,14 @@ public class Patrol extends Entity implements IAgent, IDrawable {
         var oldColor = g.getColor();
 
         switch (this.state) {
-            case PATROLLING -> g.setColor(new Color(0, 153, 0)); // green
-            case RETURNING_TO_HQ -> g.setColor(new Color(0, 100, 0)); // dark green
-            case TRANSFER_TO_INTERVENTION -> g.setColor(new Color(255, 87, 36)); // yellowish
-            case TRANSFER_TO_FIRING -> g.setColor(new Color(255, 131, 54)); // orangeish
-            case INTERVENTION -> g.setColor(new Color(0, 92, 230)); // blue
-            case FIRING -> g.setColor(new Color(153, 0, 204)); // purple
-            case NEUTRALIZED -> g.setColor(new Color(255, 255, 255)); // white
-            case CALCULATING_PATH -> g.setColor(new Color(255, 123, 255)); // pink
+            case PATROLLING -> g.setColor(PATROLLING_COLOR);
+            case RETURNING_TO_HQ -> g.setColor(RETURNING_TO_HQ_COLOR);
+            case TRANSFER_TO_INTERVENTION -> g.setColor(TRANSFER_TO_INTERVENTION_COLOR);
+            case TRANSFER_TO_FIRING -> g.setColor(TRANSFER_TO_FIRING_COLOR);
+            case INTERVENTION -> g.setColor(INTERVENTION_COLOR);
+            case FIRING -> g.setColor(FIRING_COLOR);
+            case NEUTRALIZED -> g.setColor(NEUTRALIZED_COLOR);
+            case CALCULATING_PATH -> g.setColor(CALCULATING_PATH_COLOR);
             default -> {
                 g.setColor(Color.BLACK); // black
                 throw new IllegalStateException("the patrol has no State");
@@ -326,8 +565,7 @@ public class Patrol extends Entity implements IAgent, IDrawable {
         final var size = 10;
         var point = mapViewer.convertGeoPositionToPoint(new GeoPosition(getLatitude(), getLongitude()));
 
-        var mark = new Ellipse2D.Double((int) (point.getX() - size / 2.0), (int) (point.getY() - size / 2.0), size, size);
-        g.fill(mark);
+        g.fillOval((int) (point.getX() - size / 2.0), (int) (point.getY() - size / 2.0), size, size);
         g.setColor(oldColor);
     }
 
@@ -342,6 +580,17 @@ public class Patrol extends Entity implements IAgent, IDrawable {
         RETURNING_TO_HQ
     }
 
+    private static class StoreSlot {
+
+        private final PatrolStore store;
+        private final int index;
+
+        private StoreSlot(PatrolStore store, int index) {
+            this.store = store;
+            this.index = index;
+        }
+    }
+
     private static class IllegalTransferStateException extends IllegalStateException {
         public IllegalTransferStateException() {
             super("Action should be 'Transfer' and it is not");
@@ -349,18 +598,18 @@ public class Patrol extends Entity implements IAgent, IDrawable {
     }
 
     public class Action {
-        protected Long startTime;
+        protected long startTime;
         protected Entity target;
 
-        public Action(Long startTime) {
+        public Action(long startTime) {
             this.startTime = startTime;
         }
 
-        public Long getStartTime() {
+        public long getStartTime() {
             return startTime;
         }
 
-        public void setStartTime(Long startTime) {
+        public void setStartTime(long startTime) {
             this.startTime = startTime;
         }
 
@@ -370,35 +619,89 @@ public class Patrol extends Entity implements IAgent, IDrawable {
 
         public void setTarget(Entity target) {
             this.target = target;
+            World.getInstance().getAgentActivity().wakeUp(Patrol.this);
         }
     }
 
     public class Transfer extends Action {
-        private java.util.List<Node> pathNodeList;
-
-        public Transfer(Long startTime, Entity target, State nextState) {
+        // handed over by the thread calculating the path
+        private volatile java.util.List<Node> pathNodeList;
+        // calculation of the path on the path calculation executor, null if it has been calculated on the simulation thread
+        private PathCalculator pathCalculator;
+        // nodes before it have been passed, the path itself is not changed
+        private int nextNodeIndex = 0;
+
+        public Transfer(long startTime, Entity target, State nextState) {
             super(startTime);
             this.target = target;
-            new PathCalculator(Patrol.this, target).start();
+            calculatePath(nextState);
             Patrol.this.previousState = nextState;
             if (nextState == State.TRANSFER_TO_FIRING || nextState == State.TRANSFER_TO_INTERVENTION) {
-                Logger.getInstance().logNewMessageChangingState(Patrol.this, nextState.toString(), State.CALCULATING_PATH.toString());
+                logChangingState(nextState.toString(), State.CALCULATING_PATH.toString());
             }
-            Patrol.this.state = State.CALCULATING_PATH;
+            changeState(State.CALCULATING_PATH);
+        }
+
+        // transfer restored from a checkpoint, the state of the patrol is restored separately
+        private Transfer(long startTime, List<Node> pathNodeList) {
+            super(startTime);
+            this.pathNodeList = pathNodeList;
+        }
+
+        private void calculatePath(State nextState) {
+            var calculator = new PathCalculator(Patrol.this, target, this);
+            // with the virtual clock the path is calculated before the clock moves on, so it does not depend on the speed of the machine
+            if (World.getInstance().getConfig().isVirtualClock()) {
+                calculator.run();
+            } else {
+                pathCalculator = calculator;
+                PathCalculationExecutor.getInstance().submit(calculator, nextState);
+            }
+        }
+
+        // returns false if the path has already been calculated
+        private boolean cancelPathCalculation() {
+            return pathCalculator != null && pathCalculator.cancel();
         }
 
+        // nodes which are still to be passed, null if the path has not been calculated yet
         public List<Node> getPathNodeList() {
-            return pathNodeList;
+            var path = pathNodeList;
+            return path != null ? path.subList(nextNodeIndex, path.size()) : null;
+        }
+
+        private boolean isPathFinished() {
+            return nextNodeIndex == pathNodeList.size();
+        }
+
+        private int getNumberOfNodesLeft() {
+            return pathNodeList.size() - nextNodeIndex;
+        }
+
+        private Node getNextNode() {
+            return pathNodeList.get(nextNodeIndex);
+        }
+
+        private Node passNextNode() {
+            return pathNodeList.get(nextNodeIndex++);
+        }
+
+        private double getDistanceToNextNode(double latitude, double longitude) {
+            if (isPathFinished()) throw new IllegalStateException("pathNodeList is empty!");
+
+            LatLon nextNodePosition = getNextNode().getPosition();
+            return Haversine.distance(latitude, longitude, nextNodePosition.getLatitude(), nextNodePosition.getLongitude());
         }
 
         public void setPathNodeList(java.util.List<Node> pathNodeList) {
             this.pathNodeList = pathNodeList;
+            World.getInstance().getAgentActivity().wakeUp(Patrol.this);
         }
     }
 
     public class IncidentParticipation extends Action {
 
-        public IncidentParticipation(Long startTime, Incident incident) {
+        public IncidentParticipation(long startTime, Incident incident) {
             super(startTime);
             this.target = incident;
         }
@@ -1,8 +1,16 @@
 package entities;
 
+import simulation.CheckpointInput;
+
+import java.io.IOException;
+
 public class Point extends Entity {
 
     public Point(double latitude, double longitude) {
         super(latitude,longitude);
     }
+
+    public Point(CheckpointInput in) throws IOException {
+        super(in);
+    }
 }
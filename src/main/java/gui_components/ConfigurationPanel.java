@@ -33,6 +33,8 @@ public class ConfigurationPanel {
     private final HashMap<String, Integer> districtAdminLevelForAvailablePlaces = new HashMap<>();
     private final JTextField numberOfCityPatrolsTextField = new JTextField();
     private final JTextField timeRateTextField = new JTextField();
+    private final JTextField simulationTimeStepTextField = new JTextField();
+    private final JTextField randomSeedTextField = new JTextField();
     private final JTextField simulationDurationDaysTextField = new JTextField();
     private final JTextField simulationDurationHoursTextField = new JTextField();
     private final JTextField simulationDurationMinutesTextField = new JTextField();
@@ -41,6 +43,7 @@ public class ConfigurationPanel {
     private final JCheckBox drawFiringDetailsCheckBox = new JCheckBox();
     private final JCheckBox drawLegendCheckBox = new JCheckBox();
     private final JCheckBox drawInterventionDetailsCheckBox = new JCheckBox();
+    private final JCheckBox virtualClockCheckBox = new JCheckBox();
     private final JTextField threatLevelMaxIncidentsTextFieldSAFE = new JTextField();
     private final JTextField threatLevelMaxIncidentsTextFieldRATHERSAFE = new JTextField();
     private final JTextField threatLevelMaxIncidentsTextFieldNOTSAFE = new JTextField();
@@ -58,6 +61,7 @@ public class ConfigurationPanel {
     private final JCheckBox considerTimeOfDayCheckBox = new JCheckBox();
     private final JTextField nightStatisticMultiplier = new JTextField();
     private final JTextField periodOfTimeToExportDetails = new JTextField();
+    private final JTextField checkpointIntervalTextField = new JTextField();
     private final JFrame mainFrame = new JFrame("City Police Simulation");
     private JPanel districtConfigurationPanel;
     private JPanel simulationConfigurationPanel;
@@ -125,14 +129,18 @@ public class ConfigurationPanel {
     private void setDefaultValues() {
         var worldConfig = World.getInstance().getConfig();
         timeRateTextField.setText(Integer.toString(worldConfig.getTimeRate()));
+        simulationTimeStepTextField.setText(Double.toString(worldConfig.getSimulationTimeStep()));
+        randomSeedTextField.setText(Long.toString(worldConfig.getRandomSeed()));
         numberOfCityPatrolsTextField.setText(Integer.toString(worldConfig.getNumberOfPolicePatrols()));
         basicSearchDistanceTextField.setText(Double.toString(worldConfig.getBasicSearchDistance()));
         drawDistrictsBoundariesCheckBox.setSelected(worldConfig.isDrawDistrictsBorders());
         drawFiringDetailsCheckBox.setSelected(worldConfig.isDrawFiringDetails());
         drawLegendCheckBox.setSelected(worldConfig.isDrawLegend());
         drawInterventionDetailsCheckBox.setSelected(worldConfig.isDrawInterventionDetails());
+        virtualClockCheckBox.setSelected(worldConfig.isVirtualClock());
         considerTimeOfDayCheckBox.setSelected(worldConfig.getConsiderTimeOfDay());
         periodOfTimeToExportDetails.setText(Double.toString(worldConfig.getPeriodOfTimeToExportDetails()));
+        checkpointIntervalTextField.setText(Double.toString(worldConfig.getCheckpointInterval()));
         setDurationInputs(worldConfig.getSimulationDuration());
     }
 
@@ -220,6 +228,18 @@ public class ConfigurationPanel {
         timeRateTextField.setColumns(TEXT_INPUT_COLUMNS);
         simulationConfigurationPanel.add(timeRateTextField);
 
+        simulationConfigurationPanel.add(new JLabel("Simulation Time Step [seconds]"));
+        addRestrictionOfEnteringOnlyFloats(simulationTimeStepTextField);
+        simulationTimeStepTextField.setInputVerifier(new FloatInputVerifier());
+        simulationTimeStepTextField.setColumns(TEXT_INPUT_COLUMNS);
+        simulationConfigurationPanel.add(simulationTimeStepTextField);
+
+        simulationConfigurationPanel.add(new JLabel("Random Seed"));
+        addRestrictionOfEnteringOnlyIntegers(randomSeedTextField);
+        randomSeedTextField.setInputVerifier(new NonNegativeIntegerInputVerifier());
+        randomSeedTextField.setColumns(TEXT_INPUT_COLUMNS);
+        simulationConfigurationPanel.add(randomSeedTextField);
+
         simulationConfigurationPanel.add(new JLabel("Simulation Duration"));
         var simulationDurationPanel = new JPanel();
         simulationDurationPanel.add(new JLabel("Days:"));
@@ -280,6 +300,12 @@ public class ConfigurationPanel {
         drawInterventionDetailsPanel.add(drawInterventionDetailsCheckBox);
         simulationConfigurationPanel.add(drawInterventionDetailsPanel);
 
+        var virtualClockPanel = new JPanel();
+        virtualClockPanel.add(new JLabel("Run as fast as possible (virtual clock)"));
+        virtualClockCheckBox.setSelected(false);
+        virtualClockPanel.add(virtualClockCheckBox);
+        simulationConfigurationPanel.add(virtualClockPanel);
+
 //----------------------------------------------------
 
         var threatLevelToMaxIncidentsConfigurationPanel = new JPanel();
@@ -508,6 +534,15 @@ public class ConfigurationPanel {
         periodOfTimeToExportDetailsPanel.add(periodOfTimeToExportDetails);
         buttonsPanel.add(periodOfTimeToExportDetailsPanel);
 
+        var checkpointIntervalPanel = new JPanel();
+        checkpointIntervalPanel.setLayout(new BoxLayout(checkpointIntervalPanel, BoxLayout.Y_AXIS));
+        checkpointIntervalPanel.setBorder(new LineBorder(Color.BLACK, 1));
+        checkpointIntervalPanel.add(new JLabel("Set the period of time to save checkpoints"));
+        checkpointIntervalPanel.add(new JLabel(" [simulated minutes, 0 - no checkpoints]"));
+        addRestrictionOfEnteringOnlyFloats(checkpointIntervalTextField);
+        checkpointIntervalPanel.add(checkpointIntervalTextField);
+        buttonsPanel.add(checkpointIntervalPanel);
+
 //----------------------------------------------------
 
         // line separating the components
@@ -595,12 +630,16 @@ public class ConfigurationPanel {
         config.setNumberOfPolicePatrols(numberOfCityPatrolsTextField.getText().equals("") ? 1 : convertInputToInteger(numberOfCityPatrolsTextField, 1));
         config.setBasicSearchDistance(basicSearchDistanceTextField.getText().equals("") ? 1.0 : convertInputToDouble(basicSearchDistanceTextField, 1.0));
         config.setPeriodOfTimeToExportDetails(periodOfTimeToExportDetails.getText().equals("") ? 1.0 : convertInputToDouble(periodOfTimeToExportDetails, 1.0));
+        config.setCheckpointInterval(checkpointIntervalTextField.getText().equals("") ? 0 : Math.max(0, convertInputToDouble(checkpointIntervalTextField, 0.0)));
         config.setTimeRate(timeRateTextField.getText().equals("") ? 1 : convertInputToInteger(timeRateTextField, 1));
+        config.setSimulationTimeStep(simulationTimeStepTextField.getText().equals("") ? 10.0 : convertInputToDouble(simulationTimeStepTextField, 10.0));
+        config.setRandomSeed(randomSeedTextField.getText().equals("") ? 0 : convertInputToInteger(randomSeedTextField, 0));
         config.setSimulationDuration(getDurationFromInputs());
         config.setDrawDistrictsBorders(drawDistrictsBoundariesCheckBox.isSelected());
         config.setDrawFiringDetails(drawFiringDetailsCheckBox.isSelected());
         config.setDrawLegend(drawLegendCheckBox.isSelected());
         config.setDrawInterventionDetails(drawInterventionDetailsCheckBox.isSelected());
+        config.setVirtualClock(virtualClockCheckBox.isSelected());
 
         config.setMaxIncidentsForThreatLevel(District.ThreatLevelEnum.SAFE, threatLevelMaxIncidentsTextFieldSAFE.getText().equals("") ? 0 : convertInputToInteger(threatLevelMaxIncidentsTextFieldSAFE, 0));
         config.setMaxIncidentsForThreatLevel(District.ThreatLevelEnum.RATHER_SAFE, threatLevelMaxIncidentsTextFieldRATHERSAFE.getText().equals("") ? 0 : convertInputToInteger(threatLevelMaxIncidentsTextFieldRATHERSAFE, 0));
@@ -88,10 +88,20 @@ public class MapPanel {
 
                 // GUI Drawing thread
                 new Thread(() -> {
+                    var statistics = World.getInstance().getWorkerStatistics("GUI drawing thread");
                     while (!World.getInstance().hasSimulationDurationElapsed()) {
                         mapViewer.repaint();
                         try {
-                            Thread.sleep(1000 / 30);
+                            // the map is repainted once after pausing, then the thread waits until the simulation is resumed
+                            if (World.getInstance().isSimulationPaused()) {
+                                var pauseStart = System.nanoTime();
+                                World.getInstance().awaitSimulationResumed();
+                                statistics.addPausedTime(System.nanoTime() - pauseStart);
+                            } else {
+                                var idleStart = System.nanoTime();
+                                Thread.sleep(1000 / 30);
+                                statistics.addIdleTime(System.nanoTime() - idleStart);
+                            }
                         } catch (Exception exception) {
                             // Ignore
                             exception.printStackTrace();
@@ -2,16 +2,25 @@ package main;
 
 import gui_components.ConfigurationPanel;
 import gui_components.LoggerPanel;
+import simulation.SimulationThread;
 import utils.Logger;
 
+import java.io.File;
+
 public class Main {
 
     /**
      * Entry point of the application.
      *
-     * @param args params passed to the application.
+     * @param args params passed to the application, "--resume <checkpoint file>" continues a saved simulation without the GUI.
      */
     public static void main(String[] args) {
+        if (args.length == 2 && args[0].equals("--resume")) {
+            // nobody watches a simulation without the GUI, so it runs as fast as possible
+            new SimulationThread(new File(args[1]), config -> config.setVirtualClock(true)).run();
+            return;
+        }
+
         var panel = new ConfigurationPanel();
         panel.createWindow();
 
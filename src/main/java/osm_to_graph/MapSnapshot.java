@@ -0,0 +1,181 @@
+package osm_to_graph;
+
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmLatLon;
+import de.westnordost.osmapi.map.data.OsmNode;
+import entities.District;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Binary copy of an imported map (road graph, nodes and districts), so that a simulation can be resumed from a checkpoint
+ * without downloading and parsing the OSM data again. Nodes and edges are written in the order of iteration of the original
+ * collections, so the restored map gives the same random nodes and the same paths.
+ */
+public class MapSnapshot {
+
+    private static final int MAGIC = 0x4d415053;
+    private static final int VERSION = 1;
+    private static final byte END_OF_PATH = -1;
+
+    private MapSnapshot() {
+    }
+
+    public static void write(entities.Map map, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        var boundingBox = map.getBoundingBox();
+        out.writeDouble(boundingBox.getMinLatitude());
+        out.writeDouble(boundingBox.getMinLongitude());
+        out.writeDouble(boundingBox.getMaxLatitude());
+        out.writeDouble(boundingBox.getMaxLongitude());
+
+        var graph = map.getGraph();
+        out.writeInt(graph.vertexSet().size());
+        for (var node : graph.vertexSet()) {
+            out.writeLong(node.getId());
+            out.writeDouble(node.getPosition().getLatitude());
+            out.writeDouble(node.getPosition().getLongitude());
+        }
+        out.writeInt(graph.edgeSet().size());
+        for (var edge : graph.edgeSet()) {
+            out.writeLong(graph.getEdgeSource(edge).getId());
+            out.writeLong(graph.getEdgeTarget(edge).getId());
+            out.writeDouble(edge.getDistance());
+            out.writeDouble(graph.getEdgeWeight(edge));
+        }
+        out.writeInt(map.getMyNodes().size());
+        for (var nodeId : map.getMyNodes().keySet()) {
+            out.writeLong(nodeId);
+        }
+
+        var districts = map.getDistricts();
+        out.writeInt(districts.size());
+        for (var district : districts) {
+            out.writeLong(district.getId());
+            out.writeBoolean(district.getName() != null);
+            if (district.getName() != null) {
+                out.writeUTF(district.getName());
+            }
+            writePath(district.getBoundaries(), out);
+        }
+    }
+
+    public static entities.Map read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a map snapshot");
+        }
+        var version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of map snapshot: " + version);
+        }
+
+        var boundingBox = new BoundingBox(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+
+        Graph<Node, ImportedEdge> graph = new DefaultDirectedWeightedGraph<>(ImportedEdge.class);
+        var nodesById = new HashMap<Long, Node>();
+        var numberOfNodes = in.readInt();
+        for (int i = 0; i < numberOfNodes; i++) {
+            var id = in.readLong();
+            var latitude = in.readDouble();
+            var longitude = in.readDouble();
+            var node = new OsmNode(id, 1, new OsmLatLon(latitude, longitude), null);
+            graph.addVertex(node);
+            nodesById.put(id, node);
+        }
+        var numberOfEdges = in.readInt();
+        for (int i = 0; i < numberOfEdges; i++) {
+            var source = getNode(nodesById, in.readLong());
+            var target = getNode(nodesById, in.readLong());
+            var edge = new ImportedEdge(source.getId(), target.getId(), in.readDouble());
+            graph.addEdge(source, target, edge);
+            graph.setEdgeWeight(edge, in.readDouble());
+        }
+        // the order of myNodes decides which node is drawn as a random target, so it is kept
+        var myNodes = new LinkedHashMap<Long, Node>();
+        var numberOfMyNodes = in.readInt();
+        for (int i = 0; i < numberOfMyNodes; i++) {
+            var id = in.readLong();
+            myNodes.put(id, getNode(nodesById, id));
+        }
+
+        var districts = new ArrayList<District>();
+        var numberOfDistricts = in.readInt();
+        for (int i = 0; i < numberOfDistricts; i++) {
+            var id = in.readLong();
+            var name = in.readBoolean() ? in.readUTF() : null;
+            districts.add(new District(id, name, readPath(in)));
+        }
+        return new entities.Map(graph, myNodes, boundingBox, districts);
+    }
+
+    private static Node getNode(java.util.Map<Long, Node> nodesById, long id) throws IOException {
+        var node = nodesById.get(id);
+        if (node == null) {
+            throw new IOException("Node " + id + " does not exist in the map snapshot");
+        }
+        return node;
+    }
+
+    private static void writePath(Path2D path, DataOutputStream out) throws IOException {
+        var iterator = path.getPathIterator(null);
+        out.writeByte(iterator.getWindingRule());
+        var coordinates = new double[6];
+        while (!iterator.isDone()) {
+            var segmentType = iterator.currentSegment(coordinates);
+            out.writeByte(segmentType);
+            for (int i = 0; i < numberOfCoordinates(segmentType); i++) {
+                out.writeDouble(coordinates[i]);
+            }
+            iterator.next();
+        }
+        out.writeByte(END_OF_PATH);
+    }
+
+    private static Path2D readPath(DataInputStream in) throws IOException {
+        var path = new Path2D.Double(in.readByte());
+        var coordinates = new double[6];
+        byte segmentType;
+        while ((segmentType = in.readByte()) != END_OF_PATH) {
+            for (int i = 0; i < numberOfCoordinates(segmentType); i++) {
+                coordinates[i] = in.readDouble();
+            }
+            switch (segmentType) {
+                case PathIterator.SEG_MOVETO -> path.moveTo(coordinates[0], coordinates[1]);
+                case PathIterator.SEG_LINETO -> path.lineTo(coordinates[0], coordinates[1]);
+                case PathIterator.SEG_QUADTO -> path.quadTo(coordinates[0], coordinates[1], coordinates[2], coordinates[3]);
+                case PathIterator.SEG_CUBICTO -> path.curveTo(coordinates[0], coordinates[1], coordinates[2], coordinates[3], coordinates[4], coordinates[5]);
+                case PathIterator.SEG_CLOSE -> path.closePath();
+                default -> throw new IOException("Invalid segment of district boundaries: " + segmentType);
+            }
+        }
+        return path;
+    }
+
+    private static int numberOfCoordinates(int segmentType) throws IOException {
+        switch (segmentType) {
+            case PathIterator.SEG_MOVETO, PathIterator.SEG_LINETO:
+                return 2;
+            case PathIterator.SEG_QUADTO:
+                return 4;
+            case PathIterator.SEG_CUBICTO:
+                return 6;
+            case PathIterator.SEG_CLOSE:
+                return 0;
+            default:
+                throw new IOException("Invalid segment of district boundaries: " + segmentType);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of which of the registered objects (agents or incidents) need to be updated in the current tick.
+ * An object which knows that nothing will change until a given time is put to sleep until then, or until it is woken up
+ * by another object (e.g. when it gets a new order). Awake objects are returned in the order of registration,
+ * so the order of updates is the same as if all of them were updated.
+ */
+public class ActivityTracker<T> {
+
+    private final java.util.Map<T, Registration<T>> registrations = new HashMap<>();
+    private final TreeMap<Long, T> awake = new TreeMap<>();
+    private final PriorityQueue<WakeUp<T>> sleeping = new PriorityQueue<>();
+    private long sequenceNumber = 0;
+
+    public synchronized void register(T item) {
+        if (!registrations.containsKey(item)) {
+            var registration = new Registration<>(item, sequenceNumber++);
+            registrations.put(item, registration);
+            awake.put(registration.sequenceNumber, item);
+        }
+    }
+
+    public synchronized void unregister(T item) {
+        var registration = registrations.remove(item);
+        if (registration != null) {
+            awake.remove(registration.sequenceNumber);
+            // an entry left in the queue is skipped when it is polled
+            registration.isRegistered = false;
+        }
+    }
+
+    // objects due at 'time' are woken up, and all awake objects replace the contents of 'result' (a list reused in every tick)
+    public synchronized void collectAwake(double time, List<T> result) {
+        while (!sleeping.isEmpty() && sleeping.peek().wakeUpTime <= time) {
+            var registration = sleeping.poll().registration;
+            // entries of objects which have been woken up or unregistered in the meantime are outdated
+            if (registration.isRegistered && !registration.isAwake && registration.wakeUpTime <= time) {
+                setAwake(registration);
+            }
+        }
+        result.clear();
+        for (var item : awake.values()) {
+            registrations.get(item).wasWokenUp = false;
+            result.add(item);
+        }
+    }
+
+    /**
+     * Puts the object to sleep until 'wakeUpTime' (Double.POSITIVE_INFINITY - until it is woken up by another object).
+     * The object stays awake, if the time has already come or if it has been woken up since it was collected.
+     */
+    public synchronized void sleepUntil(T item, double wakeUpTime, double currentTime) {
+        var registration = registrations.get(item);
+        if (registration == null || !registration.isAwake || registration.wasWokenUp || wakeUpTime <= currentTime) {
+            return;
+        }
+        registration.isAwake = false;
+        registration.wakeUpTime = wakeUpTime;
+        awake.remove(registration.sequenceNumber);
+        if (wakeUpTime != Double.POSITIVE_INFINITY) {
+            sleeping.add(new WakeUp<>(registration, wakeUpTime));
+        }
+    }
+
+    public synchronized void wakeUp(T item) {
+        var registration = registrations.get(item);
+        if (registration == null) {
+            return;
+        }
+        if (registration.isAwake) {
+            registration.wasWokenUp = true;
+        } else {
+            setAwake(registration);
+        }
+    }
+
+    private void setAwake(Registration<T> registration) {
+        registration.isAwake = true;
+        registration.wasWokenUp = true;
+        registration.wakeUpTime = Double.NEGATIVE_INFINITY;
+        awake.put(registration.sequenceNumber, registration.item);
+    }
+
+    // all registered objects, in the order of registration
+    public synchronized List<T> getRegistered() {
+        var result = new ArrayList<Registration<T>>(registrations.values());
+        result.sort((a, b) -> Long.compare(a.sequenceNumber, b.sequenceNumber));
+        var items = new ArrayList<T>(result.size());
+        for (var registration : result) {
+            items.add(registration.item);
+        }
+        return items;
+    }
+
+    // Double.NEGATIVE_INFINITY - the object is awake
+    public synchronized double getWakeUpTime(T item) {
+        var registration = registrations.get(item);
+        if (registration == null) {
+            throw new IllegalArgumentException(item + " is not registered");
+        }
+        return registration.isAwake ? Double.NEGATIVE_INFINITY : registration.wakeUpTime;
+    }
+
+    // registers the object restored from a checkpoint, with the wake-up time returned by getWakeUpTime
+    public synchronized void registerSleeping(T item, double wakeUpTime) {
+        register(item);
+        sleepUntil(item, wakeUpTime, Double.NEGATIVE_INFINITY);
+    }
+
+    public synchronized int getNumberOfRegistered() {
+        return registrations.size();
+    }
+
+    public synchronized int getNumberOfAwake() {
+        return awake.size();
+    }
+
+    private static class Registration<T> {
+
+        private final T item;
+        private final long sequenceNumber;
+        private double wakeUpTime = Double.NEGATIVE_INFINITY;
+        private boolean isAwake = true;
+        private boolean isRegistered = true;
+        // set when the object is woken up while it is awake, so that it does not fall asleep with an outdated wake-up time
+        private boolean wasWokenUp = false;
+
+        private Registration(T item, long sequenceNumber) {
+            this.item = item;
+            this.sequenceNumber = sequenceNumber;
+        }
+    }
+
+    private static class WakeUp<T> implements Comparable<WakeUp<T>> {
+
+        private final Registration<T> registration;
+        private final double wakeUpTime;
+
+        private WakeUp(Registration<T> registration, double wakeUpTime) {
+            this.registration = registration;
+            this.wakeUpTime = wakeUpTime;
+        }
+
+        @Override
+        public int compareTo(WakeUp<T> other) {
+            var byTime = Double.compare(wakeUpTime, other.wakeUpTime);
+            return byTime != 0 ? byTime : Long.compare(registration.sequenceNumber, other.registration.sequenceNumber);
+        }
+    }
+}
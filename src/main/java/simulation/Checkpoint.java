@@ -0,0 +1,170 @@
+package simulation;
+
+import entities.District;
+import entities.Map;
+import osm_to_graph.MapSnapshot;
+import world.World;
+import world.WorldConfiguration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the whole state of a running simulation (configuration, entities with their actions and paths, timers of incidents,
+ * statistics, random number generators and scheduled events) and restores it, so that a simulation can be continued.
+ * The state is captured between ticks into memory, which is fast, and written to a file by another thread.
+ * The map is not a part of a checkpoint, it is saved once per run as a MapSnapshot, which a checkpoint refers to by name.
+ */
+public class Checkpoint {
+
+    private static final int MAGIC = 0x53494d43;
+    private static final int VERSION = 5;
+
+    private Checkpoint() {
+    }
+
+    // must be called by the simulation thread between ticks, 'mapFileName' - name of the map snapshot in the same directory, or null
+    public static byte[] capture(TickEngine tickEngine, String mapFileName) throws IOException {
+        var world = World.getInstance();
+        var bytes = new ByteArrayOutputStream();
+        var out = new CheckpointOutput(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeString(mapFileName);
+        out.writeInt(world.getMap().getMyNodes().size());
+        out.writeInt(world.getMap().getGraph().edgeSet().size());
+
+        world.getConfig().writeCheckpoint(out);
+        var districts = world.getDistricts();
+        out.writeInt(districts.size());
+        for (var district : districts) {
+            out.writeDistrict(district);
+            out.writeEnum(district.getThreatLevel());
+        }
+        tickEngine.writeCheckpoint(out);
+        world.writeCheckpoint(out);
+        StatisticsCounter.getInstance().writeCheckpoint(out);
+        RandomStreams.getInstance().writeCheckpoint(out);
+        EventScheduler.getInstance().writeCheckpoint(out);
+        out.writeEntities();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restores the simulation saved in the checkpoint file into the world of the current context, which has to be empty.
+     * The map is read from the snapshot the checkpoint refers to. 'customization' is applied to the restored configuration.
+     * Returns the tick engine which continues the simulation.
+     */
+    public static TickEngine restore(File file, Consumer<WorldConfiguration> customization) throws IOException {
+        var data = readFile(file);
+        return restore(data, readMap(file, data), customization);
+    }
+
+    // reads the map snapshot which the checkpoint 'data' read from 'file' refers to
+    static Map readMap(File file, byte[] data) throws IOException {
+        var mapFileName = readMapFileName(data);
+        if (mapFileName == null) {
+            throw new IOException("Checkpoint " + file + " does not refer to a map snapshot");
+        }
+        try (var in = openFile(new File(file.getParentFile(), mapFileName))) {
+            return MapSnapshot.read(in);
+        }
+    }
+
+    // restores a checkpoint captured in memory, 'map' has to be the map it was captured with
+    public static TickEngine restore(byte[] data, Map map, Consumer<WorldConfiguration> customization) throws IOException {
+        var world = World.getInstance();
+        var in = new CheckpointInput(new ByteArrayInputStream(data), map);
+        readHeader(in);
+        var numberOfNodes = in.readInt();
+        var numberOfEdges = in.readInt();
+        if (numberOfNodes != map.getMyNodes().size() || numberOfEdges != map.getGraph().edgeSet().size()) {
+            throw new IOException("Checkpoint has been captured with a different map");
+        }
+        world.setMap(map);
+
+        world.getConfig().readCheckpoint(in);
+        var numberOfDistricts = in.readInt();
+        for (int i = 0; i < numberOfDistricts; i++) {
+            var district = in.readDistrict();
+            district.setThreatLevel(in.readEnum(District.ThreatLevelEnum.class));
+        }
+        customization.accept(world.getConfig());
+
+        // the engine is created after the configuration has been restored, as it reads the time step and the export period
+        var tickEngine = new TickEngine();
+        tickEngine.readCheckpoint(in);
+        world.readCheckpoint(in);
+        StatisticsCounter.getInstance().readCheckpoint(in);
+        RandomStreams.getInstance().readCheckpoint(in);
+        EventScheduler.getInstance().readCheckpoint(in);
+        in.readEntities();
+        in.resolveReferences();
+        in.runAfterRestoreActions();
+        return tickEngine;
+    }
+
+    private static String readHeader(CheckpointInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a checkpoint of the simulation");
+        }
+        var version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of checkpoint: " + version);
+        }
+        return in.readString();
+    }
+
+    private static String readMapFileName(byte[] data) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a supported checkpoint of the simulation");
+        }
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeFile(File file, byte[] data) throws IOException {
+        writeFile(file, out -> out.write(data));
+    }
+
+    // the file is compressed and written under a temporary name first, so that a crash never leaves a damaged file behind
+    static void writeFile(File file, Contents contents) throws IOException {
+        var temporaryFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temporaryFile))))) {
+            contents.write(out);
+        }
+        try {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static DataInputStream openFile(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))));
+    }
+
+    static byte[] readFile(File file) throws IOException {
+        try (var in = openFile(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    interface Contents {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,184 @@
+package simulation;
+
+import de.westnordost.osmapi.map.data.Node;
+import entities.District;
+import entities.Entity;
+import entities.Firing;
+import entities.Headquarters;
+import entities.Intervention;
+import entities.Map;
+import entities.Patrol;
+import entities.Point;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Binary stream a checkpoint is read from. As the entities are stored at the end of the checkpoint, references to them
+ * are resolved only after all of them have been read - until then the reader gets a callback instead of the entity.
+ * Callbacks are run in the order in which the references were read.
+ */
+public class CheckpointInput {
+
+    private final DataInputStream in;
+    private final Map map;
+    private final java.util.Map<Long, District> districts = new HashMap<>();
+    private final List<Entity> entities = new ArrayList<>();
+    private final List<Reference> references = new ArrayList<>();
+    private final List<Runnable> afterRestoreActions = new ArrayList<>();
+
+    CheckpointInput(InputStream in, Map map) {
+        this.in = new DataInputStream(in);
+        this.map = map;
+        for (var district : map.getDistricts()) {
+            districts.put(district.getId(), district);
+        }
+    }
+
+    public byte readByte() throws IOException {
+        return in.readByte();
+    }
+
+    public boolean readBoolean() throws IOException {
+        return in.readBoolean();
+    }
+
+    public int readInt() throws IOException {
+        return in.readInt();
+    }
+
+    public long readLong() throws IOException {
+        return in.readLong();
+    }
+
+    public double readDouble() throws IOException {
+        return in.readDouble();
+    }
+
+    public String readString() throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    public <E extends Enum<E>> E readEnum(Class<E> type) throws IOException {
+        var ordinal = in.readInt();
+        if (ordinal == -1) {
+            return null;
+        }
+        var values = type.getEnumConstants();
+        if (ordinal < 0 || ordinal >= values.length) {
+            throw new IOException("Invalid value of " + type.getSimpleName() + ": " + ordinal);
+        }
+        return values[ordinal];
+    }
+
+    // 'setter' gets the entity (or null) when all entities have been read
+    public void readEntityReference(Consumer<Entity> setter) throws IOException {
+        references.add(new Reference(in.readInt(), setter));
+    }
+
+    public void readEntityReferences(Consumer<Entity> adder) throws IOException {
+        var size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            readEntityReference(adder);
+        }
+    }
+
+    public List<Node> readNodeList() throws IOException {
+        var size = in.readInt();
+        if (size == -1) {
+            return null;
+        }
+        var nodes = new ArrayList<Node>(size);
+        for (int i = 0; i < size; i++) {
+            var id = in.readLong();
+            var node = map.getMyNodes().get(id);
+            if (node == null) {
+                throw new IOException("Node " + id + " does not exist in the map");
+            }
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    public District readDistrict() throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        var id = in.readLong();
+        var district = districts.get(id);
+        if (district == null) {
+            throw new IOException("District " + id + " does not exist in the map");
+        }
+        return district;
+    }
+
+    public SimulationRandom readRandom() throws IOException {
+        var seed = in.readLong();
+        var gamma = in.readLong();
+        return new SimulationRandom(seed, gamma);
+    }
+
+    // 'action' is run when the whole simulation has been restored (e.g. to restart work which was in progress)
+    public void runAfterRestore(Runnable action) {
+        afterRestoreActions.add(action);
+    }
+
+    void readEntities() throws IOException {
+        var types = CheckpointOutput.EntityType.values();
+        byte type;
+        while ((type = in.readByte()) != CheckpointOutput.END_OF_ENTITIES) {
+            if (type < 0 || type >= types.length) {
+                throw new IOException("Invalid type of entity: " + type);
+            }
+            entities.add(createEntity(types[type]));
+        }
+    }
+
+    private Entity createEntity(CheckpointOutput.EntityType type) throws IOException {
+        switch (type) {
+            case HEADQUARTERS:
+                return new Headquarters(this);
+            case PATROL:
+                return new Patrol(this);
+            case INTERVENTION:
+                return new Intervention(this);
+            case FIRING:
+                return new Firing(this);
+            case POINT:
+                return new Point(this);
+            default:
+                throw new IOException("Unknown type of entity " + type);
+        }
+    }
+
+    void resolveReferences() throws IOException {
+        for (var reference : references) {
+            if (reference.number < -1 || reference.number >= entities.size()) {
+                throw new IOException("Invalid reference to entity " + reference.number);
+            }
+            reference.setter.accept(reference.number == -1 ? null : entities.get(reference.number));
+        }
+        references.clear();
+    }
+
+    void runAfterRestoreActions() {
+        afterRestoreActions.forEach(Runnable::run);
+        afterRestoreActions.clear();
+    }
+
+    private static class Reference {
+
+        private final int number;
+        private final Consumer<Entity> setter;
+
+        private Reference(int number, Consumer<Entity> setter) {
+            this.number = number;
+            this.setter = setter;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package simulation;
+
+import de.westnordost.osmapi.map.data.Node;
+import entities.District;
+import entities.Entity;
+import entities.Firing;
+import entities.Headquarters;
+import entities.Intervention;
+import entities.Patrol;
+import entities.Point;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Binary stream a checkpoint is written to. Entities are written by reference: the first reference to an entity gives it
+ * the next number, and the entities themselves are written at the end of the checkpoint, so every entity is saved once,
+ * even if it is referred to by other entities or is no longer in the world (e.g. a spawn which is still scheduled).
+ */
+public class CheckpointOutput {
+
+    static final byte END_OF_ENTITIES = -1;
+    private final DataOutputStream out;
+    private final java.util.Map<Entity, Integer> entityNumbers = new IdentityHashMap<>();
+    private final List<Entity> entities = new ArrayList<>();
+
+    CheckpointOutput(OutputStream out) {
+        this.out = new DataOutputStream(out);
+    }
+
+    public void writeByte(int value) throws IOException {
+        out.writeByte(value);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    public void writeLong(long value) throws IOException {
+        out.writeLong(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        out.writeDouble(value);
+    }
+
+    public void writeString(String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public void writeEnum(Enum<?> value) throws IOException {
+        out.writeInt(value == null ? -1 : value.ordinal());
+    }
+
+    public void writeEntityReference(Entity entity) throws IOException {
+        if (entity == null) {
+            out.writeInt(-1);
+            return;
+        }
+        var number = entityNumbers.get(entity);
+        if (number == null) {
+            number = entities.size();
+            entityNumbers.put(entity, number);
+            entities.add(entity);
+        }
+        out.writeInt(number);
+    }
+
+    public void writeEntityReferences(Collection<? extends Entity> entityList) throws IOException {
+        out.writeInt(entityList.size());
+        for (var entity : entityList) {
+            writeEntityReference(entity);
+        }
+    }
+
+    // nodes are written as their ids, the map itself is saved once in a separate snapshot
+    public void writeNodeList(List<Node> nodes) throws IOException {
+        if (nodes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(nodes.size());
+        for (var node : nodes) {
+            out.writeLong(node.getId());
+        }
+    }
+
+    public void writeDistrict(District district) throws IOException {
+        out.writeBoolean(district != null);
+        if (district != null) {
+            out.writeLong(district.getId());
+        }
+    }
+
+    public void writeRandom(SimulationRandom random) throws IOException {
+        out.writeLong(random.getSeed());
+        out.writeLong(random.getGamma());
+    }
+
+    // writes all referenced entities, including the ones referred to by the entities being written
+    void writeEntities() throws IOException {
+        for (int i = 0; i < entities.size(); i++) {
+            var entity = entities.get(i);
+            out.writeByte(EntityType.of(entity).ordinal());
+            entity.writeCheckpoint(this);
+        }
+        out.writeByte(END_OF_ENTITIES);
+        out.flush();
+    }
+
+    enum EntityType {
+        HEADQUARTERS,
+        PATROL,
+        INTERVENTION,
+        FIRING,
+        POINT;
+
+        static EntityType of(Entity entity) {
+            if (entity instanceof Headquarters) {
+                return HEADQUARTERS;
+            } else if (entity instanceof Patrol) {
+                return PATROL;
+            } else if (entity instanceof Intervention) {
+                return INTERVENTION;
+            } else if (entity instanceof Firing) {
+                return FIRING;
+            } else if (entity instanceof Point) {
+                return POINT;
+            }
+            throw new IllegalStateException(entity + " cannot be saved in a checkpoint");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package simulation;
+
+import osm_to_graph.MapSnapshot;
+import utils.Logger;
+import world.SimulationContext;
+import world.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves checkpoints of the running simulation every 'checkpointInterval' simulated minutes. The state is captured
+ * on the simulation thread, and compressing and writing it is left to a background thread, so that the ticks are not held up.
+ * Every run writes into its own directory, together with a snapshot of the map.
+ */
+public class Checkpointer {
+
+    private static final String CHECKPOINT_DIRECTORY_PATH = "checkpoints";
+    private static final String MAP_FILE_NAME = "map.bin";
+    private final World world = World.getInstance();
+    private final TickEngine tickEngine;
+    private final double interval;
+    private final SimulationContext context = SimulationContext.current();
+    private File directory;
+    private ExecutorService writer;
+    private double nextCheckpointTime;
+
+    public Checkpointer(TickEngine tickEngine) {
+        this.tickEngine = tickEngine;
+        this.interval = world.getConfig().getCheckpointInterval() * 60;
+        if (interval <= 0) {
+            return;
+        }
+
+        var dateFormat = new DateTimeFormatterBuilder().appendPattern("dd-MM-yyyy_HH-mm-ss").toFormatter();
+        directory = new File(SimulationContext.resolveDirectory(CHECKPOINT_DIRECTORY_PATH), dateFormat.format(LocalDateTime.now()));
+        if (!directory.exists() && !directory.mkdirs()) {
+            Logger.getInstance().logNewOtherMessage("Unable to create directory " + directory.getPath() + ", checkpoints will not be saved.");
+            return;
+        }
+        writer = Executors.newSingleThreadExecutor();
+        nextCheckpointTime = (Math.floor(world.getSimulationTime() / interval) + 1) * interval;
+
+        var map = world.getMap();
+        var mapFile = new File(directory, MAP_FILE_NAME);
+        submit(() -> Checkpoint.writeFile(mapFile, out -> MapSnapshot.write(map, out)), "Map snapshot has been saved to " + mapFile.getPath() + ".");
+    }
+
+    // must be called by the simulation thread between ticks
+    public void saveIfDue() {
+        if (writer == null || world.getSimulationTime() < nextCheckpointTime) {
+            return;
+        }
+        nextCheckpointTime = (Math.floor(world.getSimulationTime() / interval) + 1) * interval;
+
+        var captureStart = System.nanoTime();
+        byte[] data;
+        try {
+            data = Checkpoint.capture(tickEngine, MAP_FILE_NAME);
+        } catch (IOException | IllegalStateException e) {
+            e.printStackTrace();
+            Logger.getInstance().logNewOtherMessage("Unable to capture checkpoint: " + e.getMessage());
+            return;
+        }
+        var captureMillis = (System.nanoTime() - captureStart) / Math.pow(10, 6);
+
+        var file = new File(directory, String.format("checkpoint-%010d.bin", world.getSimulationTimeLong()));
+        submit(() -> Checkpoint.writeFile(file, data), String.format("Checkpoint has been saved to %s (captured in %.1f ms, %d bytes before compression).",
+                file.getPath(), captureMillis, data.length));
+    }
+
+    private void submit(FileWrite fileWrite, String message) {
+        // the thread of the executor is not bound to the context of the simulation it works for
+        writer.submit(() -> SimulationContext.runWithin(context, () -> {
+            try {
+                fileWrite.run();
+                Logger.getInstance().logNewOtherMessage(message);
+            } catch (IOException e) {
+                e.printStackTrace();
+                Logger.getInstance().logNewOtherMessage("Unable to save checkpoint: " + e.getMessage());
+            }
+        }));
+    }
+
+    // waits until all checkpoints have been written
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface FileWrite {
+        void run() throws IOException;
+    }
+}
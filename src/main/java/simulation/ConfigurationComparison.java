@@ -0,0 +1,94 @@
+package simulation;
+
+import csv_export.ExportConfigurationComparison;
+import entities.Map;
+import utils.Logger;
+import world.WorldConfiguration;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Compares two variants of a configuration on pairs of runs. With common random numbers both runs of a pair use the same seed,
+ * so they get the same incidents and the differences between them come from the configuration, not from the randomness.
+ */
+public class ConfigurationComparison {
+
+    private final WorldConfiguration configuration;
+    private final Map map;
+    private final double hqLatitude;
+    private final double hqLongitude;
+    private final int numberOfThreads;
+    private boolean commonRandomNumbers = true;
+
+    public ConfigurationComparison(WorldConfiguration configuration, Map map, double hqLatitude, double hqLongitude, int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.configuration = configuration;
+        this.map = map;
+        this.hqLatitude = hqLatitude;
+        this.hqLongitude = hqLongitude;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public void setCommonRandomNumbers(boolean commonRandomNumbers) {
+        this.commonRandomNumbers = commonRandomNumbers;
+    }
+
+    public PairedComparison run(Consumer<WorldConfiguration> variantA, Consumer<WorldConfiguration> variantB, int numberOfPairs) {
+        if (numberOfPairs <= 0) {
+            throw new IllegalArgumentException("Number of pairs must be positive");
+        }
+        var executor = Executors.newFixedThreadPool(numberOfThreads);
+        var futuresA = new ArrayList<Future<EnumMap<ReplicationRunner.Metric, Double>>>();
+        var futuresB = new ArrayList<Future<EnumMap<ReplicationRunner.Metric, Double>>>();
+        for (int i = 0; i < numberOfPairs; i++) {
+            var seedA = RandomStreams.deriveSeed(configuration.getRandomSeed(), i);
+            var seedB = commonRandomNumbers ? seedA : RandomStreams.deriveSeed(configuration.getRandomSeed(), numberOfPairs + (long) i);
+            futuresA.add(executor.submit(createRun("comparison-A-" + i, variantA, seedA)));
+            futuresB.add(executor.submit(createRun("comparison-B-" + i, variantB, seedB)));
+        }
+
+        var resultsA = new ArrayList<EnumMap<ReplicationRunner.Metric, Double>>();
+        var resultsB = new ArrayList<EnumMap<ReplicationRunner.Metric, Double>>();
+        var numberOfFailedPairs = 0;
+        try {
+            for (int i = 0; i < numberOfPairs; i++) {
+                try {
+                    var resultA = futuresA.get(i).get();
+                    var resultB = futuresB.get(i).get();
+                    resultsA.add(resultA);
+                    resultsB.add(resultB);
+                } catch (ExecutionException e) {
+                    // the whole pair is dropped, so the remaining runs stay paired, and counted in the comparison
+                    numberOfFailedPairs++;
+                    Logger.getInstance().logNewOtherMessage(String.format("Pair %d of the configuration comparison has failed: %s", i, e.getCause()));
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var comparison = new PairedComparison(resultsA, resultsB, numberOfFailedPairs);
+        Logger.getInstance().logNewOtherMessage(comparison.toString());
+        new ExportConfigurationComparison().export(comparison, commonRandomNumbers);
+        return comparison;
+    }
+
+    private Callable<EnumMap<ReplicationRunner.Metric, Double>> createRun(String name, Consumer<WorldConfiguration> variant, long seed) {
+        return () -> ReplicationRunner.runReplication(name, configuration, config -> {
+            variant.accept(config);
+            config.setRandomSeed(seed);
+        }, map, hqLatitude, hqLongitude);
+    }
+}
@@ -0,0 +1,36 @@
+package simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Effects of an agent on shared objects (other entities, the world, logs and exports). While the agent is planning its step,
+ * possibly in parallel with other agents, the effects are only collected, and they are applied later on the simulation thread
+ * in the order of the agents. Outside of planning the effects are applied at once.
+ */
+public class DeferredEffects {
+
+    private final List<Runnable> effects = new ArrayList<>();
+    private boolean isDeferring = false;
+
+    public void startDeferring() {
+        isDeferring = true;
+    }
+
+    public void run(Runnable effect) {
+        if (isDeferring) {
+            effects.add(effect);
+        } else {
+            effect.run();
+        }
+    }
+
+    // applies the collected effects in the order they were requested, and stops deferring the next ones
+    public void applyAll() {
+        isDeferring = false;
+        for (int i = 0; i < effects.size(); i++) {
+            effects.get(i).run();
+        }
+        effects.clear();
+    }
+}
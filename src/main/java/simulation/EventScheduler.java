@@ -0,0 +1,216 @@
+package simulation;
+
+import entities.Entity;
+import entities.Headquarters;
+import world.SimulationContext;
+import world.World;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Discrete-event scheduler keyed on simulation time. All delayed actions are kept in one min-heap
+ * and fired by the tick engine at the beginning of the tick they are due in, instead of parking a separate thread per action.
+ */
+public class EventScheduler {
+
+    private static EventScheduler instance;
+    private static final byte ADD_ENTITY = 0;
+    private static final byte SHIFT_CHANGE = 1;
+    private final PriorityQueue<ScheduledEvent> queue = new PriorityQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long sequenceNumber = 0;
+    private long numberOfFiredEvents = 0;
+
+    private EventScheduler() {
+    }
+
+    public static EventScheduler getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(EventScheduler.class, EventScheduler::new);
+        }
+
+        // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
+        var result = instance;
+        if (instance != null) {
+            return result;
+        }
+        synchronized (EventScheduler.class) {
+            if (instance == null) {
+                instance = new EventScheduler();
+            }
+            return instance;
+        }
+    }
+
+    public void schedule(double targetSimulationTime, Thunk function) {
+        lock.lock();
+        try {
+            queue.add(new ScheduledEvent(targetSimulationTime, sequenceNumber++, function));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void scheduleAfter(double delay, Thunk function) {
+        schedule(World.getInstance().getSimulationTime() + delay, function);
+    }
+
+    public int getNumberOfPendingEvents() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getNumberOfFiredEvents() {
+        lock.lock();
+        try {
+            return numberOfFiredEvents;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void reset() {
+        lock.lock();
+        try {
+            queue.clear();
+            sequenceNumber = 0;
+            numberOfFiredEvents = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // only actions of the classes declared for this purpose (AddEntity, Headquarters.ShiftChange) can be saved
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        lock.lock();
+        try {
+            out.writeLong(sequenceNumber);
+            out.writeLong(numberOfFiredEvents);
+            var events = new ArrayList<>(queue);
+            events.sort(null);
+            out.writeInt(events.size());
+            for (var event : events) {
+                out.writeDouble(event.targetSimulationTime);
+                out.writeLong(event.sequenceNumber);
+                if (event.function instanceof AddEntity) {
+                    out.writeByte(ADD_ENTITY);
+                    out.writeEntityReference(((AddEntity) event.function).entity);
+                } else if (event.function instanceof Headquarters.ShiftChange) {
+                    out.writeByte(SHIFT_CHANGE);
+                    out.writeEntityReference(((Headquarters.ShiftChange) event.function).getHeadquarters());
+                } else {
+                    throw new IllegalStateException("Scheduled action " + event.function.getClass().getName() + " cannot be saved in a checkpoint");
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        lock.lock();
+        try {
+            queue.clear();
+            sequenceNumber = in.readLong();
+            numberOfFiredEvents = in.readLong();
+            var size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                var targetSimulationTime = in.readDouble();
+                var eventSequenceNumber = in.readLong();
+                var type = in.readByte();
+                if (type == ADD_ENTITY) {
+                    in.readEntityReference(entity -> addRestoredEvent(targetSimulationTime, eventSequenceNumber, new AddEntity(entity)));
+                } else if (type == SHIFT_CHANGE) {
+                    in.readEntityReference(hq -> addRestoredEvent(targetSimulationTime, eventSequenceNumber, ((Headquarters) hq).new ShiftChange()));
+                } else {
+                    throw new IOException("Unknown type of scheduled action: " + type);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void addRestoredEvent(double targetSimulationTime, long eventSequenceNumber, Thunk function) {
+        lock.lock();
+        try {
+            queue.add(new ScheduledEvent(targetSimulationTime, eventSequenceNumber, function));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // fires all events which are due, on the calling thread
+    public void runDueEvents() {
+        var world = World.getInstance();
+        while (true) {
+            ScheduledEvent dueEvent;
+            lock.lock();
+            try {
+                dueEvent = pollDueEvent(world);
+                if (dueEvent == null) {
+                    return;
+                }
+                numberOfFiredEvents++;
+            } finally {
+                lock.unlock();
+            }
+            dueEvent.function.apply();
+        }
+    }
+
+    private ScheduledEvent pollDueEvent(World world) {
+        var head = queue.peek();
+        if (head == null || head.targetSimulationTime > world.getSimulationTime()) {
+            return null;
+        }
+        return queue.poll();
+    }
+
+    public interface Thunk {
+        void apply();
+    }
+
+    // adds the entity to the world, e.g. an incident drawn in advance
+    public static class AddEntity implements Thunk {
+
+        private final Entity entity;
+
+        public AddEntity(Entity entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public void apply() {
+            World.getInstance().addEntity(entity);
+        }
+    }
+
+    private static class ScheduledEvent implements Comparable<ScheduledEvent> {
+
+        private final double targetSimulationTime;
+        // events scheduled for the same moment are fired in order of submission
+        private final long sequenceNumber;
+        private final Thunk function;
+
+        private ScheduledEvent(double targetSimulationTime, long sequenceNumber, Thunk function) {
+            this.targetSimulationTime = targetSimulationTime;
+            this.sequenceNumber = sequenceNumber;
+            this.function = function;
+        }
+
+        @Override
+        public int compareTo(ScheduledEvent other) {
+            var byTime = Double.compare(targetSimulationTime, other.targetSimulationTime);
+            return byTime != 0 ? byTime : Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
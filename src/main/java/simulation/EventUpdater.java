@@ -1,32 +1,31 @@
 package simulation;
 
-import world.World;
 import entities.Incident;
+import world.World;
+
+import java.util.ArrayList;
+import java.util.List;
 
-public class EventUpdater extends Thread {
+public class EventUpdater {
 
     private final World world = World.getInstance();
+    // incidents updated in the current tick, reused in every tick
+    private final List<Incident> awakeIncidents = new ArrayList<>();
 
-    @Override
-    public void run() {
-        while (!world.hasSimulationDurationElapsed()) {
-            if (!world.isSimulationPaused()) {
-                var activeEvents = world.getEvents();
-                for (var incident : activeEvents) {
-                    if (incident.isActive()){
-                        incident.updateState();
-                    }
-                    else {
-                        world.removeEntity((Incident)incident);
-                    }
-                }
+    // only incidents which may change in this tick are updated, the others wait for their wake-up time
+    public void updateEvents() {
+        var incidentActivity = world.getIncidentActivity();
+        var simulationTime = world.getSimulationTime();
+        incidentActivity.collectAwake(simulationTime, awakeIncidents);
+        for (int i = 0; i < awakeIncidents.size(); i++) {
+            var incident = awakeIncidents.get(i);
+            if (incident.isActive()){
+                incident.updateState();
             }
-            try {
-                sleep(100);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-                Thread.currentThread().interrupt();
+            else {
+                world.removeEntity(incident);
             }
+            incidentActivity.sleepUntil(incident, incident.getNextWakeUpTime(), simulationTime);
         }
     }
-}
\ No newline at end of file
+}
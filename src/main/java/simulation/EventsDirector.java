@@ -2,67 +2,56 @@ package simulation;
 
 import world.World;
 import entities.District;
-import entities.Entity;
 import entities.Patrol;
 import entities.factories.IncidentFactory;
-import utils.DelayedActionWithTargetSimulationTime;
 
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
 
-public class EventsDirector extends Thread {
+public class EventsDirector {
 
     private final World world = World.getInstance();
 
     private int eventSpawnCounter = 0;
 
-    @Override
-    public void run() {
-        while (!world.hasSimulationDurationElapsed()) {
-            if (!world.isSimulationPaused() && eventSpawnCounter <= (world.getSimulationTimeLong() / 3600)) {
-                eventSpawnCounter++;
-
-                for (var district : world.getDistricts()) {
-                    generateNewEventsInDistrict(district);
-                }
+    int getEventSpawnCounter() {
+        return eventSpawnCounter;
+    }
 
-                removeNeutralizedPatrols();
+    void setEventSpawnCounter(int eventSpawnCounter) {
+        this.eventSpawnCounter = eventSpawnCounter;
+    }
 
-                // Sleep until next full hour in simulation time. (Due to ability to pause the simulation, we can expect that Events Director will wake up early (but not late).
-                // In that case, we will check if it is (almost) full hour and if not, then we will put him to sleep.)
+    public boolean generateEventsIfDue() {
+        if (eventSpawnCounter > (world.getSimulationTimeLong() / 3600)) {
+            return false;
+        }
+        eventSpawnCounter++;
 
-                // Director goes to sleep until next full hour of simulation time
-                var sleepTime = ((3600 - (world.getSimulationTime() % 3600)) * 1000) / world.getConfig().getTimeRate();
-                try {
-                    sleep((long) sleepTime, (int) ((sleepTime - (long) sleepTime) * 1000000));
-                } catch (InterruptedException e) {
-                    // Ignore
-                    e.printStackTrace();
-                    Thread.currentThread().interrupt();
-                }
-            }
+        for (var district : world.getDistricts()) {
+            generateNewEventsInDistrict(district);
         }
+
+        removeNeutralizedPatrols();
+        return true;
     }
 
     private void removeNeutralizedPatrols() {
-        var collect = world.getAllEntities()
-                .stream()
-                .filter(x -> x instanceof Patrol && ((Patrol) x).getState() == Patrol.State.NEUTRALIZED)
-                .collect(Collectors.toList());
-        for (Entity patrol : collect) {
-            World.getInstance().removeEntity(patrol);
-        }
+        var collect = new ArrayList<>(world.getPatrolStates().getPatrols(Patrol.State.NEUTRALIZED));
+        World.getInstance().removeEntities(collect);
         world.setNeutralizedPatrolsTotal(collect.size());
     }
 
     private void generateNewEventsInDistrict(District district) {
-        var numberOfIncidentsInNextHour = ThreadLocalRandom.current().nextInt(world.getConfig().getMaxIncidentForThreatLevel(district.getThreatLevel()) + 1);
+        // every district gets a new stream each hour, so a different number of incidents somewhere does not shift the others
+        // (runs of different configurations with the same seed get the same incidents as long as the rates are equal)
+        var random = RandomStreams.getInstance().createEntityStream(RandomStreams.Stream.INCIDENT_SPAWNING);
+        var numberOfIncidentsInNextHour = random.nextInt(world.getConfig().getMaxIncidentForThreatLevel(district.getThreatLevel()) + 1);
 
         for (var i = 0; i < numberOfIncidentsInNextHour; i++) {
             if (!district.getAllNodesInDistrict().isEmpty()){
-                var newEvent = IncidentFactory.createRandomInterventionForDistrict(district);
-                var sleepTime = ThreadLocalRandom.current().nextInt(3600);
-                new DelayedActionWithTargetSimulationTime(sleepTime, () -> world.addEntity(newEvent)).start();
+                var newEvent = IncidentFactory.createRandomInterventionForDistrict(district, random);
+                var sleepTime = random.nextInt(3600);
+                EventScheduler.getInstance().scheduleAfter(sleepTime, new EventScheduler.AddEntity(newEvent));
             }
         }
     }
@@ -0,0 +1,114 @@
+package simulation;
+
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Paired differences (variant B minus variant A) of every metric over pairs of runs of two configurations,
+ * with the 95% confidence interval of the mean difference. Pairs in which a run has failed are left out, and their number is kept.
+ */
+public class PairedComparison {
+
+    private final int numberOfPairs;
+    private final int numberOfFailedPairs;
+    private final EnumMap<ReplicationRunner.Metric, Double> meansA = new EnumMap<>(ReplicationRunner.Metric.class);
+    private final EnumMap<ReplicationRunner.Metric, Double> meansB = new EnumMap<>(ReplicationRunner.Metric.class);
+    private final EnumMap<ReplicationRunner.Metric, Double> meanDifferences = new EnumMap<>(ReplicationRunner.Metric.class);
+    private final EnumMap<ReplicationRunner.Metric, Double> differenceStandardDeviations = new EnumMap<>(ReplicationRunner.Metric.class);
+    private final EnumMap<ReplicationRunner.Metric, Double> varianceRatios = new EnumMap<>(ReplicationRunner.Metric.class);
+
+    public PairedComparison(List<EnumMap<ReplicationRunner.Metric, Double>> resultsA, List<EnumMap<ReplicationRunner.Metric, Double>> resultsB,
+                            int numberOfFailedPairs) {
+        if (resultsA.size() != resultsB.size()) {
+            throw new IllegalArgumentException("Both variants must have the same number of runs");
+        }
+        this.numberOfPairs = resultsA.size();
+        this.numberOfFailedPairs = numberOfFailedPairs;
+        for (var metric : ReplicationRunner.Metric.values()) {
+            var valuesA = resultsA.stream().mapToDouble(x -> x.get(metric)).toArray();
+            var valuesB = resultsB.stream().mapToDouble(x -> x.get(metric)).toArray();
+            var differences = new double[numberOfPairs];
+            for (int i = 0; i < numberOfPairs; i++) {
+                differences[i] = valuesB[i] - valuesA[i];
+            }
+            meansA.put(metric, mean(valuesA));
+            meansB.put(metric, mean(valuesB));
+            meanDifferences.put(metric, mean(differences));
+            differenceStandardDeviations.put(metric, Math.sqrt(variance(differences)));
+
+            // variance of the paired differences compared to the variance the differences would have with independent runs
+            var independentVariance = variance(valuesA) + variance(valuesB);
+            varianceRatios.put(metric, independentVariance == 0 ? 1 : variance(differences) / independentVariance);
+        }
+    }
+
+    private static double mean(double[] values) {
+        var sum = 0.0;
+        for (var value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double variance(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        var mean = mean(values);
+        var sumOfSquares = 0.0;
+        for (var value : values) {
+            sumOfSquares += (value - mean) * (value - mean);
+        }
+        return sumOfSquares / (values.length - 1);
+    }
+
+    public int getNumberOfPairs() {
+        return numberOfPairs;
+    }
+
+    public int getNumberOfFailedPairs() {
+        return numberOfFailedPairs;
+    }
+
+    public double getMeanA(ReplicationRunner.Metric metric) {
+        return meansA.get(metric);
+    }
+
+    public double getMeanB(ReplicationRunner.Metric metric) {
+        return meansB.get(metric);
+    }
+
+    public double getMeanDifference(ReplicationRunner.Metric metric) {
+        return meanDifferences.get(metric);
+    }
+
+    public double getDifferenceStandardDeviation(ReplicationRunner.Metric metric) {
+        return differenceStandardDeviations.get(metric);
+    }
+
+    public double getHalfWidth(ReplicationRunner.Metric metric) {
+        if (numberOfPairs < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return ReplicationSummary.tQuantile(numberOfPairs - 1) * getDifferenceStandardDeviation(metric) / Math.sqrt(numberOfPairs);
+    }
+
+    public double getVarianceRatio(ReplicationRunner.Metric metric) {
+        return varianceRatios.get(metric);
+    }
+
+    // the difference is significant when its confidence interval does not contain zero
+    public boolean isSignificant(ReplicationRunner.Metric metric) {
+        return Math.abs(getMeanDifference(metric)) > getHalfWidth(metric);
+    }
+
+    @Override
+    public String toString() {
+        var result = new StringBuilder(String.format("Paired comparison of %d pairs, %d failed (mean difference B-A +/- 95%% CI half-width):",
+                numberOfPairs, numberOfFailedPairs));
+        for (var metric : ReplicationRunner.Metric.values()) {
+            result.append(String.format(" %s=%.2f+/-%.2f%s", metric, getMeanDifference(metric), getHalfWidth(metric), isSignificant(metric) ? "*" : ""));
+        }
+        return result.toString();
+    }
+}
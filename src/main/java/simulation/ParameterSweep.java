@@ -0,0 +1,196 @@
+package simulation;
+
+import csv_export.ExportSweepResults;
+import entities.Map;
+import utils.Logger;
+import world.WorldConfiguration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs headless simulations for every point of a design over the configuration parameters (full grid or Latin hypercube),
+ * on a pool of at most 'numberOfThreads' workers, and collects the results in one table. Runs which fail stay in the table,
+ * marked as failed, so that no point of the design goes missing from it without notice.
+ */
+public class ParameterSweep {
+
+    private final WorldConfiguration configuration;
+    private final Map map;
+    private final double hqLatitude;
+    private final double hqLongitude;
+    private final int numberOfThreads;
+    private final List<SweepParameter> parameters = new ArrayList<>();
+    private int numberOfReplicationsPerPoint = 1;
+
+    public ParameterSweep(WorldConfiguration configuration, Map map, double hqLatitude, double hqLongitude, int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.configuration = configuration;
+        this.map = map;
+        this.hqLatitude = hqLatitude;
+        this.hqLongitude = hqLongitude;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public void addParameter(SweepParameter parameter) {
+        parameters.add(parameter);
+    }
+
+    public List<SweepParameter> getParameters() {
+        return new ArrayList<>(parameters);
+    }
+
+    public void setNumberOfReplicationsPerPoint(int numberOfReplicationsPerPoint) {
+        if (numberOfReplicationsPerPoint <= 0) {
+            throw new IllegalArgumentException("Number of replications per point must be positive");
+        }
+        this.numberOfReplicationsPerPoint = numberOfReplicationsPerPoint;
+    }
+
+    // full factorial design, 'numberOfLevels' values evenly spread over the range of every parameter
+    public List<Row> runGrid(int numberOfLevels) {
+        if (numberOfLevels <= 0) {
+            throw new IllegalArgumentException("Number of levels must be positive");
+        }
+        var points = new ArrayList<double[]>();
+        points.add(new double[0]);
+        for (var parameter : parameters) {
+            var extendedPoints = new ArrayList<double[]>();
+            for (var point : points) {
+                for (int level = 0; level < numberOfLevels; level++) {
+                    var extendedPoint = Arrays.copyOf(point, point.length + 1);
+                    extendedPoint[point.length] = parameter.valueAt(numberOfLevels == 1 ? 0 : (double) level / (numberOfLevels - 1));
+                    extendedPoints.add(extendedPoint);
+                }
+            }
+            points = extendedPoints;
+        }
+        return run(points);
+    }
+
+    // every parameter's range is split into 'numberOfPoints' strata and every stratum is sampled exactly once
+    public List<Row> runLatinHypercube(int numberOfPoints, long seed) {
+        if (numberOfPoints <= 0) {
+            throw new IllegalArgumentException("Number of points must be positive");
+        }
+        var random = new Random(seed);
+        var points = new ArrayList<double[]>();
+        for (int i = 0; i < numberOfPoints; i++) {
+            points.add(new double[parameters.size()]);
+        }
+        for (int p = 0; p < parameters.size(); p++) {
+            var strata = new ArrayList<Integer>();
+            for (int i = 0; i < numberOfPoints; i++) {
+                strata.add(i);
+            }
+            Collections.shuffle(strata, random);
+            for (int i = 0; i < numberOfPoints; i++) {
+                points.get(i)[p] = parameters.get(p).valueAt((strata.get(i) + random.nextDouble()) / numberOfPoints);
+            }
+        }
+        return run(points);
+    }
+
+    private List<Row> run(List<double[]> points) {
+        Logger.getInstance().logNewOtherMessage(String.format("Parameter sweep has started: %d points, %d replications per point.",
+                points.size(), numberOfReplicationsPerPoint));
+        var executor = Executors.newFixedThreadPool(numberOfThreads);
+        var futures = new ArrayList<Future<Row>>();
+        for (int i = 0; i < points.size(); i++) {
+            for (int replication = 0; replication < numberOfReplicationsPerPoint; replication++) {
+                var pointNumber = i;
+                var replicationNumber = replication;
+                var point = points.get(i);
+                futures.add(executor.submit(() -> runPoint(pointNumber, replicationNumber, point)));
+            }
+        }
+
+        var rows = new ArrayList<Row>();
+        var numberOfFailedRuns = 0;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                // the runs have been submitted point by point
+                var pointNumber = i / numberOfReplicationsPerPoint;
+                var replicationNumber = i % numberOfReplicationsPerPoint;
+                try {
+                    rows.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    numberOfFailedRuns++;
+                    rows.add(new Row(pointNumber, replicationNumber, points.get(pointNumber), null));
+                    Logger.getInstance().logNewOtherMessage(String.format("Replication %d of point %d of the parameter sweep has failed: %s",
+                            replicationNumber, pointNumber, e.getCause()));
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var resultsFile = new ExportSweepResults().export(parameters, rows);
+        Logger.getInstance().logNewOtherMessage(String.format("Parameter sweep has finished, %d of %d runs have failed, results have been saved to %s.",
+                numberOfFailedRuns, rows.size(), resultsFile.getPath()));
+        return rows;
+    }
+
+    // replications with the same number use the same seed in every point, so the points differ only in the parameters
+    private Row runPoint(int pointNumber, int replicationNumber, double[] point) {
+        var seed = RandomStreams.deriveSeed(configuration.getRandomSeed(), replicationNumber);
+        var metrics = ReplicationRunner.runReplication(String.format("sweep-point-%d-replication-%d", pointNumber, replicationNumber), configuration,
+                config -> {
+                    config.setRandomSeed(seed);
+                    for (int p = 0; p < parameters.size(); p++) {
+                        parameters.get(p).apply(config, point[p]);
+                    }
+                }, map, hqLatitude, hqLongitude);
+        return new Row(pointNumber, replicationNumber, point, metrics);
+    }
+
+    public static class Row {
+
+        private final int pointNumber;
+        private final int replicationNumber;
+        private final double[] parameterValues;
+        // null if the run has failed
+        private final EnumMap<ReplicationRunner.Metric, Double> metrics;
+
+        private Row(int pointNumber, int replicationNumber, double[] parameterValues, EnumMap<ReplicationRunner.Metric, Double> metrics) {
+            this.pointNumber = pointNumber;
+            this.replicationNumber = replicationNumber;
+            this.parameterValues = parameterValues;
+            this.metrics = metrics;
+        }
+
+        public int getPointNumber() {
+            return pointNumber;
+        }
+
+        public int getReplicationNumber() {
+            return replicationNumber;
+        }
+
+        public double[] getParameterValues() {
+            return parameterValues.clone();
+        }
+
+        public boolean isFailed() {
+            return metrics == null;
+        }
+
+        // NaN if the run has failed
+        public double getMetric(ReplicationRunner.Metric metric) {
+            return metrics == null ? Double.NaN : metrics.get(metric);
+        }
+    }
+}
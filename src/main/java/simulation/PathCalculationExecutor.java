@@ -0,0 +1,194 @@
+package simulation;
+
+import entities.Patrol;
+import world.SimulationContext;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Calculates the paths of the patrols on a fixed number of threads, instead of starting a thread for every transfer.
+ * Waiting calculations are taken by the state the patrol is going to be in: transfers to firings first, then transfers
+ * to interventions, then the others (patrolling, returning to the headquarters), in the order of submission among equal ones.
+ * Calculations cancelled before they are taken are skipped, and the ones cancelled while running are counted as cancelled
+ * as well, as their paths are not handed over. Keeps the number of waiting calculations and the wall time
+ * from submitting a calculation to handing its path over, which the patrol spends in CALCULATING_PATH.
+ */
+public class PathCalculationExecutor {
+
+    private static PathCalculationExecutor instance;
+    // one core is left to the simulation thread
+    private static final int NUMBER_OF_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    // idle threads end, so the executors of finished simulations do not keep them
+    private static final long KEEP_ALIVE_SECONDS = 10;
+    private final SimulationContext context = SimulationContext.current();
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequenceNumber = new AtomicLong();
+    private long numberOfSubmitted = 0;
+    private long numberOfCalculated = 0;
+    private long numberOfCancelled = 0;
+    private long totalQueueDepth = 0;
+    private int maxQueueDepth = 0;
+    private long totalWaitingNanos = 0;
+    private long totalCalculatingPathNanos = 0;
+    private long maxCalculatingPathNanos = 0;
+
+    private PathCalculationExecutor() {
+        executor = new ThreadPoolExecutor(NUMBER_OF_THREADS, NUMBER_OF_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+            var thread = new Thread(runnable, "Path calculation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static PathCalculationExecutor getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(PathCalculationExecutor.class, PathCalculationExecutor::new);
+        }
+
+        // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
+        var result = instance;
+        if (instance != null) {
+            return result;
+        }
+        synchronized (PathCalculationExecutor.class) {
+            if (instance == null) {
+                instance = new PathCalculationExecutor();
+            }
+            return instance;
+        }
+    }
+
+    // 'nextState' - state of the patrol after the path has been calculated
+    public void submit(PathCalculator pathCalculator, Patrol.State nextState) {
+        var task = new Task(pathCalculator, getPriority(nextState), sequenceNumber.getAndIncrement());
+        // execute, not submit, as the queue orders the tasks themselves
+        executor.execute(task);
+        var queueDepth = executor.getQueue().size();
+        synchronized (this) {
+            numberOfSubmitted++;
+            totalQueueDepth += queueDepth;
+            maxQueueDepth = Math.max(maxQueueDepth, queueDepth);
+        }
+    }
+
+    private static int getPriority(Patrol.State nextState) {
+        if (nextState == Patrol.State.TRANSFER_TO_FIRING) {
+            return 0;
+        } else if (nextState == Patrol.State.TRANSFER_TO_INTERVENTION) {
+            return 1;
+        }
+        return 2;
+    }
+
+    // calculations of the previous simulation are dropped
+    public void reset() {
+        executor.getQueue().clear();
+        synchronized (this) {
+            numberOfSubmitted = 0;
+            numberOfCalculated = 0;
+            numberOfCancelled = 0;
+            totalQueueDepth = 0;
+            maxQueueDepth = 0;
+            totalWaitingNanos = 0;
+            totalCalculatingPathNanos = 0;
+            maxCalculatingPathNanos = 0;
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public synchronized long getNumberOfSubmitted() {
+        return numberOfSubmitted;
+    }
+
+    public synchronized long getNumberOfCalculated() {
+        return numberOfCalculated;
+    }
+
+    public synchronized long getNumberOfCancelled() {
+        return numberOfCancelled;
+    }
+
+    // number of calculations waiting when a new one was submitted (including it)
+    public synchronized double getAverageQueueDepth() {
+        return numberOfSubmitted == 0 ? 0 : (double) totalQueueDepth / numberOfSubmitted;
+    }
+
+    public synchronized int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public synchronized double getAverageWaitingMillis() {
+        return numberOfCalculated == 0 ? 0 : totalWaitingNanos / Math.pow(10, 6) / numberOfCalculated;
+    }
+
+    public synchronized double getAverageCalculatingPathMillis() {
+        return numberOfCalculated == 0 ? 0 : totalCalculatingPathNanos / Math.pow(10, 6) / numberOfCalculated;
+    }
+
+    public synchronized double getMaxCalculatingPathMillis() {
+        return maxCalculatingPathNanos / Math.pow(10, 6);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("Path calculations: %d submitted, %d cancelled, %.1f waiting on average (at most %d), "
+                        + "%.3f ms in CALCULATING_PATH on average (at most %.3f ms), of which %.3f ms waiting",
+                numberOfSubmitted, numberOfCancelled, getAverageQueueDepth(), maxQueueDepth,
+                getAverageCalculatingPathMillis(), getMaxCalculatingPathMillis(), getAverageWaitingMillis());
+    }
+
+    private class Task implements Runnable, Comparable<Task> {
+
+        private final PathCalculator pathCalculator;
+        private final int priority;
+        private final long sequenceNumber;
+        private final long submitTime = System.nanoTime();
+
+        private Task(PathCalculator pathCalculator, int priority, long sequenceNumber) {
+            this.pathCalculator = pathCalculator;
+            this.priority = priority;
+            this.sequenceNumber = sequenceNumber;
+        }
+
+        @Override
+        public void run() {
+            if (pathCalculator.isCancelled()) {
+                synchronized (PathCalculationExecutor.this) {
+                    numberOfCancelled++;
+                }
+                return;
+            }
+            var startTime = System.nanoTime();
+            // the threads of the executor are not bound to the context of the simulation they work for
+            SimulationContext.runWithin(context, pathCalculator);
+            var endTime = System.nanoTime();
+            synchronized (PathCalculationExecutor.this) {
+                if (pathCalculator.isCancelled()) {
+                    numberOfCancelled++;
+                    return;
+                }
+                numberOfCalculated++;
+                totalWaitingNanos += startTime - submitTime;
+                totalCalculatingPathNanos += endTime - submitTime;
+                maxCalculatingPathNanos = Math.max(maxCalculatingPathNanos, endTime - submitTime);
+            }
+        }
+
+        @Override
+        public int compareTo(Task other) {
+            if (priority != other.priority) {
+                return Integer.compare(priority, other.priority);
+            }
+            return Long.compare(sequenceNumber, other.sequenceNumber);
+        }
+    }
+}
@@ -3,51 +3,89 @@ package simulation;
 import de.westnordost.osmapi.map.data.LatLon;
 import de.westnordost.osmapi.map.data.Node;
 import de.westnordost.osmapi.map.data.OsmLatLon;
+import entities.ContractionHierarchy;
 import entities.Entity;
 import entities.Patrol;
 import org.jgrapht.GraphPath;
 import org.jgrapht.alg.shortestpath.AStarShortestPath;
 import osm_to_graph.ImportedEdge;
-import utils.Haversine;
 import world.World;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-import static entities.Map.getNearestNode;
+public class PathCalculator implements Runnable {
 
-public class PathCalculator extends Thread {
+    private final AStarShortestPath<Node, ImportedEdge> pathCalc = World.getInstance().getMap()
+            .getPathCalculator(World.getInstance().getConfig().getNumberOfLandmarks());
+    // null if paths are calculated with A*
+    private final ContractionHierarchy contractionHierarchy = World.getInstance().getConfig().isContractionHierarchiesEnabled()
+            ? World.getInstance().getMap().getContractionHierarchy() : null;
+    private final entities.Map map = World.getInstance().getMap();
+    // positions are taken when the path is requested, as the calculation may run on another thread
+    private final double sourceLatitude;
+    private final double sourceLongitude;
+    private final double targetLatitude;
+    private final double targetLongitude;
+    private final Patrol.Transfer transfer;
+    private volatile boolean isCancelled = false;
+    // set when the path is handed over, after which the calculation can no longer be cancelled
+    private boolean isHandedOver = false;
 
-    private final AStarShortestPath<Node, ImportedEdge> pathCalc = World.getInstance().getMap().getPathCalculator();
-    private final java.util.Map<Long, Node> myNodes = World.getInstance().getMap().getMyNodes();
-    private final Entity source;
-    private final Entity target;
-
-    public PathCalculator(Entity source, Entity target) {
-        this.source = source;
-        this.target = target;
+    public PathCalculator(Entity source, Entity target, Patrol.Transfer transfer) {
+        this.sourceLatitude = source.getLatitude();
+        this.sourceLongitude = source.getLongitude();
+        this.targetLatitude = target.getLatitude();
+        this.targetLongitude = target.getLongitude();
+        this.transfer = transfer;
     }
 
     @Override
     public void run() {
-        var pathNodeList = getPathNodeList(source.getLatitude(), source.getLongitude(), target.getLatitude(), target.getLongitude());
+        if (isCancelled) {
+            return;
+        }
+        var pathNodeList = getPathNodeList(sourceLatitude, sourceLongitude, targetLatitude, targetLongitude);
+        synchronized (this) {
+            if (isCancelled) {
+                return;
+            }
+            isHandedOver = true;
+        }
+        // the result is handed to the transfer which requested it, as the patrol may have already been given a new action
         if (pathNodeList.size() == 1) {
             var pathNodeList2 = new ArrayList<Node>();
             pathNodeList2.add(pathNodeList.get(0));
-            ((Patrol.Transfer) ((Patrol) source).getAction()).setPathNodeList(pathNodeList2);
+            transfer.setPathNodeList(pathNodeList2);
         } else {
-            ((Patrol.Transfer) ((Patrol) source).getAction()).setPathNodeList(pathNodeList);
+            transfer.setPathNodeList(pathNodeList);
+        }
+    }
+
+    // the path is not calculated, or not handed over if the calculation has already started;
+    // returns false if the path has already been handed over
+    public synchronized boolean cancel() {
+        if (isHandedOver) {
+            return false;
         }
+        isCancelled = true;
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
     }
 
     public List<Node> getPathNodeList(double sourceLatitude, double sourceLongitude, double targetLatitude, double targetLongitude) {
         Node nearSourceNode = findNearestNode(new OsmLatLon(sourceLatitude, sourceLongitude));
         Node nearTargetNode1 = findNearestNode(new OsmLatLon(targetLatitude, targetLongitude));
-        GraphPath<Node, ImportedEdge> path = pathCalc.getPath(nearSourceNode, nearTargetNode1);
+        List<Node> path = findPath(nearSourceNode, nearTargetNode1);
 
         // the case where the route between nodes does not exist
         if (path == null) {
-            List<Node> forbiddenNodes = new ArrayList<>();
+            Set<Node> forbiddenNodes = new HashSet<>();
             while (path == null) {
                 forbiddenNodes.add(nearSourceNode);
                 forbiddenNodes.add(nearTargetNode1);
@@ -61,27 +99,26 @@ public class PathCalculator extends Thread {
                     nearSourceNode = findNearestNode(new OsmLatLon(sourceLatitude, sourceLongitude), forbiddenNodes);
                     nearTargetNode1 = findNearestNode(new OsmLatLon(targetLatitude, targetLongitude), forbiddenNodes);
                 }
-                path = pathCalc.getPath(nearSourceNode, nearTargetNode1);
+                path = findPath(nearSourceNode, nearTargetNode1);
             }
         }
-        return path.getVertexList();
+        return path;
     }
 
-    public Node findNearestNode(LatLon point) {
-        double distance = Double.MAX_VALUE;
-        Node nearestNode = null;
-        for (java.util.Map.Entry<Long, Node> me : myNodes.entrySet()) {
-            LatLon nodePosition = me.getValue().getPosition();
-            double tmpDistance = Haversine.distance(point.getLatitude(), point.getLongitude(), nodePosition.getLatitude(), nodePosition.getLongitude());
-            if (tmpDistance < distance) {
-                distance = tmpDistance;
-                nearestNode = me.getValue();
-            }
+    // nodes of the shortest path between the nodes, null if there is none
+    private List<Node> findPath(Node source, Node target) {
+        if (contractionHierarchy != null) {
+            return contractionHierarchy.getPath(source, target);
         }
-        return nearestNode;
+        GraphPath<Node, ImportedEdge> path = pathCalc.getPath(source, target);
+        return path != null ? path.getVertexList() : null;
+    }
+
+    public Node findNearestNode(LatLon point) {
+        return map.getNearestNode(point.getLatitude(), point.getLongitude(), null);
     }
 
-    public Node findNearestNode(LatLon point, List<Node> forbiddenNodes) {
-        return getNearestNode(point, forbiddenNodes, myNodes);
+    public Node findNearestNode(LatLon point, Set<Node> forbiddenNodes) {
+        return map.getNearestNode(point.getLatitude(), point.getLongitude(), forbiddenNodes::contains);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package simulation;
+
+import world.SimulationContext;
+
+import java.io.IOException;
+import java.util.EnumMap;
+
+/**
+ * Source of all random numbers of a simulation. Every subsystem draws from its own stream, and every agent or incident
+ * which needs random numbers gets an independent stream split off its subsystem's stream when it is created,
+ * so the same seed and configuration always give the same run, no matter how the threads are scheduled.
+ */
+public class RandomStreams {
+
+    private static RandomStreams instance;
+    private final EnumMap<Stream, SimulationRandom> streams = new EnumMap<>(Stream.class);
+    private long seed;
+
+    private RandomStreams() {
+        reset(0);
+    }
+
+    public static RandomStreams getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(RandomStreams.class, RandomStreams::new);
+        }
+
+        // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
+        var result = instance;
+        if (instance != null) {
+            return result;
+        }
+        synchronized (RandomStreams.class) {
+            if (instance == null) {
+                instance = new RandomStreams();
+            }
+            return instance;
+        }
+    }
+
+    // seed of the 'index'-th of several runs started from one base seed (e.g. replications)
+    public static long deriveSeed(long baseSeed, long index) {
+        var random = new SimulationRandom(baseSeed);
+        for (long i = 0; i < index; i++) {
+            random.nextLong();
+        }
+        return random.nextLong();
+    }
+
+    public synchronized void reset(long seed) {
+        this.seed = seed;
+        streams.clear();
+
+        // streams are split in the order of declaration, so adding a new stream at the end does not change the others
+        var root = new SimulationRandom(seed);
+        for (var stream : Stream.values()) {
+            streams.put(stream, root.split());
+        }
+    }
+
+    public synchronized long getSeed() {
+        return seed;
+    }
+
+    // shared stream of a subsystem, it must be used only by the thread running the simulation
+    public synchronized SimulationRandom getStream(Stream stream) {
+        return streams.get(stream);
+    }
+
+    // independent stream for a single agent or incident
+    public synchronized SimulationRandom createEntityStream(Stream parent) {
+        return streams.get(parent).split();
+    }
+
+    public synchronized void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeLong(seed);
+        for (var stream : Stream.values()) {
+            out.writeRandom(streams.get(stream));
+        }
+    }
+
+    public synchronized void readCheckpoint(CheckpointInput in) throws IOException {
+        seed = in.readLong();
+        streams.clear();
+        for (var stream : Stream.values()) {
+            streams.put(stream, in.readRandom());
+        }
+    }
+
+    public enum Stream {
+        INCIDENT_SPAWNING,
+        INCIDENT_PROPERTIES,
+        PATROLS
+    }
+}
@@ -0,0 +1,170 @@
+package simulation;
+
+import csv_export.ExportReplicationSummary;
+import entities.Headquarters;
+import entities.Map;
+import utils.Logger;
+import world.SimulationContext;
+import world.World;
+import world.WorldConfiguration;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs independent replications of one configuration concurrently. Every replication has its own SimulationContext
+ * (world, statistics, logs and exports), runs with the virtual clock on a pool thread and has its own copy of the map,
+ * sharing only the read-only graph and nodes with the others (the districts, whose threat levels change, are copied).
+ */
+public class ReplicationRunner {
+
+    private final WorldConfiguration configuration;
+    private final Map map;
+    private final double hqLatitude;
+    private final double hqLongitude;
+    private final int numberOfThreads;
+    private final List<EnumMap<Metric, Double>> results = new ArrayList<>();
+    private int minimumNumberOfReplications = 2;
+    // relative half-width of the 95% confidence interval at which no more replications are started (0 - always run all of them)
+    private double targetRelativeHalfWidth = 0;
+    private int numberOfStartedReplications = 0;
+    private int numberOfFailedReplications = 0;
+
+    public ReplicationRunner(WorldConfiguration configuration, Map map, double hqLatitude, double hqLongitude) {
+        this(configuration, map, hqLatitude, hqLongitude, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ReplicationRunner(WorldConfiguration configuration, Map map, double hqLatitude, double hqLongitude, int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.configuration = configuration;
+        this.map = map;
+        this.hqLatitude = hqLatitude;
+        this.hqLongitude = hqLongitude;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    public void setMinimumNumberOfReplications(int minimumNumberOfReplications) {
+        this.minimumNumberOfReplications = minimumNumberOfReplications;
+    }
+
+    public void setTargetRelativeHalfWidth(double targetRelativeHalfWidth) {
+        this.targetRelativeHalfWidth = targetRelativeHalfWidth;
+    }
+
+    public List<EnumMap<Metric, Double>> getResults() {
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * Runs up to 'maximumNumberOfReplications' replications in waves of 'numberOfThreads'. After every wave the confidence
+     * intervals are checked, and if all of them are tighter than the target, the remaining replications are skipped.
+     */
+    public ReplicationSummary run(int maximumNumberOfReplications) {
+        var executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, maximumNumberOfReplications));
+        ReplicationSummary summary = null;
+        try {
+            while (numberOfStartedReplications < maximumNumberOfReplications) {
+                var waveSize = Math.min(numberOfThreads, maximumNumberOfReplications - numberOfStartedReplications);
+                runWave(executor, waveSize);
+                summary = new ReplicationSummary(results, numberOfFailedReplications);
+                Logger.getInstance().logNewOtherMessage(summary.toString());
+                if (isPreciseEnough(summary)) {
+                    Logger.getInstance().logNewOtherMessage("Confidence intervals are tight enough, remaining replications have been skipped.");
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (summary == null) {
+            summary = new ReplicationSummary(results, numberOfFailedReplications);
+        }
+        new ExportReplicationSummary().export(summary, results);
+        return summary;
+    }
+
+    private boolean isPreciseEnough(ReplicationSummary summary) {
+        return targetRelativeHalfWidth > 0
+                && summary.getNumberOfReplications() >= minimumNumberOfReplications
+                && summary.getMaxRelativeHalfWidth() <= targetRelativeHalfWidth;
+    }
+
+    private void runWave(ExecutorService executor, int waveSize) throws InterruptedException {
+        var firstReplicationNumber = numberOfStartedReplications;
+        var futures = new ArrayList<Future<EnumMap<Metric, Double>>>();
+        for (int i = 0; i < waveSize; i++) {
+            futures.add(executor.submit(createReplication(numberOfStartedReplications++)));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                // the summary keeps the number of failed replications, so it is not silently computed from fewer runs
+                numberOfFailedReplications++;
+                Logger.getInstance().logNewOtherMessage(String.format("Replication %d has failed: %s", firstReplicationNumber + i, e.getCause()));
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Callable<EnumMap<Metric, Double>> createReplication(int replicationNumber) {
+        var seed = RandomStreams.deriveSeed(configuration.getRandomSeed(), replicationNumber);
+        return () -> runReplication("replication-" + replicationNumber, configuration, config -> config.setRandomSeed(seed), map, hqLatitude, hqLongitude);
+    }
+
+    // runs a single simulation in a new context on the calling thread, 'customization' is applied to the copy of the configuration
+    static EnumMap<Metric, Double> runReplication(String contextName, WorldConfiguration configuration, Consumer<WorldConfiguration> customization,
+                                                  Map map, double hqLatitude, double hqLongitude) {
+        var context = new SimulationContext(contextName);
+        context.bind();
+        try {
+            var world = World.getInstance();
+            world.getConfig().copyFrom(configuration);
+            customization.accept(world.getConfig());
+            world.getConfig().setVirtualClock(true);
+            // used by the sweeps and comparisons as well, so every run of them gets its own districts too
+            world.setMap(map.copyWithOwnDistricts());
+            world.addEntity(new Headquarters(hqLatitude, hqLongitude));
+
+            // run on the calling thread, so the replication stays in its context
+            new SimulationThread().run();
+            return collectMetrics();
+        } finally {
+            context.unbind();
+        }
+    }
+
+    static EnumMap<Metric, Double> collectMetrics() {
+        var statistics = StatisticsCounter.getInstance();
+        var result = new EnumMap<Metric, Double>(Metric.class);
+        result.put(Metric.PATROLS, (double) statistics.getNumberOfPatrols());
+        result.put(Metric.INTERVENTIONS, (double) statistics.getNumberOfInterventions());
+        result.put(Metric.FIRINGS, (double) statistics.getNumberOfFirings());
+        result.put(Metric.SOLVED_INTERVENTIONS, (double) statistics.getNumberOfSolvedInterventions());
+        result.put(Metric.SOLVED_FIRINGS, (double) statistics.getNumberOfSolvedFirings());
+        result.put(Metric.NEUTRALIZED_PATROLS, (double) statistics.getNumberOfNeutralizedPatrols());
+        return result;
+    }
+
+    public enum Metric {
+        PATROLS,
+        INTERVENTIONS,
+        FIRINGS,
+        SOLVED_INTERVENTIONS,
+        SOLVED_FIRINGS,
+        NEUTRALIZED_PATROLS
+    }
+}
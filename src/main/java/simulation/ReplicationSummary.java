@@ -0,0 +1,100 @@
+package simulation;
+
+import java.util.EnumMap;
+import java.util.List;
+
+/**
+ * Mean, standard deviation and 95% confidence interval of every metric over a set of independent replications.
+ * Replications which have failed are not in the results, so their number is kept to show how many runs the summary lacks.
+ */
+public class ReplicationSummary {
+
+    // 0.975 quantiles of Student's t-distribution for 1..30 degrees of freedom, used for the two-sided 95% intervals
+    private static final double[] T_QUANTILES = new double[]{
+            12.706, 4.303, 3.182, 2.776, 2.571, 2.447, 2.365, 2.306, 2.262, 2.228,
+            2.201, 2.179, 2.160, 2.145, 2.131, 2.120, 2.110, 2.101, 2.093, 2.086,
+            2.080, 2.074, 2.069, 2.064, 2.060, 2.056, 2.052, 2.048, 2.045, 2.042
+    };
+    private static final double NORMAL_QUANTILE = 1.96;
+
+    private final int numberOfReplications;
+    private final int numberOfFailedReplications;
+    private final EnumMap<ReplicationRunner.Metric, Double> means = new EnumMap<>(ReplicationRunner.Metric.class);
+    private final EnumMap<ReplicationRunner.Metric, Double> standardDeviations = new EnumMap<>(ReplicationRunner.Metric.class);
+    private final EnumMap<ReplicationRunner.Metric, Double> halfWidths = new EnumMap<>(ReplicationRunner.Metric.class);
+
+    public ReplicationSummary(List<EnumMap<ReplicationRunner.Metric, Double>> results, int numberOfFailedReplications) {
+        this.numberOfReplications = results.size();
+        this.numberOfFailedReplications = numberOfFailedReplications;
+        for (var metric : ReplicationRunner.Metric.values()) {
+            var mean = results.stream().mapToDouble(x -> x.get(metric)).average().orElse(0);
+            var sumOfSquares = results.stream().mapToDouble(x -> Math.pow(x.get(metric) - mean, 2)).sum();
+            var standardDeviation = numberOfReplications > 1 ? Math.sqrt(sumOfSquares / (numberOfReplications - 1)) : 0;
+            var halfWidth = numberOfReplications > 1
+                    ? tQuantile(numberOfReplications - 1) * standardDeviation / Math.sqrt(numberOfReplications)
+                    : Double.POSITIVE_INFINITY;
+            means.put(metric, mean);
+            standardDeviations.put(metric, standardDeviation);
+            halfWidths.put(metric, halfWidth);
+        }
+    }
+
+    static double tQuantile(int degreesOfFreedom) {
+        return degreesOfFreedom <= T_QUANTILES.length ? T_QUANTILES[degreesOfFreedom - 1] : NORMAL_QUANTILE;
+    }
+
+    public int getNumberOfReplications() {
+        return numberOfReplications;
+    }
+
+    public int getNumberOfFailedReplications() {
+        return numberOfFailedReplications;
+    }
+
+    public double getMean(ReplicationRunner.Metric metric) {
+        return means.get(metric);
+    }
+
+    public double getStandardDeviation(ReplicationRunner.Metric metric) {
+        return standardDeviations.get(metric);
+    }
+
+    public double getHalfWidth(ReplicationRunner.Metric metric) {
+        return halfWidths.get(metric);
+    }
+
+    public double getLowerBound(ReplicationRunner.Metric metric) {
+        return getMean(metric) - getHalfWidth(metric);
+    }
+
+    public double getUpperBound(ReplicationRunner.Metric metric) {
+        return getMean(metric) + getHalfWidth(metric);
+    }
+
+    // half-width of the confidence interval relative to the mean (metrics with zero mean are treated as precise)
+    public double getRelativeHalfWidth(ReplicationRunner.Metric metric) {
+        var mean = Math.abs(getMean(metric));
+        if (mean == 0) {
+            return getHalfWidth(metric) == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return getHalfWidth(metric) / mean;
+    }
+
+    public double getMaxRelativeHalfWidth() {
+        var result = 0.0;
+        for (var metric : ReplicationRunner.Metric.values()) {
+            result = Math.max(result, getRelativeHalfWidth(metric));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        var result = new StringBuilder(String.format("Summary of %d replications, %d failed (mean +/- 95%% CI half-width):",
+                numberOfReplications, numberOfFailedReplications));
+        for (var metric : ReplicationRunner.Metric.values()) {
+            result.append(String.format(" %s=%.2f+/-%.2f", metric, getMean(metric), getHalfWidth(metric)));
+        }
+        return result.toString();
+    }
+}
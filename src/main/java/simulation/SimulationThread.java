@@ -1,26 +1,76 @@
 package simulation;
 
+import utils.Logger;
 import world.World;
-import entities.Entity;
 import entities.Headquarters;
-import entities.IAgent;
 import entities.Patrol;
+import world.WorldConfiguration;
 
-import java.util.stream.Collectors;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.function.Consumer;
 
 public class SimulationThread extends Thread {
 
+    // restores the state of a simulation which is continued, null - a new simulation is started
+    private final Restorer restorer;
+    private final String origin;
+    private TickEngine tickEngine;
+    private double achievedSimulationSpeed = 0;
+
+    public SimulationThread() {
+        this.restorer = null;
+        this.origin = null;
+    }
+
+    // continues the simulation saved in the checkpoint, 'customization' is applied to the restored configuration
+    public SimulationThread(File checkpointFile, Consumer<WorldConfiguration> customization) {
+        this(() -> Checkpoint.restore(checkpointFile, customization), checkpointFile.getPath());
+    }
+
+    // continues the simulation restored by 'restorer' into the world of the current context, 'origin' describes its state in the log
+    SimulationThread(Restorer restorer, String origin) {
+        this.restorer = restorer;
+        this.origin = origin;
+    }
+
     @Override
     public void run() {
         var world = World.getInstance();
-        World.getInstance().simulationStart();
+        if (restorer == null) {
+            startNewSimulation(world);
+            tickEngine = new TickEngine();
+        } else {
+            try {
+                tickEngine = restorer.restore();
+            } catch (IOException e) {
+                e.printStackTrace();
+                Logger.getInstance().logNewOtherMessage("Unable to resume the simulation from " + origin + ": " + e.getMessage());
+                return;
+            }
+            Logger.getInstance().logNewOtherMessage(String.format("Simulation has been resumed from %s at %.0f simulated seconds.",
+                    origin, world.getSimulationTime()));
+        }
+
+        var checkpointer = new Checkpointer(tickEngine);
+        var wallStartTime = System.nanoTime();
+        runTicks(world, checkpointer);
+        checkpointer.shutdown();
+        tickEngine.shutdown();
+        logSummary(world, (System.nanoTime() - wallStartTime) / Math.pow(10, 9));
+    }
+
+    private void startNewSimulation(World world) {
+        world.simulationStart();
 
+        var hq = world.getHeadquarters().getFirst();
+        var newPatrols = new ArrayList<Patrol>();
         for (int i = 0; i < world.getConfig().getNumberOfPolicePatrols(); i++) {
-            var hq = world.getAllEntities().stream().filter(Headquarters.class::isInstance).findFirst().orElse(null);
             if (hq != null) {
                 var newPatrol = new Patrol(hq.getPosition());
                 newPatrol.setState(Patrol.State.PATROLLING);
-                world.addEntity(newPatrol);
+                newPatrols.add(newPatrol);
             } else {
                 try {
                     throw new IllegalStateException("HQ location is not defined");
@@ -29,45 +79,94 @@ public class SimulationThread extends Thread {
                 }
             }
         }
+        world.addEntities(newPatrols);
+        // every headquarters sends out its own shifts
+        world.getHeadquarters().forEach(Headquarters::scheduleShiftChanges);
+    }
+
+    private void runTicks(World world, Checkpointer checkpointer) {
+        var statistics = world.getWorkerStatistics("Simulation thread");
+        var virtualClock = world.getConfig().isVirtualClock();
+        // wall time of a single tick, so that 'timeRate' simulated seconds pass in one second
+        var tickPeriodNanos = (long) (tickEngine.getTimeStep() * Math.pow(10, 9) / world.getConfig().getTimeRate());
+        var nextTickTime = System.nanoTime();
 
         while (!world.hasSimulationDurationElapsed()) {
-            if (!world.isSimulationPaused()) {
+            if (world.isSimulationPaused()) {
+                var pauseStart = System.nanoTime();
                 try {
-                    hqAssignTasks();
-                    updateStatesOfAgents();
-                    performAgentsActions();
-                } catch (Exception e) {
+                    world.awaitSimulationResumed();
+                } catch (InterruptedException e) {
                     e.printStackTrace();
+                    Thread.currentThread().interrupt();
+                    return;
                 }
+                statistics.addPausedTime(System.nanoTime() - pauseStart);
+                nextTickTime = System.nanoTime();
+                continue;
             }
 
-            try {
-                sleep(40);
-            } catch (Exception e) {
-                e.printStackTrace();
-                Thread.currentThread().interrupt();
+            var tickStart = System.nanoTime();
+            if (!virtualClock) {
+                statistics.addLag(Math.max(0, tickStart - nextTickTime));
+            }
+            tickEngine.tick();
+            checkpointer.saveIfDue();
+            statistics.addBusyTime(System.nanoTime() - tickStart);
+
+            // without the virtual clock, the next tick waits for the wall clock (if the simulation is late, it is not made up for)
+            if (!virtualClock) {
+                nextTickTime = Math.max(nextTickTime + tickPeriodNanos, System.nanoTime() - tickPeriodNanos);
+                var idleStart = System.nanoTime();
+                sleepNanos(nextTickTime - idleStart);
+                statistics.addIdleTime(System.nanoTime() - idleStart);
             }
         }
     }
 
-    private void hqAssignTasks() {
-        var allHQs = World.getInstance().getAllEntities().stream().filter(Headquarters.class::isInstance).map(Headquarters.class::cast).collect(Collectors.toList());
-        for (var hqs : allHQs) {
-            hqs.assignTasks();
+    private void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
         }
     }
 
-    private void updateStatesOfAgents() {
-        var allAgents = World.getInstance().getAllEntities().stream().filter(IAgent.class::isInstance).collect(Collectors.toList());
-        for (Entity agents : allAgents) {
-            ((IAgent) agents).updateStateSelf();
+    private void logSummary(World world, double wallSeconds) {
+        achievedSimulationSpeed = world.getSimulationTime() / wallSeconds;
+        Logger.getInstance().logNewOtherMessage(String.format("Simulation has finished: %.0f simulated seconds in %.2f seconds (%.1f simulated seconds per second).",
+                world.getSimulationTime(), wallSeconds, achievedSimulationSpeed));
+
+        var phaseTimes = new StringBuilder("Average time of tick phases [ms]:");
+        for (var phase : TickEngine.Phase.values()) {
+            phaseTimes.append(String.format(" %s=%.3f", phase, tickEngine.getAveragePhaseTimeMillis(phase)));
         }
-    }
+        Logger.getInstance().logNewOtherMessage(phaseTimes.toString());
+        Logger.getInstance().logNewOtherMessage(String.format("Average number of agents updated in a tick: %.1f of %.1f.",
+                tickEngine.getAverageNumberOfActiveAgents(), tickEngine.getAverageNumberOfAgents()));
 
-    private void performAgentsActions() {
-        var allAgents = World.getInstance().getAllEntities().stream().filter(IAgent.class::isInstance).collect(Collectors.toList());
-        for (Entity agents : allAgents) {
-            ((IAgent) agents).performAction();
+        for (var statistics : world.getAllWorkerStatistics()) {
+            Logger.getInstance().logNewOtherMessage(statistics.toString());
         }
+        // with the virtual clock the paths are calculated on the simulation thread
+        if (!world.getConfig().isVirtualClock()) {
+            Logger.getInstance().logNewOtherMessage(PathCalculationExecutor.getInstance().toString());
+        }
+    }
+
+    public TickEngine getTickEngine() {
+        return tickEngine;
+    }
+
+    public double getAchievedSimulationSpeed() {
+        return achievedSimulationSpeed;
+    }
+
+    interface Restorer {
+        TickEngine restore() throws IOException;
     }
 }
@@ -1,5 +1,9 @@
 package simulation;
 
+import world.SimulationContext;
+
+import java.io.IOException;
+
 public class StatisticsCounter {
 
     private StatisticsCounter() {
@@ -9,6 +13,11 @@ public class StatisticsCounter {
     private static StatisticsCounter instance;
 
     public static StatisticsCounter getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(StatisticsCounter.class, StatisticsCounter::new);
+        }
+
         // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
         var result = instance;
         if (instance != null) {
@@ -38,6 +47,24 @@ public class StatisticsCounter {
         this.numberOfNeutralizedPatrols = 0;
     }
 
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeInt(numberOfPatrols);
+        out.writeInt(numberOfInterventions);
+        out.writeInt(numberOfFirings);
+        out.writeInt(numberOfSolvedInterventions);
+        out.writeInt(numberOfSolvedFirings);
+        out.writeInt(numberOfNeutralizedPatrols);
+    }
+
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        this.numberOfPatrols = in.readInt();
+        this.numberOfInterventions = in.readInt();
+        this.numberOfFirings = in.readInt();
+        this.numberOfSolvedInterventions = in.readInt();
+        this.numberOfSolvedFirings = in.readInt();
+        this.numberOfNeutralizedPatrols = in.readInt();
+    }
+
     public void increaseNumberOfPatrols() {
         this.numberOfPatrols++;
     }
@@ -0,0 +1,76 @@
+package simulation;
+
+import entities.District;
+import world.WorldConfiguration;
+
+import java.util.function.BiConsumer;
+
+/**
+ * A single parameter of the configuration varied by the parameter sweep, together with its range.
+ */
+public class SweepParameter {
+
+    private final String name;
+    private final double minimumValue;
+    private final double maximumValue;
+    private final boolean isInteger;
+    private final BiConsumer<WorldConfiguration, Double> setter;
+
+    public SweepParameter(String name, double minimumValue, double maximumValue, boolean isInteger, BiConsumer<WorldConfiguration, Double> setter) {
+        if (minimumValue > maximumValue) {
+            throw new IllegalArgumentException("Minimum value of " + name + " is greater than maximum value");
+        }
+        this.name = name;
+        this.minimumValue = minimumValue;
+        this.maximumValue = maximumValue;
+        this.isInteger = isInteger;
+        this.setter = setter;
+    }
+
+    public static SweepParameter numberOfPolicePatrols(int minimumValue, int maximumValue) {
+        return new SweepParameter("numberOfPolicePatrols", minimumValue, maximumValue, true, (config, value) -> config.setNumberOfPolicePatrols(value.intValue()));
+    }
+
+    public static SweepParameter basicSearchDistance(double minimumValue, double maximumValue) {
+        return new SweepParameter("basicSearchDistance", minimumValue, maximumValue, false, WorldConfiguration::setBasicSearchDistance);
+    }
+
+    public static SweepParameter basePatrollingSpeed(int minimumValue, int maximumValue) {
+        return new SweepParameter("basePatrollingSpeed", minimumValue, maximumValue, true, (config, value) -> config.setBasePatrollingSpeed(value.intValue()));
+    }
+
+    public static SweepParameter baseTransferSpeed(int minimumValue, int maximumValue) {
+        return new SweepParameter("baseTransferSpeed", minimumValue, maximumValue, true, (config, value) -> config.setBaseTransferSpeed(value.intValue()));
+    }
+
+    public static SweepParameter basePrivilegedSpeed(int minimumValue, int maximumValue) {
+        return new SweepParameter("basePrivilegedSpeed", minimumValue, maximumValue, true, (config, value) -> config.setBasePrivilegedSpeed(value.intValue()));
+    }
+
+    public static SweepParameter maxIncidentsForThreatLevel(District.ThreatLevelEnum threatLevel, int minimumValue, int maximumValue) {
+        return new SweepParameter("maxIncidents" + threatLevel, minimumValue, maximumValue, true,
+                (config, value) -> config.setMaxIncidentsForThreatLevel(threatLevel, value.intValue()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getMinimumValue() {
+        return minimumValue;
+    }
+
+    public double getMaximumValue() {
+        return maximumValue;
+    }
+
+    // maps a fraction of the range (0 - minimum, 1 - maximum) to the value of the parameter
+    public double valueAt(double fraction) {
+        var value = minimumValue + (maximumValue - minimumValue) * fraction;
+        return isInteger ? Math.round(value) : value;
+    }
+
+    public void apply(WorldConfiguration config, double value) {
+        setter.accept(config, value);
+    }
+}
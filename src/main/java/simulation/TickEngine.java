@@ -0,0 +1,241 @@
+package simulation;
+
+import csv_export.ExportSimulationAndDistrictDetails;
+import entities.Headquarters;
+import entities.IAgent;
+import world.SimulationContext;
+import world.World;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Advances the whole simulation in ticks of a fixed simulated length. Every tick runs the phases in the order
+ * in which they are declared, so the state of the world does not depend on how the threads were scheduled.
+ * Agents are updated in two steps: first every agent plans its step (in parallel, if configured), changing only itself,
+ * then the effects on shared objects are applied on the simulation thread in the order of the agents.
+ */
+public class TickEngine {
+
+    // values() returns a new array on every call
+    private static final Phase[] PHASES = Phase.values();
+    private final World world = World.getInstance();
+    private final EventsDirector eventsDirector = new EventsDirector();
+    private final EventUpdater eventUpdater = new EventUpdater();
+    private final ExportSimulationAndDistrictDetails exportDetails = new ExportSimulationAndDistrictDetails();
+    private final double timeStep = world.getConfig().getSimulationTimeStep();
+    private final long[] phaseNanos = new long[PHASES.length];
+    private final long[] phaseAllocatedBytes = new long[PHASES.length];
+    private final SimulationContext context = SimulationContext.current();
+    private final ForkJoinPool agentUpdatePool;
+    // agents updated in the current tick, the others are waiting for their wake-up time (the list is reused in every tick)
+    private final List<IAgent> activeAgents = new ArrayList<>();
+    // null - allocations are not measured
+    private com.sun.management.ThreadMXBean allocationMeter;
+    private long totalActiveAgents = 0;
+    private long totalRegisteredAgents = 0;
+    private long numberOfTicks = 0;
+
+    public TickEngine() {
+        var parallelism = world.getConfig().getAgentUpdateParallelism();
+        agentUpdatePool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public void tick() {
+        for (var phase : PHASES) {
+            var phaseStart = System.nanoTime();
+            var allocatedBefore = allocationMeter != null ? allocationMeter.getCurrentThreadAllocatedBytes() : 0;
+            try {
+                runPhase(phase);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            phaseNanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+            if (allocationMeter != null) {
+                phaseAllocatedBytes[phase.ordinal()] += allocationMeter.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            }
+        }
+        world.advanceSimulationTime(timeStep);
+        numberOfTicks++;
+    }
+
+    private void runPhase(Phase phase) {
+        switch (phase) {
+            case SPAWN -> {
+                EventScheduler.getInstance().runDueEvents();
+                eventsDirector.generateEventsIfDue();
+            }
+            case INCIDENT_UPDATE -> eventUpdater.updateEvents();
+            case HQ_DISPATCH -> hqAssignTasks();
+            case AGENT_STATE_UPDATE -> updateStatesOfAgents();
+            case AGENT_MOVEMENT -> performAgentsActions();
+            case EXPORT_SAMPLING -> exportDetails.exportDetailsIfDue();
+            default -> throw new IllegalStateException("Unknown phase " + phase);
+        }
+    }
+
+    public void shutdown() {
+        if (agentUpdatePool != null) {
+            agentUpdatePool.shutdown();
+        }
+    }
+
+    // state of the engine itself, the world and the singletons are saved separately (timings are measured anew after resuming)
+    void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeInt(eventsDirector.getEventSpawnCounter());
+        out.writeInt(exportDetails.getExportCounter());
+    }
+
+    void readCheckpoint(CheckpointInput in) throws IOException {
+        eventsDirector.setEventSpawnCounter(in.readInt());
+        exportDetails.setExportCounter(in.readInt());
+    }
+
+    public double getTimeStep() {
+        return timeStep;
+    }
+
+    public long getNumberOfTicks() {
+        return numberOfTicks;
+    }
+
+    public double getTotalPhaseTimeMillis(Phase phase) {
+        return phaseNanos[phase.ordinal()] / Math.pow(10, 6);
+    }
+
+    public double getAveragePhaseTimeMillis(Phase phase) {
+        return numberOfTicks == 0 ? 0 : getTotalPhaseTimeMillis(phase) / numberOfTicks;
+    }
+
+    public double getAverageNumberOfActiveAgents() {
+        return numberOfTicks == 0 ? 0 : (double) totalActiveAgents / numberOfTicks;
+    }
+
+    public double getAverageNumberOfAgents() {
+        return numberOfTicks == 0 ? 0 : (double) totalRegisteredAgents / numberOfTicks;
+    }
+
+    /**
+     * Turns on measuring the memory allocated in every phase (by the calling thread, so with agent update parallelism
+     * the allocations of the agents planning their steps on the pool are not counted).
+     */
+    public void setAllocationTracking(boolean isAllocationTracked) {
+        if (!isAllocationTracked) {
+            allocationMeter = null;
+            return;
+        }
+        var threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean) || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("Measuring allocated memory is not supported by this JVM");
+        }
+        allocationMeter = (com.sun.management.ThreadMXBean) threadBean;
+        allocationMeter.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // bytes allocated in the phase in all ticks since allocation tracking has been turned on
+    public long getTotalPhaseAllocatedBytes(Phase phase) {
+        return phaseAllocatedBytes[phase.ordinal()];
+    }
+
+    public EnumMap<Phase, Double> getAveragePhaseTimesMillis() {
+        var result = new EnumMap<Phase, Double>(Phase.class);
+        for (var phase : PHASES) {
+            result.put(phase, getAveragePhaseTimeMillis(phase));
+        }
+        return result;
+    }
+
+    private void hqAssignTasks() {
+        world.getHeadquarters().forEach(Headquarters::assignTasks);
+    }
+
+    private void updateStatesOfAgents() {
+        world.getAgentActivity().collectAwake(world.getSimulationTime(), activeAgents);
+        totalActiveAgents += activeAgents.size();
+        totalRegisteredAgents += world.getAgentActivity().getNumberOfRegistered();
+        updateAgents(activeAgents, IAgent::updateStateSelf);
+    }
+
+    private void performAgentsActions() {
+        updateAgents(activeAgents, IAgent::performAction);
+        world.updatePositions(activeAgents);
+
+        var simulationTime = world.getSimulationTime();
+        // indexed loops, as an iterator would be allocated for every agent list in every tick
+        for (int i = 0; i < activeAgents.size(); i++) {
+            var agent = activeAgents.get(i);
+            world.getAgentActivity().sleepUntil(agent, agent.getNextWakeUpTime(), simulationTime);
+        }
+    }
+
+    private void updateAgents(List<IAgent> allAgents, Consumer<IAgent> step) {
+        for (int i = 0; i < allAgents.size(); i++) {
+            allAgents.get(i).getDeferredEffects().startDeferring();
+        }
+
+        // plan
+        if (agentUpdatePool == null) {
+            planSteps(allAgents, step);
+        } else {
+            agentUpdatePool.invoke(new PlanStepsTask(allAgents, 0, allAgents.size(), step));
+        }
+
+        // apply
+        for (int i = 0; i < allAgents.size(); i++) {
+            allAgents.get(i).getDeferredEffects().applyAll();
+        }
+    }
+
+    private static void planSteps(List<IAgent> agents, Consumer<IAgent> step) {
+        for (int i = 0; i < agents.size(); i++) {
+            try {
+                step.accept(agents.get(i));
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private class PlanStepsTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 16;
+        private final transient List<IAgent> agents;
+        private final int from;
+        private final int to;
+        private final transient Consumer<IAgent> step;
+
+        private PlanStepsTask(List<IAgent> agents, int from, int to, Consumer<IAgent> step) {
+            this.agents = agents;
+            this.from = from;
+            this.to = to;
+            this.step = step;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                // threads of the pool do not inherit the context of the simulation they work for
+                SimulationContext.runWithin(context, () -> planSteps(agents.subList(from, to), step));
+            } else {
+                var middle = (from + to) >>> 1;
+                invokeAll(new PlanStepsTask(agents, from, middle, step), new PlanStepsTask(agents, middle, to, step));
+            }
+        }
+    }
+
+    public enum Phase {
+        SPAWN,
+        INCIDENT_UPDATE,
+        HQ_DISPATCH,
+        AGENT_STATE_UPDATE,
+        AGENT_MOVEMENT,
+        EXPORT_SAMPLING
+    }
+}
@@ -0,0 +1,171 @@
+package simulation;
+
+import csv_export.ExportWhatIfAnalysis;
+import entities.District;
+import entities.Map;
+import entities.Patrol;
+import utils.Logger;
+import world.SimulationContext;
+import world.World;
+import world.WorldConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Explores alternatives from one moment of a simulation. The state is captured once (or read from a checkpoint) and restored
+ * into several branches, each in its own SimulationContext, which run in parallel to a common horizon. All branches continue
+ * with the same random numbers, so the differences between them come from their changes. The branches share the read-only
+ * graph and nodes of the map, only the districts, whose threat levels may be changed, are copied for each of them.
+ */
+public class WhatIfAnalysis {
+
+    private final byte[] state;
+    private final Map map;
+    private final String origin;
+    private final int numberOfThreads;
+
+    private WhatIfAnalysis(byte[] state, Map map, String origin, int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.state = state;
+        this.map = map;
+        this.origin = origin;
+        this.numberOfThreads = numberOfThreads;
+    }
+
+    // must be called by the simulation thread between ticks, or while the simulation is paused
+    public static WhatIfAnalysis fork(TickEngine tickEngine, int numberOfThreads) throws IOException {
+        var world = World.getInstance();
+        var state = Checkpoint.capture(tickEngine, null);
+        return new WhatIfAnalysis(state, world.getMap(), String.format("fork at %d simulated seconds", world.getSimulationTimeLong()), numberOfThreads);
+    }
+
+    public static WhatIfAnalysis fromCheckpoint(File file, int numberOfThreads) throws IOException {
+        var state = Checkpoint.readFile(file);
+        return new WhatIfAnalysis(state, Checkpoint.readMap(file, state), file.getPath(), numberOfThreads);
+    }
+
+    /**
+     * Runs every branch for 'horizon' simulated seconds after the fork and returns the results of all branches, in the order
+     * of 'branches'. Branches which have failed are kept in the results, marked as failed. The first branch is the one
+     * the others are compared to in the export.
+     */
+    public List<WhatIfResult> run(List<Branch> branches, long horizon) {
+        if (horizon <= 0) {
+            throw new IllegalArgumentException("Horizon must be positive");
+        }
+        var executor = Executors.newFixedThreadPool(Math.min(numberOfThreads, branches.size()));
+        var futures = new ArrayList<Future<WhatIfResult>>();
+        for (var branch : branches) {
+            futures.add(executor.submit(createBranchRun(branch, horizon)));
+        }
+
+        var results = new ArrayList<WhatIfResult>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                var branchName = branches.get(i).getName();
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(WhatIfResult.failed(branchName));
+                    Logger.getInstance().logNewOtherMessage(String.format("What-if branch %s has failed: %s", branchName, e.getCause()));
+                    e.printStackTrace();
+                }
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (var result : results) {
+            Logger.getInstance().logNewOtherMessage(result.toString());
+        }
+        new ExportWhatIfAnalysis().export(results, horizon);
+        return results;
+    }
+
+    private Callable<WhatIfResult> createBranchRun(Branch branch, long horizon) {
+        return () -> {
+            var context = new SimulationContext("what-if-" + branch.getName());
+            context.bind();
+            try {
+                var tickEngine = Checkpoint.restore(state, map.copyWithOwnDistricts(), config -> {
+                    config.setVirtualClock(true);
+                    config.setCheckpointInterval(0);
+                    branch.configurationChange.accept(config);
+                });
+                var world = World.getInstance();
+                var metricsAtFork = ReplicationRunner.collectMetrics();
+                world.getConfig().setSimulationDuration(world.getSimulationTimeLong() + horizon);
+                branch.worldChange.accept(world);
+
+                // run on the calling thread, so the branch stays in its context
+                new SimulationThread(() -> tickEngine, origin).run();
+                return new WhatIfResult(branch.getName(), metricsAtFork, ReplicationRunner.collectMetrics());
+            } finally {
+                context.unbind();
+            }
+        };
+    }
+
+    // change of a branch which adds 'numberOfPatrols' patrols at the headquarters
+    public static Consumer<World> addPatrols(int numberOfPatrols) {
+        return world -> {
+            var hq = world.getHeadquarters().getFirst();
+            if (hq == null) {
+                throw new IllegalStateException("HQ location is not defined");
+            }
+            var newPatrols = new ArrayList<Patrol>();
+            for (int i = 0; i < numberOfPatrols; i++) {
+                var newPatrol = new Patrol(hq.getPosition());
+                newPatrol.setState(Patrol.State.PATROLLING);
+                newPatrols.add(newPatrol);
+            }
+            world.addEntities(newPatrols);
+        };
+    }
+
+    // change of a branch which sets the threat level of the district named 'districtName'
+    public static Consumer<World> setThreatLevel(String districtName, District.ThreatLevelEnum threatLevel) {
+        return world -> world.getDistricts().stream().filter(district -> districtName.equals(district.getName())).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("District " + districtName + " does not exist"))
+                .setThreatLevel(threatLevel);
+    }
+
+    /**
+     * Alternative explored from the fork. 'configurationChange' is applied to the restored configuration before the simulation
+     * is continued, 'worldChange' - to the restored world (e.g. to add patrols or change the threat level of a district).
+     */
+    public static class Branch {
+
+        private final String name;
+        private final Consumer<WorldConfiguration> configurationChange;
+        private final Consumer<World> worldChange;
+
+        public Branch(String name, Consumer<WorldConfiguration> configurationChange, Consumer<World> worldChange) {
+            this.name = name;
+            this.configurationChange = configurationChange;
+            this.worldChange = worldChange;
+        }
+
+        public Branch(String name, Consumer<World> worldChange) {
+            this(name, config -> {
+            }, worldChange);
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package simulation;
+
+import java.util.EnumMap;
+
+/**
+ * Statistics of a branch of a what-if analysis at the fork and at the horizon. A branch which has failed has no statistics.
+ */
+public class WhatIfResult {
+
+    private final String branchName;
+    // null if the branch has failed
+    private final EnumMap<ReplicationRunner.Metric, Double> metricsAtFork;
+    private final EnumMap<ReplicationRunner.Metric, Double> metricsAtHorizon;
+
+    public WhatIfResult(String branchName, EnumMap<ReplicationRunner.Metric, Double> metricsAtFork, EnumMap<ReplicationRunner.Metric, Double> metricsAtHorizon) {
+        this.branchName = branchName;
+        this.metricsAtFork = metricsAtFork;
+        this.metricsAtHorizon = metricsAtHorizon;
+    }
+
+    static WhatIfResult failed(String branchName) {
+        return new WhatIfResult(branchName, null, null);
+    }
+
+    public String getBranchName() {
+        return branchName;
+    }
+
+    public boolean isFailed() {
+        return metricsAtHorizon == null;
+    }
+
+    // NaN if the branch has failed
+    public double getValueAtFork(ReplicationRunner.Metric metric) {
+        return metricsAtFork == null ? Double.NaN : metricsAtFork.get(metric);
+    }
+
+    public double getValueAtHorizon(ReplicationRunner.Metric metric) {
+        return metricsAtHorizon == null ? Double.NaN : metricsAtHorizon.get(metric);
+    }
+
+    // change of the metric between the fork and the horizon
+    public double getChange(ReplicationRunner.Metric metric) {
+        return getValueAtHorizon(metric) - getValueAtFork(metric);
+    }
+
+    @Override
+    public String toString() {
+        if (isFailed()) {
+            return String.format("What-if branch %s has failed.", branchName);
+        }
+        var result = new StringBuilder(String.format("What-if branch %s (change from the fork to the horizon):", branchName));
+        for (var metric : ReplicationRunner.Metric.values()) {
+            result.append(String.format(" %s=%+.0f", metric, getChange(metric)));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package simulation;
+
+/**
+ * Accounting of how a simulation worker thread spends its time: working, waiting for the wall clock,
+ * parked while the simulation is paused, and how late it started its work compared to the schedule.
+ */
+public class WorkerStatistics {
+
+    private final String workerName;
+    private long busyNanos = 0;
+    private long idleNanos = 0;
+    private long pausedNanos = 0;
+    private long totalLagNanos = 0;
+    private long maxLagNanos = 0;
+    private long numberOfCycles = 0;
+
+    public WorkerStatistics(String workerName) {
+        this.workerName = workerName;
+    }
+
+    public String getWorkerName() {
+        return workerName;
+    }
+
+    public synchronized void addBusyTime(long nanos) {
+        busyNanos += nanos;
+        numberOfCycles++;
+    }
+
+    public synchronized void addIdleTime(long nanos) {
+        idleNanos += nanos;
+    }
+
+    public synchronized void addPausedTime(long nanos) {
+        pausedNanos += nanos;
+    }
+
+    public synchronized void addLag(long nanos) {
+        totalLagNanos += nanos;
+        maxLagNanos = Math.max(maxLagNanos, nanos);
+    }
+
+    // the threads of the previous run keep their statistics objects, so they are cleared instead of replaced
+    public synchronized void reset() {
+        busyNanos = 0;
+        idleNanos = 0;
+        pausedNanos = 0;
+        totalLagNanos = 0;
+        maxLagNanos = 0;
+        numberOfCycles = 0;
+    }
+
+    public synchronized double getBusySeconds() {
+        return busyNanos / Math.pow(10, 9);
+    }
+
+    public synchronized double getIdleSeconds() {
+        return idleNanos / Math.pow(10, 9);
+    }
+
+    public synchronized double getPausedSeconds() {
+        return pausedNanos / Math.pow(10, 9);
+    }
+
+    public synchronized double getAverageLagMillis() {
+        return numberOfCycles == 0 ? 0 : totalLagNanos / Math.pow(10, 6) / numberOfCycles;
+    }
+
+    public synchronized double getMaxLagMillis() {
+        return maxLagNanos / Math.pow(10, 6);
+    }
+
+    public synchronized long getNumberOfCycles() {
+        return numberOfCycles;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: busy %.2f s, idle %.2f s, paused %.2f s, average lag %.3f ms, max lag %.3f ms",
+                workerName, getBusySeconds(), getIdleSeconds(), getPausedSeconds(), getAverageLagMillis(), getMaxLagMillis());
+    }
+}
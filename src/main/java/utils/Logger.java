@@ -3,6 +3,7 @@ package utils;
 import csv_export.ExportChangingStateDetails;
 import entities.Patrol;
 import gui_components.LoggerPanel;
+import world.SimulationContext;
 import world.World;
 
 import java.io.File;
@@ -24,12 +25,13 @@ public class Logger {
     private final DateTimeFormatter dateFormat = new DateTimeFormatterBuilder().appendPattern("dd-MM-yyyy_HH-mm-ss").toFormatter();
 
     private Logger() {
-        File logsDirectory = new File(LOGS_DIRECTORY_PATH);
+        var logsDirectoryPath = SimulationContext.resolveDirectory(LOGS_DIRECTORY_PATH);
+        File logsDirectory = new File(logsDirectoryPath);
         if (!(logsDirectory.exists() && logsDirectory.isDirectory())) {
-            logsDirectory.mkdir();
+            logsDirectory.mkdirs();
         }
 
-        logFile = new File(LOGS_DIRECTORY_PATH, dateFormat.format(LocalDateTime.now()) + ".log");
+        logFile = new File(logsDirectoryPath, dateFormat.format(LocalDateTime.now()) + ".log");
         try {
             if (!logFile.createNewFile()) {
                 throw new IOException("Unable to create file");
@@ -40,6 +42,11 @@ public class Logger {
     }
 
     public static Logger getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(Logger.class, Logger::new);
+        }
+
         // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
         var result = instance;
         if (instance != null) {
@@ -66,10 +73,14 @@ public class Logger {
     }
 
     public void logNewMessageChangingState(Patrol patrol, String previousState, String currentState) {
+        logNewMessageChangingState(patrol, patrol.getAction(), previousState, currentState);
+    }
+
+    public void logNewMessageChangingState(Patrol patrol, Patrol.Action action, String previousState, String currentState) {
         ExportChangingStateDetails.getInstance().writeToCsvFile(patrol, previousState, currentState);
         String message;
-        if (patrol.getAction() != null) {
-            message = patrol + " state set from " + previousState + " to " + currentState + "; action: " + patrol.getAction().getClass().toString() + "; target: " + patrol.getAction().getTarget().toString();
+        if (action != null) {
+            message = patrol + " state set from " + previousState + " to " + currentState + "; action: " + action.getClass().toString() + "; target: " + action.getTarget().toString();
         } else {
             message = patrol + " state set from " + previousState + " to " + currentState;
         }
@@ -0,0 +1,60 @@
+package world;
+
+import entities.Entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Entities of one type in the world, in the order in which they have been added, kept up to date by World.addEntity
+ * and World.removeEntity. The registry is read without copying, so it may only be used by the simulation thread
+ * (or by agents planning their steps, as the world does not change then). Other threads use World.getAllEntities.
+ */
+public class EntityRegistry<T extends Entity> {
+
+    private final List<T> entities = new ArrayList<>();
+    private final List<T> view = Collections.unmodifiableList(entities);
+
+    void add(T entity) {
+        entities.add(entity);
+    }
+
+    void remove(T entity) {
+        entities.remove(entity);
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    public boolean isEmpty() {
+        return entities.isEmpty();
+    }
+
+    public T get(int index) {
+        return entities.get(index);
+    }
+
+    // the first entity added (e.g. the headquarters), null if there is none
+    public T getFirst() {
+        return entities.isEmpty() ? null : entities.get(0);
+    }
+
+    // read-only list which follows the changes of the registry
+    public List<T> asList() {
+        return view;
+    }
+
+    public List<T> copy() {
+        return new ArrayList<>(entities);
+    }
+
+    // the action must not add or remove entities of this type
+    public void forEach(Consumer<? super T> action) {
+        for (int i = 0; i < entities.size(); i++) {
+            action.accept(entities.get(i));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package world;
+
+import entities.Entity;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * All entities of the world, in the order in which they have been added. The entities are kept in an array of slots in that
+ * order, and the slot of each entity is found through a hash map from the entity to the index of its slot: an entity is
+ * added at the end and removed by clearing its slot, so both take constant time, and the array is compacted (and the indices
+ * in the map updated) when it is full of cleared slots. Changes are serialized, but reading does not block: iterators go over the slots
+ * without copying them and are weakly consistent, like the iterators of java.util.concurrent collections - they never throw
+ * ConcurrentModificationException and return every entity which has been in the store for the whole iteration.
+ */
+public class EntityStore extends AbstractCollection<Entity> {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private final ConcurrentHashMap<Entity, Integer> slots = new ConcurrentHashMap<>();
+    // replaced by a new array when compacted or grown, so iterators which have started go on over the old one
+    private volatile Slots current = new Slots(INITIAL_CAPACITY);
+    private volatile int size = 0;
+
+    @Override
+    public boolean add(Entity entity) {
+        synchronized (slots) {
+            return append(entity);
+        }
+    }
+
+    @Override
+    public boolean remove(Object object) {
+        if (!(object instanceof Entity)) {
+            return false;
+        }
+        synchronized (slots) {
+            return clear((Entity) object);
+        }
+    }
+
+    // adds the entities in their order, holding the lock once
+    @Override
+    public boolean addAll(Collection<? extends Entity> entities) {
+        var changed = false;
+        synchronized (slots) {
+            for (var entity : entities) {
+                changed |= append(entity);
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> entities) {
+        var changed = false;
+        synchronized (slots) {
+            for (var entity : entities) {
+                changed |= entity instanceof Entity && clear((Entity) entity);
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (slots) {
+            slots.clear();
+            current = new Slots(INITIAL_CAPACITY);
+            size = 0;
+        }
+    }
+
+    private boolean append(Entity entity) {
+        if (slots.containsKey(entity)) {
+            return false;
+        }
+        var array = current;
+        if (array.end == array.entities.length) {
+            array = reallocate(array);
+        }
+        var slot = array.end;
+        array.entities[slot] = entity;
+        // publishes the entity to the readers
+        array.end = slot + 1;
+        slots.put(entity, slot);
+        size++;
+        return true;
+    }
+
+    private boolean clear(Entity entity) {
+        var slot = slots.get(entity);
+        var array = current;
+        if (slot == null || array.entities[slot] != entity) {
+            return false;
+        }
+        slots.remove(entity);
+        array.entities[slot] = null;
+        size--;
+        return true;
+    }
+
+    // copies the entities to a new array without cleared slots, twice as large if they take more than half of it
+    private Slots reallocate(Slots array) {
+        var capacity = array.entities.length;
+        var reallocated = new Slots(size > capacity / 2 ? capacity * 2 : capacity);
+        var end = 0;
+        for (int i = 0; i < array.end; i++) {
+            var entity = array.entities[i];
+            if (entity != null) {
+                reallocated.entities[end] = entity;
+                slots.put(entity, end);
+                end++;
+            }
+        }
+        reallocated.end = end;
+        current = reallocated;
+        return reallocated;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        if (!(object instanceof Entity)) {
+            return false;
+        }
+        var slot = slots.get(object);
+        return slot != null && current.entities[slot] == object;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Iterator<Entity> iterator() {
+        return new SlotIterator(current);
+    }
+
+    /**
+     * Slots are never used again once cleared (new entities are added at the end or to a new array), and an entity is put
+     * into its slot before 'end' is moved past it, so a reader which has read 'end' sees the entities in the slots before it
+     * without any further synchronization. It may still see an entity removed later, which is allowed for weak consistency.
+     */
+    private static final class Slots {
+
+        private final Entity[] entities;
+        // slots from 'end' on have never been used
+        private volatile int end = 0;
+
+        private Slots(int capacity) {
+            this.entities = new Entity[capacity];
+        }
+    }
+
+    private static final class SlotIterator implements Iterator<Entity> {
+
+        private final Entity[] entities;
+        // entities added later may be left out, so the end is read once instead of for every slot
+        private final int end;
+        private int slot = 0;
+        private Entity next;
+
+        private SlotIterator(Slots slots) {
+            this.end = slots.end;
+            this.entities = slots.entities;
+        }
+
+        @Override
+        public boolean hasNext() {
+            // the entity is kept, as its slot may be cleared before next() is called
+            while (next == null && slot < end) {
+                next = entities[slot++];
+            }
+            return next != null;
+        }
+
+        @Override
+        public Entity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var entity = next;
+            next = null;
+            return entity;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package world;
+
+import entities.Patrol;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Patrols of the world grouped by their state, so that the patrols in a state can be counted and found without looking
+ * at all of them. Patrols report changes of their state with World.updatePatrolState, which moves them to the right group.
+ * Like the entity registries, it is read without copying, so it may only be used by the simulation thread.
+ */
+public class PatrolStateIndex {
+
+    private final EnumMap<Patrol.State, Set<Patrol>> patrolsByState = new EnumMap<>(Patrol.State.class);
+    private final EnumMap<Patrol.State, Set<Patrol>> views = new EnumMap<>(Patrol.State.class);
+    // state under which every patrol of the world is indexed (null - a patrol without a state yet)
+    private final Map<Patrol, Patrol.State> indexedStates = new IdentityHashMap<>();
+
+    PatrolStateIndex() {
+        for (var state : Patrol.State.values()) {
+            var patrols = new LinkedHashSet<Patrol>();
+            patrolsByState.put(state, patrols);
+            views.put(state, Collections.unmodifiableSet(patrols));
+        }
+    }
+
+    void add(Patrol patrol) {
+        indexedStates.put(patrol, patrol.getState());
+        if (patrol.getState() != null) {
+            patrolsByState.get(patrol.getState()).add(patrol);
+        }
+    }
+
+    void remove(Patrol patrol) {
+        if (!indexedStates.containsKey(patrol)) {
+            return;
+        }
+        var state = indexedStates.remove(patrol);
+        if (state != null) {
+            patrolsByState.get(state).remove(patrol);
+        }
+    }
+
+    // moves the patrol to the group of its current state (patrols which are not in the world are ignored)
+    void update(Patrol patrol) {
+        if (!indexedStates.containsKey(patrol)) {
+            return;
+        }
+        var previousState = indexedStates.get(patrol);
+        var state = patrol.getState();
+        if (previousState != state) {
+            if (previousState != null) {
+                patrolsByState.get(previousState).remove(patrol);
+            }
+            if (state != null) {
+                patrolsByState.get(state).add(patrol);
+            }
+            indexedStates.put(patrol, state);
+        }
+    }
+
+    public int count(Patrol.State state) {
+        return patrolsByState.get(state).size();
+    }
+
+    public boolean isEmpty(Patrol.State state) {
+        return patrolsByState.get(state).isEmpty();
+    }
+
+    // read-only set which follows the changes of the index, in the order in which the patrols have got the state
+    public Set<Patrol> getPatrols(Patrol.State state) {
+        return views.get(state);
+    }
+}
@@ -0,0 +1,103 @@
+package world;
+
+import entities.Map;
+import entities.Patrol;
+
+import java.util.Arrays;
+
+/**
+ * Positions and states of the patrols of the world kept in parallel arrays, used when WorldConfiguration.isPatrolStoreEnabled
+ * (e.g. for runs with thousands of patrols). A patrol in the store is a view of its slot: it reads and writes its position
+ * in the arrays, so moving patrols write to them directly and scans over all patrols (like the counts of the exports) do not
+ * touch the patrol objects. The slots are kept dense - the slot of a removed patrol is taken by the last one.
+ * Like the entity registries, it may only be changed by the simulation thread; the positions of the patrols may still be read
+ * by other threads, as a patrol publishes its slot as a whole and takes its position back before leaving it.
+ */
+public class PatrolStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final byte NO_STATE = -1;
+    private Patrol[] patrols = new Patrol[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    // ordinals of the states of the patrols
+    private byte[] states = new byte[INITIAL_CAPACITY];
+    private int size = 0;
+
+    void add(Patrol patrol) {
+        if (size == patrols.length) {
+            var capacity = patrols.length * 2;
+            patrols = Arrays.copyOf(patrols, capacity);
+            latitudes = Arrays.copyOf(latitudes, capacity);
+            longitudes = Arrays.copyOf(longitudes, capacity);
+            states = Arrays.copyOf(states, capacity);
+        }
+        patrols[size] = patrol;
+        latitudes[size] = patrol.getLatitude();
+        longitudes[size] = patrol.getLongitude();
+        states[size] = toByte(patrol.getState());
+        patrol.setStoreSlot(this, size);
+        size++;
+    }
+
+    // patrols which are not in the store are ignored
+    void remove(Patrol patrol) {
+        if (!patrol.isInStore(this)) {
+            return;
+        }
+        var slot = patrol.getStoreSlot();
+        // the patrol takes its position back before its slot is reused
+        patrol.setStoreSlot(null, -1);
+        var last = size - 1;
+        if (slot != last) {
+            patrols[slot] = patrols[last];
+            latitudes[slot] = latitudes[last];
+            longitudes[slot] = longitudes[last];
+            states[slot] = states[last];
+            patrols[slot].setStoreSlot(this, slot);
+        }
+        patrols[last] = null;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getLatitude(int slot) {
+        return latitudes[slot];
+    }
+
+    public double getLongitude(int slot) {
+        return longitudes[slot];
+    }
+
+    public void setLatitude(int slot, double latitude) {
+        latitudes[slot] = latitude;
+    }
+
+    public void setLongitude(int slot, double longitude) {
+        longitudes[slot] = longitude;
+    }
+
+    public void setState(int slot, Patrol.State state) {
+        states[slot] = toByte(state);
+    }
+
+    /**
+     * Adds the patrols of the store to 'counts', indexed by the districts of the map and by the ordinals of the states (see
+     * World.countPatrolsByDistrict). The district of every patrol is looked up once.
+     */
+    public void countByDistrict(Map map, int[][] counts) {
+        for (int i = 0; i < size; i++) {
+            var district = map.getDistrictIndex(latitudes[i], longitudes[i]);
+            if (district != Map.NO_DISTRICT) {
+                counts[district][states[i] != NO_STATE ? states[i] : counts[district].length - 1]++;
+            }
+        }
+    }
+
+    private static byte toByte(Patrol.State state) {
+        return state == null ? NO_STATE : (byte) state.ordinal();
+    }
+}
@@ -0,0 +1,74 @@
+package world;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds the instances of all simulation-wide singletons (World, StatisticsCounter, Logger, exports...) of a single simulation,
+ * so that several simulations can run in one JVM. A context is bound to the thread running the simulation and is inherited
+ * by the threads it starts. Threads without a bound context use the process-wide instances.
+ */
+public class SimulationContext {
+
+    private static final InheritableThreadLocal<SimulationContext> currentContext = new InheritableThreadLocal<>();
+    private final java.util.Map<Class<?>, Object> instances = new HashMap<>();
+    private final String name;
+
+    public SimulationContext(String name) {
+        this.name = name;
+    }
+
+    public static SimulationContext current() {
+        return currentContext.get();
+    }
+
+    // directory for output files of the current simulation ('baseDirectory' itself when no context is bound)
+    public static String resolveDirectory(String baseDirectory) {
+        var context = current();
+        return context == null ? baseDirectory : baseDirectory + File.separator + context.getName();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void bind() {
+        currentContext.set(this);
+    }
+
+    public void unbind() {
+        if (currentContext.get() == this) {
+            currentContext.remove();
+        }
+    }
+
+    // runs the task with 'context' bound to the calling thread (null - the process-wide instances) and restores the previous one
+    public static void runWithin(SimulationContext context, Runnable task) {
+        var previousContext = currentContext.get();
+        setCurrent(context);
+        try {
+            task.run();
+        } finally {
+            setCurrent(previousContext);
+        }
+    }
+
+    private static void setCurrent(SimulationContext context) {
+        if (context == null) {
+            currentContext.remove();
+        } else {
+            currentContext.set(context);
+        }
+    }
+
+    public synchronized <T> T getOrCreate(Class<T> type, Supplier<T> factory) {
+        // computeIfAbsent is not used on purpose, as constructors of the singletons ask the context for other singletons
+        var instance = type.cast(instances.get(type));
+        if (instance == null) {
+            instance = factory.get();
+            instances.put(type, instance);
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,377 @@
+package world;
+
+import entities.Entity;
+import utils.Haversine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Uniform grid over the positions of entities, which answers radius queries by visiting only the cells overlapping the circle.
+ * Cells are about 'cellSize' meters wide. Entities are not told about the grid, so the positions of the ones which move have
+ * to be refreshed with update. Results are in the order in which the entities have been added, the same as a scan of all of them.
+ */
+public class SpatialGrid {
+
+    private static final double METERS_PER_DEGREE = 6371000 * Math.PI / 180;
+    private static final double BOUNDS_MARGIN = 1.000001;
+    // cells which have been occupied, emptied ones are kept so that entities moving between cells do not allocate
+    private final CellTable cells = new CellTable();
+    private final java.util.Map<Entity, Item> items = new IdentityHashMap<>();
+    private double cellSize;
+    private double cellHeight;
+    private double cellWidth;
+    private long nextSequenceNumber = 0;
+    private int numberOfOccupiedCells = 0;
+    // rows and columns of all cells which have been occupied since the cells were set up (the extent only grows)
+    private long minRow;
+    private long maxRow;
+    private long minColumn;
+    private long maxColumn;
+
+    // 'cellSize' - width of a cell in meters, best close to the usual search range
+    public SpatialGrid(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+    }
+
+    // changes the size of the cells and moves all entities to the new ones
+    public void setCellSize(double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        if (cellSize == this.cellSize) {
+            return;
+        }
+        this.cellSize = cellSize;
+        cells.clear();
+        numberOfOccupiedCells = 0;
+        if (items.isEmpty()) {
+            return;
+        }
+        var sortedItems = new ArrayList<>(items.values());
+        sortedItems.sort(Comparator.comparingLong(x -> x.sequenceNumber));
+        setUpCells(sortedItems.get(0).entity);
+        for (var item : sortedItems) {
+            item.cellKey = cellKey(item.entity.getLatitude(), item.entity.getLongitude());
+            addToCell(item);
+        }
+    }
+
+    // cells have the same width in meters at the latitude of 'entity', which is close enough for a city
+    private void setUpCells(Entity entity) {
+        cellHeight = cellSize / METERS_PER_DEGREE;
+        cellWidth = cellHeight / Math.max(Math.cos(Math.toRadians(entity.getLatitude())), 0.01);
+        minRow = maxRow = cellIndex(entity.getLatitude(), cellHeight);
+        minColumn = maxColumn = cellIndex(entity.getLongitude(), cellWidth);
+    }
+
+    public void add(Entity entity) {
+        if (items.isEmpty()) {
+            setUpCells(entity);
+        }
+        var item = new Item(entity, nextSequenceNumber++, cellKey(entity.getLatitude(), entity.getLongitude()));
+        if (items.putIfAbsent(entity, item) == null) {
+            addToCell(item);
+        }
+    }
+
+    public void remove(Entity entity) {
+        var item = items.remove(entity);
+        if (item != null) {
+            removeFromCell(item);
+        }
+    }
+
+    // moves the entity to the cell of its current position
+    public void update(Entity entity) {
+        var item = items.get(entity);
+        if (item == null) {
+            return;
+        }
+        var cellKey = cellKey(entity.getLatitude(), entity.getLongitude());
+        if (cellKey != item.cellKey) {
+            removeFromCell(item);
+            item.cellKey = cellKey;
+            addToCell(item);
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    // entities whose distance to the point is at most 'range' meters
+    public List<Entity> getEntitiesNear(double latitude, double longitude, double range) {
+        var found = new ArrayList<Item>();
+        if (!items.isEmpty() && range >= 0) {
+            // the bounds are exact on a sphere (no point within 'range' lies outside of them), the margin covers rounding errors
+            var angularRange = range / (METERS_PER_DEGREE * 180 / Math.PI) * BOUNDS_MARGIN;
+            var latitudeRange = Math.toDegrees(angularRange);
+            var sinRatio = Math.sin(Math.min(angularRange, Math.PI / 2)) / Math.cos(Math.toRadians(latitude));
+            var longitudeRange = sinRatio >= 1 || Double.isNaN(sinRatio) ? 180 : Math.toDegrees(Math.asin(sinRatio)) * BOUNDS_MARGIN;
+
+            var minRow = cellIndex(latitude - latitudeRange, cellHeight);
+            var maxRow = cellIndex(latitude + latitudeRange, cellHeight);
+            var minColumn = cellIndex(longitude - longitudeRange, cellWidth);
+            var maxColumn = cellIndex(longitude + longitudeRange, cellWidth);
+            if ((double) (maxRow - minRow + 1) * (maxColumn - minColumn + 1) > numberOfOccupiedCells) {
+                // the circle covers more cells than are occupied
+                for (var cell : cells.getAll()) {
+                    addItemsInRange(cell.items, latitude, longitude, range, found);
+                }
+            } else {
+                for (long row = minRow; row <= maxRow; row++) {
+                    for (long column = minColumn; column <= maxColumn; column++) {
+                        var cell = cells.get(cellKey(row, column));
+                        if (cell != null) {
+                            addItemsInRange(cell.items, latitude, longitude, range, found);
+                        }
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(x -> x.sequenceNumber));
+
+        var result = new ArrayList<Entity>(found.size());
+        for (var item : found) {
+            result.add(item.entity);
+        }
+        return result;
+    }
+
+    private static void addItemsInRange(List<Item> cell, double latitude, double longitude, double range, List<Item> found) {
+        for (var item : cell) {
+            if (Haversine.distance(item.entity.getLatitude(), item.entity.getLongitude(), latitude, longitude) <= range) {
+                found.add(item);
+            }
+        }
+    }
+
+    /**
+     * Up to 'k' entities accepted by 'filter' whose distance to the point is at most 'range' meters, the closest first
+     * (entities at the same distance in the order in which they have been added). Cells are visited in rings around the cell
+     * of the point, and the search stops when nothing outside of the visited rings can be closer than the k-th entity found.
+     */
+    public List<Entity> getNearestEntities(double latitude, double longitude, int k, double range, Predicate<Entity> filter) {
+        var nearest = new PriorityQueue<Candidate>(Comparator.reverseOrder());
+        if (items.isEmpty() || k <= 0 || range < 0) {
+            return new ArrayList<>();
+        }
+        var centerRow = cellIndex(latitude, cellHeight);
+        var centerColumn = cellIndex(longitude, cellWidth);
+        for (long ring = 0; ; ring++) {
+            if (Math.max(1, 8 * ring) > numberOfOccupiedCells) {
+                // the ring is larger than the number of occupied cells, so the remaining ones are checked directly
+                for (var cell : cells.getAll()) {
+                    if (Math.max(Math.abs(getRow(cell.key) - centerRow), Math.abs(getColumn(cell.key) - centerColumn)) >= ring) {
+                        addNearestInRange(cell.items, latitude, longitude, k, range, filter, nearest);
+                    }
+                }
+                break;
+            }
+            for (long row = centerRow - ring; row <= centerRow + ring; row++) {
+                // only the border of the ring, the inside has been visited before
+                var step = row == centerRow - ring || row == centerRow + ring ? 1 : Math.max(1, 2 * ring);
+                for (long column = centerColumn - ring; column <= centerColumn + ring; column += step) {
+                    var cell = cells.get(cellKey(row, column));
+                    if (cell != null) {
+                        addNearestInRange(cell.items, latitude, longitude, k, range, filter, nearest);
+                    }
+                }
+            }
+
+            var coversAllCells = centerRow - ring <= minRow && centerRow + ring >= maxRow
+                    && centerColumn - ring <= minColumn && centerColumn + ring >= maxColumn;
+            var distanceOutside = getMinimumDistanceOutside(latitude, longitude, centerRow, centerColumn, ring);
+            if (coversAllCells || distanceOutside > range || (nearest.size() == k && distanceOutside > nearest.peek().distance)) {
+                break;
+            }
+        }
+
+        var sorted = new ArrayList<>(nearest);
+        sorted.sort(Comparator.naturalOrder());
+        var result = new ArrayList<Entity>(sorted.size());
+        for (var candidate : sorted) {
+            result.add(candidate.item.entity);
+        }
+        return result;
+    }
+
+    private static void addNearestInRange(List<Item> cell, double latitude, double longitude, int k, double range, Predicate<Entity> filter,
+                                          PriorityQueue<Candidate> nearest) {
+        for (var item : cell) {
+            if (!filter.test(item.entity)) {
+                continue;
+            }
+            var distance = Haversine.distance(item.entity.getLatitude(), item.entity.getLongitude(), latitude, longitude);
+            if (distance > range) {
+                continue;
+            }
+            var candidate = new Candidate(item, distance);
+            if (nearest.size() < k) {
+                nearest.add(candidate);
+            } else if (candidate.compareTo(nearest.peek()) < 0) {
+                nearest.poll();
+                nearest.add(candidate);
+            }
+        }
+    }
+
+    // lower bound of the distance from the point to any entity outside of the rings 0..'ring' around its cell
+    private double getMinimumDistanceOutside(double latitude, double longitude, long centerRow, long centerColumn, long ring) {
+        var latitudeGap = Math.toRadians(Math.min(latitude - (centerRow - ring) * cellHeight, (centerRow + ring + 1) * cellHeight - latitude));
+        var longitudeGap = Math.toRadians(Math.min(longitude - (centerColumn - ring) * cellWidth, (centerColumn + ring + 1) * cellWidth - longitude));
+        // an entity outside is at least 'latitudeGap' away in latitude or 'longitudeGap' away in longitude, and lies in the occupied rows
+        var minCosine = Math.max(0, Math.min(Math.cos(Math.toRadians(minRow * cellHeight)), Math.cos(Math.toRadians((maxRow + 1) * cellHeight))));
+        var latitudeTerm = Math.pow(Math.sin(Math.max(0, latitudeGap) / 2), 2);
+        var longitudeTerm = Math.cos(Math.toRadians(latitude)) * minCosine * Math.pow(Math.sin(Math.min(Math.PI, Math.max(0, longitudeGap)) / 2), 2);
+        var angle = 2 * Math.asin(Math.sqrt(Math.min(1, Math.min(latitudeTerm, longitudeTerm))));
+        return Math.toDegrees(angle) * METERS_PER_DEGREE / BOUNDS_MARGIN;
+    }
+
+    private void addToCell(Item item) {
+        var cell = cells.getOrCreate(item.cellKey);
+        if (cell.items.isEmpty()) {
+            numberOfOccupiedCells++;
+        }
+        cell.items.add(item);
+        minRow = Math.min(minRow, getRow(item.cellKey));
+        maxRow = Math.max(maxRow, getRow(item.cellKey));
+        minColumn = Math.min(minColumn, getColumn(item.cellKey));
+        maxColumn = Math.max(maxColumn, getColumn(item.cellKey));
+    }
+
+    private void removeFromCell(Item item) {
+        var cell = cells.get(item.cellKey);
+        cell.items.remove(item);
+        if (cell.items.isEmpty()) {
+            numberOfOccupiedCells--;
+        }
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(cellIndex(latitude, cellHeight), cellIndex(longitude, cellWidth));
+    }
+
+    private static long cellKey(long row, long column) {
+        return (row << 32) ^ (column & 0xffffffffL);
+    }
+
+    private static long getRow(long cellKey) {
+        return cellKey >> 32;
+    }
+
+    private static long getColumn(long cellKey) {
+        return (int) cellKey;
+    }
+
+    private static long cellIndex(double coordinate, double cellLength) {
+        return (long) Math.floor(coordinate / cellLength);
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+
+        private final Item item;
+        private final double distance;
+
+        private Candidate(Item item, double distance) {
+            this.item = item;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            var result = Double.compare(distance, other.distance);
+            return result != 0 ? result : Long.compare(item.sequenceNumber, other.item.sequenceNumber);
+        }
+    }
+
+    private static class Cell {
+
+        private final long key;
+        private final List<Item> items = new ArrayList<>();
+
+        private Cell(long key) {
+            this.key = key;
+        }
+    }
+
+    // open addressing table of the cells by their keys, which are looked up without boxing (cells are only removed all at once)
+    private static class CellTable {
+
+        private static final int INITIAL_CAPACITY = 64;
+        private final List<Cell> all = new ArrayList<>();
+        private Cell[] table = new Cell[INITIAL_CAPACITY];
+
+        private Cell get(long key) {
+            var mask = table.length - 1;
+            for (int i = indexOf(key, mask); table[i] != null; i = (i + 1) & mask) {
+                if (table[i].key == key) {
+                    return table[i];
+                }
+            }
+            return null;
+        }
+
+        private Cell getOrCreate(long key) {
+            var cell = get(key);
+            if (cell == null) {
+                cell = new Cell(key);
+                all.add(cell);
+                // at most half of the table is used, so that the probe sequences stay short
+                if (all.size() * 2 > table.length) {
+                    table = new Cell[table.length * 2];
+                    for (var added : all) {
+                        insert(added);
+                    }
+                } else {
+                    insert(cell);
+                }
+            }
+            return cell;
+        }
+
+        private void insert(Cell cell) {
+            var mask = table.length - 1;
+            var i = indexOf(cell.key, mask);
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = cell;
+        }
+
+        private List<Cell> getAll() {
+            return all;
+        }
+
+        private void clear() {
+            all.clear();
+            table = new Cell[INITIAL_CAPACITY];
+        }
+
+        private static int indexOf(long key, int mask) {
+            var hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
+    private static class Item {
+
+        private final Entity entity;
+        private final long sequenceNumber;
+        private long cellKey;
+
+        private Item(Entity entity, long sequenceNumber, long cellKey) {
+            this.entity = entity;
+            this.sequenceNumber = sequenceNumber;
+            this.cellKey = cellKey;
+        }
+    }
+}
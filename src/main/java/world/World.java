@@ -1,41 +1,72 @@
 package world;
 
-import csv_export.ExportSimulationAndDistrictDetails;
 import de.westnordost.osmapi.map.data.LatLon;
 import de.westnordost.osmapi.map.data.OsmLatLon;
 import entities.*;
 import org.jxmapviewer.viewer.GeoPosition;
-import simulation.EventUpdater;
-import simulation.EventsDirector;
+import simulation.ActivityTracker;
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
+import simulation.EventScheduler;
+import simulation.PathCalculationExecutor;
+import simulation.RandomStreams;
 import simulation.StatisticsCounter;
-import utils.Haversine;
+import simulation.WorkerStatistics;
 import utils.Logger;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class World {
 
     private static final double DURATION_OF_THE_SHIFT = 28800;
+    private static final double DEFAULT_GRID_CELL_SIZE = 1000;
     private static World instance;
-    private final List<Entity> allEntities = new ArrayList<>();
+    // also the lock of the world, taken by changes of the entities and their indexes
+    private final EntityStore allEntities = new EntityStore();
+    private final Collection<Entity> allEntitiesView = Collections.unmodifiableCollection(allEntities);
     private final WorldConfiguration worldConfig = new WorldConfiguration();
-    private LocalDateTime startTime;
-    private double timePassedUntilPause = 0;
-    private boolean isSimulationPaused = false;
+    private volatile double simulationTime = 0;
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    private final Condition simulationResumed = pauseLock.newCondition();
+    private final java.util.Map<String, WorkerStatistics> workerStatistics = new ConcurrentHashMap<>();
+    private final ActivityTracker<IAgent> agentActivity = new ActivityTracker<>();
+    private final ActivityTracker<Incident> incidentActivity = new ActivityTracker<>();
+    // cells are resized to the basic search distance when the simulation starts
+    private final SpatialGrid spatialGrid = new SpatialGrid(DEFAULT_GRID_CELL_SIZE);
+    private final EntityRegistry<Patrol> patrols = new EntityRegistry<>();
+    private final EntityRegistry<Incident> incidents = new EntityRegistry<>();
+    private final EntityRegistry<Intervention> interventions = new EntityRegistry<>();
+    private final EntityRegistry<Firing> firings = new EntityRegistry<>();
+    private final EntityRegistry<Headquarters> headquarters = new EntityRegistry<>();
+    private final PatrolStateIndex patrolStates = new PatrolStateIndex();
+    private final PatrolStore patrolStore = new PatrolStore();
+    // the last id given to an entity, saved in checkpoints so that entities created after resuming get new ones
+    private final AtomicLong lastEntityId = new AtomicLong();
+    private volatile boolean isSimulationPaused = false;
     private LatLon position;
     private Map map;
     private boolean hasSimulationStarted = false;
     private int neutralizedPatrolsTotal = 0;
 
     private World() {
-        this.startTime = LocalDateTime.now();
     }
 
     public static World getInstance() {
+        var context = SimulationContext.current();
+        if (context != null) {
+            return context.getOrCreate(World.class, World::new);
+        }
+
         // Result variable here may seem pointless, but it's needed for DCL (Double-checked locking).
         var result = instance;
         if (instance != null) {
@@ -49,67 +80,245 @@ public class World {
         }
     }
 
+    // entities of the world are numbered in the order of their creation
+    public long nextEntityId() {
+        return lastEntityId.incrementAndGet();
+    }
+
     public WorldConfiguration getConfig() {
         return worldConfig;
     }
 
-    public List<Entity> getAllEntities() {
-        return new ArrayList<>(this.allEntities);
+    // read-only view of all entities, which may be iterated by any thread (e.g. to draw them) without blocking the simulation
+    public Collection<Entity> getAllEntities() {
+        return allEntitiesView;
+    }
+
+    public EntityRegistry<Patrol> getPatrols() {
+        return patrols;
+    }
+
+    // interventions and firings together
+    public EntityRegistry<Incident> getIncidents() {
+        return incidents;
+    }
+
+    public EntityRegistry<Intervention> getInterventions() {
+        return interventions;
+    }
+
+    public EntityRegistry<Firing> getFirings() {
+        return firings;
+    }
+
+    public EntityRegistry<Headquarters> getHeadquarters() {
+        return headquarters;
+    }
+
+    public PatrolStateIndex getPatrolStates() {
+        return patrolStates;
+    }
+
+    /**
+     * Counts the patrols by district and state in one pass. 'counts' is indexed by the districts of the map (in the order of
+     * Map.getDistricts) and by the ordinals of the states, patrols without a state are counted in its last column. Patrols
+     * outside of all districts are not counted, the ones kept in the patrol store are counted by a scan of its arrays.
+     */
+    public void countPatrolsByDistrict(int[][] counts) {
+        patrolStore.countByDistrict(map, counts);
+        if (patrolStore.size() == patrols.size()) {
+            return;
+        }
+        for (int i = 0; i < patrols.size(); i++) {
+            var patrol = patrols.get(i);
+            if (patrol.isInStore(patrolStore)) {
+                continue;
+            }
+            var district = map.getDistrictIndex(patrol.getLatitude(), patrol.getLongitude());
+            if (district != Map.NO_DISTRICT) {
+                counts[district][patrol.getState() != null ? patrol.getState().ordinal() : counts[district].length - 1]++;
+            }
+        }
+    }
+
+    // must be called whenever the state of a patrol changes
+    public void updatePatrolState(Patrol patrol) {
+        synchronized (allEntities) {
+            patrolStates.update(patrol);
+        }
     }
 
     public List<Entity> getEntitiesNear(double x, double y, double range) {
         synchronized (allEntities) {
-            return this.allEntities.stream().filter(entity -> Haversine.distance(entity.getLatitude(), entity.getLongitude(), x, y) <= range).collect(Collectors.toList());
+            return spatialGrid.getEntitiesNear(x, y, range);
+        }
+    }
+
+    // up to 'k' entities accepted by 'filter' within 'range' meters of the point, the closest first
+    public List<Entity> getNearestEntities(double x, double y, int k, double range, Predicate<Entity> filter) {
+        synchronized (allEntities) {
+            return spatialGrid.getNearestEntities(x, y, k, range, filter);
+        }
+    }
+
+    // up to 'k' patrols in the given state within 'range' meters of the target, the closest first
+    public List<Patrol> getNearestPatrols(Entity target, int k, double range, Patrol.State state) {
+        if (patrolStates.isEmpty(state)) {
+            return List.of();
+        }
+        var result = new ArrayList<Patrol>();
+        for (var entity : getNearestEntities(target.getLatitude(), target.getLongitude(), k, range,
+                x -> x instanceof Patrol && ((Patrol) x).getState() == state)) {
+            result.add((Patrol) entity);
+        }
+        return result;
+    }
+
+    // moves the agents in the spatial index to their current positions, must be called after they have moved
+    public void updatePositions(List<IAgent> movedAgents) {
+        synchronized (allEntities) {
+            for (int i = 0; i < movedAgents.size(); i++) {
+                var agent = movedAgents.get(i);
+                if (agent instanceof Entity) {
+                    spatialGrid.update((Entity) agent);
+                }
+            }
         }
     }
 
     public void addEntity(Entity entity) {
         synchronized (allEntities) {
-            allEntities.add(entity);
-            Logger.getInstance().logNewOtherMessage("Added new " + entity.toString());
+            add(entity);
+        }
+    }
 
-            if (entity instanceof Patrol) {
-                StatisticsCounter.getInstance().increaseNumberOfPatrols();
-            } else if (entity instanceof Intervention) {
-                StatisticsCounter.getInstance().increaseNumberOfInterventions();
-            } else if (entity instanceof Firing) {
-                StatisticsCounter.getInstance().increaseNumberOfFirings();
+    // adds the entities in their order at once (e.g. the patrols of a new shift)
+    public void addEntities(Collection<? extends Entity> entities) {
+        synchronized (allEntities) {
+            for (var entity : entities) {
+                add(entity);
             }
         }
     }
 
     public void removeEntity(Entity entity) {
         synchronized (allEntities) {
-            if (allEntities.remove(entity)) {
-                Logger.getInstance().logNewOtherMessage("Removed " + entity.toString());
-
-                if (entity instanceof Patrol && ((Patrol) entity).getState() == Patrol.State.NEUTRALIZED) {
-                    StatisticsCounter.getInstance().increaseNumberOfNeutralizedPatrols();
-                } else if (entity instanceof Intervention) {
-                    StatisticsCounter.getInstance().increaseNumberOfSolvedInterventions();
-                } else if (entity instanceof Firing) {
-                    StatisticsCounter.getInstance().increaseNumberOfSolvedFirings();
-                }
+            remove(entity);
+        }
+    }
+
+    // removes the entities in their order at once (e.g. the neutralized patrols)
+    public void removeEntities(Collection<? extends Entity> entities) {
+        synchronized (allEntities) {
+            for (var entity : entities) {
+                remove(entity);
             }
         }
     }
 
+    private void add(Entity entity) {
+        register(entity);
+        Logger.getInstance().logNewOtherMessage("Added new " + entity.toString());
+        if (entity instanceof IAgent) {
+            agentActivity.register((IAgent) entity);
+        } else if (entity instanceof Incident) {
+            incidentActivity.register((Incident) entity);
+        }
+
+        if (entity instanceof Patrol) {
+            StatisticsCounter.getInstance().increaseNumberOfPatrols();
+        } else if (entity instanceof Intervention) {
+            StatisticsCounter.getInstance().increaseNumberOfInterventions();
+        } else if (entity instanceof Firing) {
+            StatisticsCounter.getInstance().increaseNumberOfFirings();
+        }
+    }
+
+    private void remove(Entity entity) {
+        if (allEntities.remove(entity)) {
+            unregister(entity);
+            Logger.getInstance().logNewOtherMessage("Removed " + entity.toString());
+            if (entity instanceof IAgent) {
+                agentActivity.unregister((IAgent) entity);
+            } else if (entity instanceof Incident) {
+                incidentActivity.unregister((Incident) entity);
+            }
+
+            if (entity instanceof Patrol && ((Patrol) entity).getState() == Patrol.State.NEUTRALIZED) {
+                StatisticsCounter.getInstance().increaseNumberOfNeutralizedPatrols();
+            } else if (entity instanceof Intervention) {
+                StatisticsCounter.getInstance().increaseNumberOfSolvedInterventions();
+            } else if (entity instanceof Firing) {
+                StatisticsCounter.getInstance().increaseNumberOfSolvedFirings();
+            }
+        }
+    }
+
+    private void register(Entity entity) {
+        allEntities.add(entity);
+        spatialGrid.add(entity);
+        if (entity instanceof Patrol) {
+            patrols.add((Patrol) entity);
+            patrolStates.add((Patrol) entity);
+            if (worldConfig.isPatrolStoreEnabled()) {
+                patrolStore.add((Patrol) entity);
+            }
+        } else if (entity instanceof Incident) {
+            incidents.add((Incident) entity);
+            if (entity instanceof Intervention) {
+                interventions.add((Intervention) entity);
+            } else if (entity instanceof Firing) {
+                firings.add((Firing) entity);
+            }
+        } else if (entity instanceof Headquarters) {
+            headquarters.add((Headquarters) entity);
+        }
+    }
+
+    private void unregister(Entity entity) {
+        spatialGrid.remove(entity);
+        if (entity instanceof Patrol) {
+            patrols.remove((Patrol) entity);
+            patrolStates.remove((Patrol) entity);
+            patrolStore.remove((Patrol) entity);
+        } else if (entity instanceof Incident) {
+            incidents.remove((Incident) entity);
+            if (entity instanceof Intervention) {
+                interventions.remove((Intervention) entity);
+            } else if (entity instanceof Firing) {
+                firings.remove((Firing) entity);
+            }
+        } else if (entity instanceof Headquarters) {
+            headquarters.remove((Headquarters) entity);
+        }
+    }
+
     public List<Entity> getEntitiesNear(Entity target, double range) {
         return getEntitiesNear(target.getLatitude(), target.getLongitude(), range);
     }
 
     public List<IEvent> getActiveEvents() {
         synchronized (allEntities) {
-            return allEntities.stream().filter(x -> x instanceof IEvent && ((IEvent) x).isActive()).map(IEvent.class::cast).collect(Collectors.toList());
+            return incidents.asList().stream().filter(IEvent::isActive).collect(Collectors.toList());
         }
     }
 
     public List<IEvent> getEvents() {
         synchronized (allEntities) {
-            return allEntities.stream().filter(IEvent.class::isInstance).map(IEvent.class::cast).collect(Collectors.toList());
+            return new ArrayList<>(incidents.asList());
         }
     }
 
+    // agents which have to be updated in the current tick
+    public ActivityTracker<IAgent> getAgentActivity() {
+        return agentActivity;
+    }
+
+    // incidents which have to be updated in the current tick
+    public ActivityTracker<Incident> getIncidentActivity() {
+        return incidentActivity;
+    }
+
     public int getNeutralizedPatrolsTotal() {
         return neutralizedPatrolsTotal;
     }
@@ -131,12 +340,12 @@ public class World {
             return -1;
         }
 
-        if (isSimulationPaused) {
-            return timePassedUntilPause;
-        }
+        // time is advanced only by the tick engine, so every consumer sees the same value during a tick
+        return simulationTime;
+    }
 
-        var duration = Duration.between(this.startTime, LocalDateTime.now());
-        return ((duration.getSeconds() + duration.getNano() / Math.pow(10, 9)) * worldConfig.getTimeRate()) + timePassedUntilPause;
+    public void advanceSimulationTime(double timeStep) {
+        simulationTime += timeStep;
     }
 
     public Map getMap() {
@@ -182,25 +391,108 @@ public class World {
 
     public void simulationStart() {
         StatisticsCounter.getInstance().reset();
-        startTime = LocalDateTime.now();
-        timePassedUntilPause = 0;
+        simulationTime = 0;
+        isSimulationPaused = false;
+        hasSimulationStarted = true;
+        resizeSpatialGrid();
+        EventScheduler.getInstance().reset();
+        PathCalculationExecutor.getInstance().reset();
+        workerStatistics.values().forEach(WorkerStatistics::reset);
+        RandomStreams.getInstance().reset(worldConfig.getRandomSeed());
+        Logger.getInstance().logNewOtherMessage(String.format("Simulation has started (random seed: %d).", worldConfig.getRandomSeed()));
+    }
+
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        synchronized (allEntities) {
+            out.writeDouble(simulationTime);
+            out.writeInt(neutralizedPatrolsTotal);
+            out.writeLong(lastEntityId.get());
+            out.writeEntityReferences(allEntities);
+            writeActivityCheckpoint(out, agentActivity);
+            writeActivityCheckpoint(out, incidentActivity);
+        }
+    }
+
+    private static <T> void writeActivityCheckpoint(CheckpointOutput out, ActivityTracker<T> activity) throws IOException {
+        var registered = activity.getRegistered();
+        out.writeInt(registered.size());
+        for (var item : registered) {
+            out.writeDouble(activity.getWakeUpTime(item));
+            out.writeEntityReference((Entity) item);
+        }
+    }
+
+    // restores the simulation saved by writeCheckpoint into this (new) world, the map has to be set before
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        simulationTime = in.readDouble();
+        neutralizedPatrolsTotal = in.readInt();
+        lastEntityId.set(in.readLong());
+        workerStatistics.values().forEach(WorkerStatistics::reset);
         isSimulationPaused = false;
         hasSimulationStarted = true;
-        new EventsDirector().start();
-        new EventUpdater().start();
-        new ExportSimulationAndDistrictDetails().start();
-        Logger.getInstance().logNewOtherMessage("Simulation has started.");
+        in.readEntityReferences(entity -> {
+            synchronized (allEntities) {
+                register(entity);
+            }
+        });
+        in.runAfterRestore(this::resizeSpatialGrid);
+        var numberOfAgents = in.readInt();
+        for (int i = 0; i < numberOfAgents; i++) {
+            var wakeUpTime = in.readDouble();
+            in.readEntityReference(agent -> agentActivity.registerSleeping((IAgent) agent, wakeUpTime));
+        }
+        var numberOfIncidents = in.readInt();
+        for (int i = 0; i < numberOfIncidents; i++) {
+            var wakeUpTime = in.readDouble();
+            in.readEntityReference(incident -> incidentActivity.registerSleeping((Incident) incident, wakeUpTime));
+        }
+    }
+
+    // the headquarters look for patrols in multiples of the basic search distance, so the cells are about as wide
+    private void resizeSpatialGrid() {
+        synchronized (allEntities) {
+            spatialGrid.setCellSize(Math.max(worldConfig.getBasicSearchDistance(), 1));
+        }
+    }
+
+    // blocks the calling worker until the simulation is resumed, without using the processor in the meantime
+    public void awaitSimulationResumed() throws InterruptedException {
+        pauseLock.lock();
+        try {
+            while (isSimulationPaused) {
+                simulationResumed.await();
+            }
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    public WorkerStatistics getWorkerStatistics(String workerName) {
+        return workerStatistics.computeIfAbsent(workerName, WorkerStatistics::new);
+    }
+
+    public Collection<WorkerStatistics> getAllWorkerStatistics() {
+        return new ArrayList<>(workerStatistics.values());
     }
 
     public void pauseSimulation() {
-        timePassedUntilPause = getSimulationTime();
-        isSimulationPaused = true;
+        pauseLock.lock();
+        try {
+            isSimulationPaused = true;
+        } finally {
+            pauseLock.unlock();
+        }
         Logger.getInstance().logNewOtherMessage("Simulation has been paused.");
     }
 
     public void resumeSimulation() {
-        startTime = LocalDateTime.now();
-        isSimulationPaused = false;
+        pauseLock.lock();
+        try {
+            isSimulationPaused = false;
+            simulationResumed.signalAll();
+        } finally {
+            pauseLock.unlock();
+        }
         Logger.getInstance().logNewOtherMessage("Simulation has been resumed.");
     }
 
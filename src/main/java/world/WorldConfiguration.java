@@ -1,10 +1,14 @@
 package world;
 
 import entities.District;
+import simulation.CheckpointInput;
+import simulation.CheckpointOutput;
 import utils.Logger;
 
+import java.io.IOException;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.SplittableRandom;
 
 
 public class WorldConfiguration {
@@ -31,6 +35,14 @@ public class WorldConfiguration {
     private double nightStatisticMultiplier = 1.3;
     private boolean considerTimeOfDay = true;
     private double periodOfTimeToExportDetails = 10;
+    private boolean virtualClock = false;
+    private double simulationTimeStep = 10; // simulated seconds advanced by a single tick
+    private long randomSeed = new SplittableRandom().nextInt(Integer.MAX_VALUE);
+    private int agentUpdateParallelism = 1; // number of threads updating the agents, 1 - on the simulation thread
+    private double checkpointInterval = 0; // simulated minutes between checkpoints, 0 - no checkpoints
+    private boolean patrolStoreEnabled = false; // positions and states of the patrols kept in arrays (for runs with many patrols)
+    private boolean contractionHierarchiesEnabled = false; // paths calculated in the contraction hierarchy of the map instead of with A*
+    private int numberOfLandmarks = 0; // landmarks of the A* heuristic, 0 - distance in a straight line only
 
     WorldConfiguration() {
         threatLevelToMaxIncidentsPerHour.put(District.ThreatLevelEnum.SAFE, 2);
@@ -41,6 +53,136 @@ public class WorldConfiguration {
         threatLevelToFiringChanceMap.put(District.ThreatLevelEnum.NOT_SAFE, 0.2);
     }
 
+    // copies all settings (without night multipliers applied), e.g. to run another simulation with the same configuration
+    public void copyFrom(WorldConfiguration other) {
+        this.districtsDangerLevels.clear();
+        this.districtsDangerLevels.putAll(other.districtsDangerLevels);
+        this.threatLevelToMaxIncidentsPerHour.clear();
+        this.threatLevelToMaxIncidentsPerHour.putAll(other.threatLevelToMaxIncidentsPerHour);
+        this.threatLevelToFiringChanceMap.clear();
+        this.threatLevelToFiringChanceMap.putAll(other.threatLevelToFiringChanceMap);
+        this.cityName = other.cityName;
+        this.timeRate = other.timeRate;
+        this.simulationDuration = other.simulationDuration;
+        this.numberOfPolicePatrols = other.numberOfPolicePatrols;
+        this.basicSearchDistance = other.basicSearchDistance;
+        this.drawDistrictsBorders = other.drawDistrictsBorders;
+        this.drawFiringDetails = other.drawFiringDetails;
+        this.drawLegend = other.drawLegend;
+        this.drawInterventionDetails = other.drawInterventionDetails;
+        this.minimumInterventionDuration = other.minimumInterventionDuration;
+        this.maximumInterventionDuration = other.maximumInterventionDuration;
+        this.minimumFiringStrength = other.minimumFiringStrength;
+        this.maximumFiringStrength = other.maximumFiringStrength;
+        this.basePatrollingSpeed = other.basePatrollingSpeed;
+        this.baseTransferSpeed = other.baseTransferSpeed;
+        this.basePrivilegedSpeed = other.basePrivilegedSpeed;
+        this.nightStatisticMultiplier = other.nightStatisticMultiplier;
+        this.considerTimeOfDay = other.considerTimeOfDay;
+        this.periodOfTimeToExportDetails = other.periodOfTimeToExportDetails;
+        this.virtualClock = other.virtualClock;
+        this.simulationTimeStep = other.simulationTimeStep;
+        this.randomSeed = other.randomSeed;
+        this.agentUpdateParallelism = other.agentUpdateParallelism;
+        this.checkpointInterval = other.checkpointInterval;
+        this.patrolStoreEnabled = other.patrolStoreEnabled;
+        this.contractionHierarchiesEnabled = other.contractionHierarchiesEnabled;
+        this.numberOfLandmarks = other.numberOfLandmarks;
+    }
+
+    public void writeCheckpoint(CheckpointOutput out) throws IOException {
+        out.writeInt(districtsDangerLevels.size());
+        for (var entry : districtsDangerLevels.entrySet()) {
+            out.writeDistrict(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeInt(threatLevelToMaxIncidentsPerHour.size());
+        for (var entry : threatLevelToMaxIncidentsPerHour.entrySet()) {
+            out.writeEnum(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeInt(threatLevelToFiringChanceMap.size());
+        for (var entry : threatLevelToFiringChanceMap.entrySet()) {
+            out.writeEnum(entry.getKey());
+            out.writeDouble(entry.getValue());
+        }
+        out.writeString(cityName);
+        out.writeInt(timeRate);
+        out.writeLong(simulationDuration);
+        out.writeInt(numberOfPolicePatrols);
+        out.writeDouble(basicSearchDistance);
+        out.writeBoolean(drawDistrictsBorders);
+        out.writeBoolean(drawFiringDetails);
+        out.writeBoolean(drawLegend);
+        out.writeBoolean(drawInterventionDetails);
+        out.writeInt(minimumInterventionDuration);
+        out.writeInt(maximumInterventionDuration);
+        out.writeInt(minimumFiringStrength);
+        out.writeInt(maximumFiringStrength);
+        out.writeInt(basePatrollingSpeed);
+        out.writeInt(baseTransferSpeed);
+        out.writeInt(basePrivilegedSpeed);
+        out.writeDouble(nightStatisticMultiplier);
+        out.writeBoolean(considerTimeOfDay);
+        out.writeDouble(periodOfTimeToExportDetails);
+        out.writeBoolean(virtualClock);
+        out.writeDouble(simulationTimeStep);
+        out.writeLong(randomSeed);
+        out.writeInt(agentUpdateParallelism);
+        out.writeDouble(checkpointInterval);
+        out.writeBoolean(patrolStoreEnabled);
+        out.writeBoolean(contractionHierarchiesEnabled);
+        out.writeInt(numberOfLandmarks);
+    }
+
+    public void readCheckpoint(CheckpointInput in) throws IOException {
+        districtsDangerLevels.clear();
+        var numberOfDangerLevels = in.readInt();
+        for (int i = 0; i < numberOfDangerLevels; i++) {
+            var district = in.readDistrict();
+            districtsDangerLevels.put(district, in.readInt());
+        }
+        threatLevelToMaxIncidentsPerHour.clear();
+        var numberOfMaxIncidents = in.readInt();
+        for (int i = 0; i < numberOfMaxIncidents; i++) {
+            var threatLevel = in.readEnum(District.ThreatLevelEnum.class);
+            threatLevelToMaxIncidentsPerHour.put(threatLevel, in.readInt());
+        }
+        threatLevelToFiringChanceMap.clear();
+        var numberOfFiringChances = in.readInt();
+        for (int i = 0; i < numberOfFiringChances; i++) {
+            var threatLevel = in.readEnum(District.ThreatLevelEnum.class);
+            threatLevelToFiringChanceMap.put(threatLevel, in.readDouble());
+        }
+        this.cityName = in.readString();
+        this.timeRate = in.readInt();
+        this.simulationDuration = in.readLong();
+        this.numberOfPolicePatrols = in.readInt();
+        this.basicSearchDistance = in.readDouble();
+        this.drawDistrictsBorders = in.readBoolean();
+        this.drawFiringDetails = in.readBoolean();
+        this.drawLegend = in.readBoolean();
+        this.drawInterventionDetails = in.readBoolean();
+        this.minimumInterventionDuration = in.readInt();
+        this.maximumInterventionDuration = in.readInt();
+        this.minimumFiringStrength = in.readInt();
+        this.maximumFiringStrength = in.readInt();
+        this.basePatrollingSpeed = in.readInt();
+        this.baseTransferSpeed = in.readInt();
+        this.basePrivilegedSpeed = in.readInt();
+        this.nightStatisticMultiplier = in.readDouble();
+        this.considerTimeOfDay = in.readBoolean();
+        this.periodOfTimeToExportDetails = in.readDouble();
+        this.virtualClock = in.readBoolean();
+        this.simulationTimeStep = in.readDouble();
+        this.randomSeed = in.readLong();
+        this.agentUpdateParallelism = in.readInt();
+        this.checkpointInterval = in.readDouble();
+        this.patrolStoreEnabled = in.readBoolean();
+        this.contractionHierarchiesEnabled = in.readBoolean();
+        this.numberOfLandmarks = in.readInt();
+    }
+
     public String getCityName() {
         return cityName;
     }
@@ -274,4 +416,83 @@ public class WorldConfiguration {
     public void setPeriodOfTimeToExportDetails(double periodOfTimeToExportDetails) {
         this.periodOfTimeToExportDetails = periodOfTimeToExportDetails;
     }
+
+    public boolean isVirtualClock() {
+        return virtualClock;
+    }
+
+    public void setVirtualClock(boolean virtualClock) {
+        this.virtualClock = virtualClock;
+    }
+
+    public double getSimulationTimeStep() {
+        return simulationTimeStep;
+    }
+
+    public void setSimulationTimeStep(double simulationTimeStep) {
+        if (simulationTimeStep <= 0) {
+            throw new IllegalArgumentException("Simulation time step must be of positive value.");
+        }
+        this.simulationTimeStep = simulationTimeStep;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    public void setRandomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+    }
+
+    public int getAgentUpdateParallelism() {
+        return agentUpdateParallelism;
+    }
+
+    public void setAgentUpdateParallelism(int agentUpdateParallelism) {
+        if (agentUpdateParallelism <= 0) {
+            throw new IllegalArgumentException("Agent update parallelism must be of positive value.");
+        }
+        this.agentUpdateParallelism = agentUpdateParallelism;
+    }
+
+    public double getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(double checkpointInterval) {
+        if (checkpointInterval < 0) {
+            throw new IllegalArgumentException("Checkpoint interval must not be negative.");
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public boolean isPatrolStoreEnabled() {
+        return patrolStoreEnabled;
+    }
+
+    // takes effect for the patrols added to the world afterwards
+    public void setPatrolStoreEnabled(boolean patrolStoreEnabled) {
+        this.patrolStoreEnabled = patrolStoreEnabled;
+    }
+
+    public boolean isContractionHierarchiesEnabled() {
+        return contractionHierarchiesEnabled;
+    }
+
+    // the hierarchy is prepared once per map, by the first path calculated with it
+    public void setContractionHierarchiesEnabled(boolean contractionHierarchiesEnabled) {
+        this.contractionHierarchiesEnabled = contractionHierarchiesEnabled;
+    }
+
+    public int getNumberOfLandmarks() {
+        return numberOfLandmarks;
+    }
+
+    // the distances to the landmarks are calculated once per map and number of landmarks, by the first path calculated with them
+    public void setNumberOfLandmarks(int numberOfLandmarks) {
+        if (numberOfLandmarks < 0) {
+            throw new IllegalArgumentException("Number of landmarks must not be negative.");
+        }
+        this.numberOfLandmarks = numberOfLandmarks;
+    }
 }
@@ -0,0 +1,80 @@
+package entities;
+
+import de.westnordost.osmapi.map.data.Node;
+import fixtures.GeneratedCity;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.shortestpath.AStarShortestPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import osm_to_graph.ImportedEdge;
+import utils.Haversine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Paths of the contraction hierarchy against the ones found by A* on the generated city, whose one-way and missing streets
+ * leave some nodes unreachable from others: a path has to exist in both or in neither, and to be as long as the one of A*
+ * (it may still go through other nodes, as paths of the same length are equally good).
+ */
+class ContractionHierarchyTest {
+
+    private static final int NUMBER_OF_QUERIES = 500;
+    // relative difference of lengths which is put down to rounding
+    private static final double LENGTH_TOLERANCE = Math.pow(10, -9);
+    private static Graph<Node, ImportedEdge> graph;
+    private static ContractionHierarchy contractionHierarchy;
+
+    @BeforeAll
+    static void prepare() {
+        graph = GeneratedCity.create();
+        contractionHierarchy = new ContractionHierarchy(graph);
+        contractionHierarchy.prepare();
+    }
+
+    @Test
+    void pathsAreAsShortAsWithAStar() {
+        var aStar = new AStarShortestPath<>(graph, new Haversine.OwnHeuristics());
+        var random = new SplittableRandom(NUMBER_OF_QUERIES);
+        var nodes = new ArrayList<>(graph.vertexSet());
+        for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+            var source = nodes.get(random.nextInt(nodes.size()));
+            var target = nodes.get(random.nextInt(nodes.size()));
+            var expected = aStar.getPath(source, target);
+            var actual = contractionHierarchy.getPath(source, target);
+            if (expected == null) {
+                assertNull(actual, "query " + i);
+                continue;
+            }
+            assertNotNull(actual, "query " + i);
+            assertEquals(source, actual.get(0));
+            assertEquals(target, actual.get(actual.size() - 1));
+            var expectedLength = getLength(expected.getVertexList());
+            assertEquals(expectedLength, getLength(actual), LENGTH_TOLERANCE * Math.max(1, expectedLength), "query " + i);
+        }
+    }
+
+    @Test
+    void pathToTheSameNodeIsTheNode() {
+        var node = graph.vertexSet().iterator().next();
+        assertEquals(List.of(node), contractionHierarchy.getPath(node, node));
+    }
+
+    // length of the path along the shortest edges between its nodes, infinite if some of them are not connected
+    private static double getLength(List<Node> path) {
+        var length = 0.0;
+        for (int i = 1; i < path.size(); i++) {
+            var shortest = Double.POSITIVE_INFINITY;
+            for (var edge : graph.getAllEdges(path.get(i - 1), path.get(i))) {
+                shortest = Math.min(shortest, graph.getEdgeWeight(edge));
+            }
+            length += shortest;
+        }
+        return length;
+    }
+}
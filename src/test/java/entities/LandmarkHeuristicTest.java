@@ -0,0 +1,57 @@
+package entities;
+
+import de.westnordost.osmapi.map.data.Node;
+import fixtures.GeneratedCity;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.shortestpath.AStarShortestPath;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import osm_to_graph.ImportedEdge;
+import utils.Haversine;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A* guided by landmarks against A* guided by the distance in a straight line on the generated city: the paths have to be
+ * as long, and the estimates of the landmarks must never be longer than the paths, or A* could miss the shortest ones.
+ */
+class LandmarkHeuristicTest {
+
+    private static final int NUMBER_OF_LANDMARKS = 8;
+    private static final int NUMBER_OF_QUERIES = 200;
+    // relative difference of lengths which is put down to rounding
+    private static final double LENGTH_TOLERANCE = Math.pow(10, -9);
+    private static Graph<Node, ImportedEdge> graph;
+    private static LandmarkHeuristic heuristic;
+
+    @BeforeAll
+    static void calculateLandmarks() {
+        graph = GeneratedCity.create();
+        heuristic = new LandmarkHeuristic(graph, NUMBER_OF_LANDMARKS);
+    }
+
+    @Test
+    void pathsAreAsShortAsWithTheDistanceInAStraightLine() {
+        var random = new SplittableRandom(NUMBER_OF_QUERIES);
+        var nodes = new ArrayList<>(graph.vertexSet());
+        for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+            var source = nodes.get(random.nextInt(nodes.size()));
+            var target = nodes.get(random.nextInt(nodes.size()));
+            // new instances for every query, as PathCalculator takes one
+            var expected = new AStarShortestPath<>(graph, new Haversine.OwnHeuristics()).getPath(source, target);
+            var actual = new AStarShortestPath<>(graph, heuristic).getPath(source, target);
+            if (expected == null) {
+                assertNull(actual, "query " + i);
+                continue;
+            }
+            var expectedLength = expected.getWeight();
+            assertEquals(expectedLength, actual.getWeight(), LENGTH_TOLERANCE * Math.max(1, expectedLength), "query " + i);
+            assertTrue(heuristic.getCostEstimate(source, target) <= expectedLength * (1 + LENGTH_TOLERANCE), "query " + i);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package entities;
+
+import de.westnordost.osmapi.map.data.Node;
+import fixtures.GeneratedCity;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import utils.Haversine;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Nearest nodes found in the KD-tree against a scan of all nodes of the generated city (as PathCalculator used to find them),
+ * for random points in and around the city and for points at the nodes themselves: the nearest node, the nearest node after
+ * the nearest ones have been excluded (as when there is no route between them), and the 8 nearest nodes.
+ */
+class NodeKdTreeTest {
+
+    private static final int NUMBER_OF_QUERIES = 100;
+    private static final int EXCLUDED_NODES = 6;
+    private static final int NEAREST_NODES = 8;
+    // part of the size of the city by which the points may lie outside of it
+    private static final double OUTSIDE_MARGIN = 0.1;
+    private static List<Node> nodes;
+    private static NodeKdTree tree;
+
+    @BeforeAll
+    static void buildTree() {
+        nodes = new ArrayList<>(GeneratedCity.create().vertexSet());
+        tree = new NodeKdTree(nodes);
+    }
+
+    @Test
+    void nearestNodesToRandomPointsAreTheSameAsTheScan() {
+        var minLatitude = nodes.stream().mapToDouble(node -> node.getPosition().getLatitude()).min().orElseThrow();
+        var maxLatitude = nodes.stream().mapToDouble(node -> node.getPosition().getLatitude()).max().orElseThrow();
+        var minLongitude = nodes.stream().mapToDouble(node -> node.getPosition().getLongitude()).min().orElseThrow();
+        var maxLongitude = nodes.stream().mapToDouble(node -> node.getPosition().getLongitude()).max().orElseThrow();
+        var latitudeMargin = (maxLatitude - minLatitude) * OUTSIDE_MARGIN;
+        var longitudeMargin = (maxLongitude - minLongitude) * OUTSIDE_MARGIN;
+        var random = new SplittableRandom(NUMBER_OF_QUERIES);
+        for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+            checkQueries(random.nextDouble(minLatitude - latitudeMargin, maxLatitude + latitudeMargin),
+                    random.nextDouble(minLongitude - longitudeMargin, maxLongitude + longitudeMargin));
+        }
+    }
+
+    @Test
+    void nearestNodesToNodesAreTheSameAsTheScan() {
+        var random = new SplittableRandom(NUMBER_OF_QUERIES);
+        for (int i = 0; i < NUMBER_OF_QUERIES; i++) {
+            var node = nodes.get(random.nextInt(nodes.size()));
+            assertEquals(node, tree.getNearest(node.getPosition().getLatitude(), node.getPosition().getLongitude(), null));
+            checkQueries(node.getPosition().getLatitude(), node.getPosition().getLongitude());
+        }
+    }
+
+    private static void checkQueries(double latitude, double longitude) {
+        var point = latitude + ", " + longitude;
+        assertEquals(scan(latitude, longitude, 1, List.of()).get(0), tree.getNearest(latitude, longitude, null), point);
+
+        var excludedList = scan(latitude, longitude, EXCLUDED_NODES, List.of());
+        var excludedSet = new HashSet<>(excludedList);
+        assertEquals(scan(latitude, longitude, 1, excludedList).get(0), tree.getNearest(latitude, longitude, excludedSet::contains), point);
+
+        assertEquals(scan(latitude, longitude, NEAREST_NODES, List.of()), tree.getNearest(latitude, longitude, NEAREST_NODES, null), point);
+    }
+
+    // the 'k' nearest nodes not in 'excluded' found by a scan of all of them, the first ones in the order of the list at the same distance
+    private static List<Node> scan(double latitude, double longitude, int k, List<Node> excluded) {
+        var found = new ArrayList<Node>();
+        var distances = new ArrayList<Double>();
+        for (var node : nodes) {
+            if (excluded.contains(node)) {
+                continue;
+            }
+            var distance = Haversine.distance(latitude, longitude, node.getPosition().getLatitude(), node.getPosition().getLongitude());
+            var position = found.size();
+            while (position > 0 && distances.get(position - 1) > distance) {
+                position--;
+            }
+            if (position < k) {
+                found.add(position, node);
+                distances.add(position, distance);
+                if (found.size() > k) {
+                    found.remove(k);
+                    distances.remove(k);
+                }
+            }
+        }
+        return found;
+    }
+}
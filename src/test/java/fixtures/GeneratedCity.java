@@ -0,0 +1,91 @@
+package fixtures;
+
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmLatLon;
+import de.westnordost.osmapi.map.data.OsmNode;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import osm_to_graph.ImportedEdge;
+import utils.Haversine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Graph of a generated city of 100 x 100 crossings, with irregular blocks, some streets missing and some one-way,
+ * for the tests and benchmarks of path calculation run without a map of a real city.
+ */
+public class GeneratedCity {
+
+    private static final int GRID_SIZE = 100;
+    private static final double GRID_STEP = 0.001;
+    private static final double MIN_LATITUDE = 50.00;
+    private static final double MIN_LONGITUDE = 19.90;
+    private static final double MISSING_STREETS = 0.1;
+    private static final double ONE_WAY_STREETS = 0.1;
+    private static final int SEGMENTS_PER_STREET = 3;
+
+    private GeneratedCity() {
+    }
+
+    // grid of streets with crossings moved off the grid, so that the shortest paths are mostly unique, and with every street
+    // made of a few segments, as the ways of OpenStreetMap are
+    public static Graph<Node, ImportedEdge> create() {
+        var random = new SplittableRandom(GRID_SIZE);
+        var graph = new DefaultDirectedWeightedGraph<Node, ImportedEdge>(ImportedEdge.class);
+        var crossings = new Node[GRID_SIZE * GRID_SIZE];
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int column = 0; column < GRID_SIZE; column++) {
+                var index = row * GRID_SIZE + column;
+                var latitude = MIN_LATITUDE + (row + random.nextDouble(-0.3, 0.3)) * GRID_STEP;
+                var longitude = MIN_LONGITUDE + (column + random.nextDouble(-0.3, 0.3)) * GRID_STEP * 1.5;
+                crossings[index] = new OsmNode(index + 1L, 1, new OsmLatLon(latitude, longitude), null);
+                graph.addVertex(crossings[index]);
+            }
+        }
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int column = 0; column < GRID_SIZE; column++) {
+                var index = row * GRID_SIZE + column;
+                if (column + 1 < GRID_SIZE) {
+                    addStreet(graph, crossings[index], crossings[index + 1], random);
+                }
+                if (row + 1 < GRID_SIZE) {
+                    addStreet(graph, crossings[index], crossings[index + GRID_SIZE], random);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static void addStreet(Graph<Node, ImportedEdge> graph, Node first, Node second, SplittableRandom random) {
+        var draw = random.nextDouble();
+        if (draw < MISSING_STREETS) {
+            return;
+        }
+        var isOneWay = draw < MISSING_STREETS + ONE_WAY_STREETS;
+        var previous = first;
+        for (int i = 1; i <= SEGMENTS_PER_STREET; i++) {
+            var next = second;
+            if (i < SEGMENTS_PER_STREET) {
+                var fraction = (double) i / SEGMENTS_PER_STREET;
+                var latitude = first.getPosition().getLatitude() + fraction * (second.getPosition().getLatitude() - first.getPosition().getLatitude());
+                var longitude = first.getPosition().getLongitude() + fraction * (second.getPosition().getLongitude() - first.getPosition().getLongitude());
+                next = new OsmNode(graph.vertexSet().size() + 1L, 1, new OsmLatLon(latitude + random.nextDouble(-0.05, 0.05) * GRID_STEP,
+                        longitude + random.nextDouble(-0.05, 0.05) * GRID_STEP), null);
+                graph.addVertex(next);
+            }
+            addSegment(graph, previous, next);
+            if (!isOneWay) {
+                addSegment(graph, next, previous);
+            }
+            previous = next;
+        }
+    }
+
+    private static void addSegment(Graph<Node, ImportedEdge> graph, Node source, Node target) {
+        var distance = Haversine.distance(source.getPosition().getLatitude(), source.getPosition().getLongitude(),
+                target.getPosition().getLatitude(), target.getPosition().getLongitude());
+        var edge = new ImportedEdge(source.getId(), target.getId(), distance);
+        graph.addEdge(source, target, edge);
+        graph.setEdgeWeight(edge, distance);
+    }
+}
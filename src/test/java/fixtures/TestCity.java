@@ -0,0 +1,98 @@
+package fixtures;
+
+import de.westnordost.osmapi.map.data.BoundingBox;
+import de.westnordost.osmapi.map.data.Node;
+import de.westnordost.osmapi.map.data.OsmLatLon;
+import de.westnordost.osmapi.map.data.OsmNode;
+import entities.District;
+import entities.Map;
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import osm_to_graph.ImportedEdge;
+import utils.Haversine;
+
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * Maps of a made-up city for the tests: a regular grid of two-way streets, split into a safe western district and an unsafe
+ * eastern one, so that simulations run without importing a real city.
+ */
+public class TestCity {
+
+    public static final double MIN_LATITUDE = 50.00;
+    public static final double MIN_LONGITUDE = 19.90;
+    private static final double GRID_STEP = 0.001;
+    private static final double BOUNDS_MARGIN = 0.0001;
+
+    private TestCity() {
+    }
+
+    // 'size' x 'size' crossings about 100 meters apart
+    public static Map createMap(int size) {
+        var graph = new DefaultDirectedWeightedGraph<Node, ImportedEdge>(ImportedEdge.class);
+        var nodes = new LinkedHashMap<Long, Node>();
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                var id = row * size + column + 1L;
+                var node = new OsmNode(id, 1, new OsmLatLon(getLatitude(row), getLongitude(column)), null);
+                nodes.put(id, node);
+                graph.addVertex(node);
+            }
+        }
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                var id = row * size + column + 1L;
+                if (column + 1 < size) {
+                    addStreet(graph, nodes.get(id), nodes.get(id + 1));
+                }
+                if (row + 1 < size) {
+                    addStreet(graph, nodes.get(id), nodes.get(id + size));
+                }
+            }
+        }
+
+        var maxLatitude = getLatitude(size - 1);
+        var maxLongitude = getLongitude(size - 1);
+        var middleLongitude = (MIN_LONGITUDE + maxLongitude) / 2;
+        var districts = new ArrayList<District>();
+        districts.add(new District(1L, "West", createRectangle(MIN_LATITUDE - BOUNDS_MARGIN, MIN_LONGITUDE - BOUNDS_MARGIN,
+                maxLatitude + BOUNDS_MARGIN, middleLongitude)));
+        districts.add(new District(2L, "East", createRectangle(MIN_LATITUDE - BOUNDS_MARGIN, middleLongitude,
+                maxLatitude + BOUNDS_MARGIN, maxLongitude + BOUNDS_MARGIN), District.ThreatLevelEnum.NOT_SAFE));
+        return new Map(graph, nodes, new BoundingBox(MIN_LATITUDE, MIN_LONGITUDE, maxLatitude, maxLongitude), districts);
+    }
+
+    public static double getLatitude(int row) {
+        return MIN_LATITUDE + row * GRID_STEP;
+    }
+
+    public static double getLongitude(int column) {
+        return MIN_LONGITUDE + column * GRID_STEP * 1.5;
+    }
+
+    private static void addStreet(Graph<Node, ImportedEdge> graph, Node first, Node second) {
+        addSegment(graph, first, second);
+        addSegment(graph, second, first);
+    }
+
+    private static void addSegment(Graph<Node, ImportedEdge> graph, Node source, Node target) {
+        var distance = Haversine.distance(source.getPosition().getLatitude(), source.getPosition().getLongitude(),
+                target.getPosition().getLatitude(), target.getPosition().getLongitude());
+        var edge = new ImportedEdge(source.getId(), target.getId(), distance);
+        graph.addEdge(source, target, edge);
+        graph.setEdgeWeight(edge, distance);
+    }
+
+    // the boundaries of the districts are given as latitude (x) and longitude (y)
+    private static Path2D createRectangle(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        var rectangle = new Path2D.Double();
+        rectangle.moveTo(minLatitude, minLongitude);
+        rectangle.lineTo(maxLatitude, minLongitude);
+        rectangle.lineTo(maxLatitude, maxLongitude);
+        rectangle.lineTo(minLatitude, maxLongitude);
+        rectangle.closePath();
+        return rectangle;
+    }
+}
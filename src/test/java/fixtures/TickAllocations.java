@@ -0,0 +1,148 @@
+package fixtures;
+
+import entities.Headquarters;
+import entities.Patrol;
+import simulation.TickEngine;
+import world.SimulationContext;
+import world.World;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Memory allocated by the simulation thread in every phase of a tick, for a simulation of patrols on the test city with the
+ * virtual clock and a fixed random seed. After a warm-up, a fixed range of ticks is measured, each tick separately. The ticks
+ * are split into steady ones, in which no patrol has changed its action, state or wake-up time, and the others: a patrol which
+ * gets a new action calculates its path and logs the change, and one which falls asleep or wakes up is queued by the activity
+ * tracker, which allocates anyway. With the seed the run is the same every time, and so is the split of the ticks.
+ */
+public class TickAllocations {
+
+    public static final EnumSet<TickEngine.Phase> AGENT_PHASES = EnumSet.of(TickEngine.Phase.HQ_DISPATCH,
+            TickEngine.Phase.AGENT_STATE_UPDATE, TickEngine.Phase.AGENT_MOVEMENT);
+    private static final long RANDOM_SEED = 5;
+    private static final int CITY_SIZE = 40;
+    private static final int WARM_UP_TICKS = 20_000;
+    private static final int MEASURED_TICKS = 20_000;
+    private static final TickEngine.Phase[] PHASES = TickEngine.Phase.values();
+    private final int numberOfPatrols;
+    // bytes allocated in every phase, indexed by the ordinals of the phases
+    private final long[] steadyBytes = new long[PHASES.length];
+    private final long[] otherBytes = new long[PHASES.length];
+    private int numberOfSteadyTicks = 0;
+    private long maxSteadyAgentPhasesBytes = 0;
+
+    private TickAllocations(int numberOfPatrols) {
+        this.numberOfPatrols = numberOfPatrols;
+    }
+
+    // runs the simulation in a context of its own
+    public static TickAllocations measure(int numberOfPatrols) {
+        var allocations = new TickAllocations(numberOfPatrols);
+        var context = new SimulationContext("tick-allocations");
+        context.bind();
+        try {
+            allocations.run();
+        } finally {
+            context.unbind();
+        }
+        return allocations;
+    }
+
+    private void run() {
+        var world = World.getInstance();
+        world.getConfig().setRandomSeed(RANDOM_SEED);
+        world.getConfig().setVirtualClock(true);
+        world.getConfig().setNumberOfPolicePatrols(numberOfPatrols);
+        world.setMap(TestCity.createMap(CITY_SIZE));
+
+        // the start of a new simulation, as in SimulationThread
+        world.simulationStart();
+        var hq = new Headquarters(TestCity.getLatitude(CITY_SIZE / 2), TestCity.getLongitude(CITY_SIZE / 2));
+        world.addEntity(hq);
+        var patrols = new ArrayList<Patrol>();
+        for (int i = 0; i < numberOfPatrols; i++) {
+            var patrol = new Patrol(hq.getPosition());
+            patrol.setState(Patrol.State.PATROLLING);
+            patrols.add(patrol);
+        }
+        world.addEntities(patrols);
+        hq.scheduleShiftChanges();
+
+        var tickEngine = new TickEngine();
+        for (int i = 0; i < WARM_UP_TICKS; i++) {
+            tickEngine.tick();
+        }
+
+        tickEngine.setAllocationTracking(true);
+        var before = new long[PHASES.length];
+        for (int i = 0; i < MEASURED_TICKS; i++) {
+            for (var phase : PHASES) {
+                before[phase.ordinal()] = tickEngine.getTotalPhaseAllocatedBytes(phase);
+            }
+            // the snapshots allocate only between the ticks, which is not measured
+            var patrolsBefore = world.getPatrols().copy();
+            var snapshotBefore = takeSnapshot(patrolsBefore);
+
+            tickEngine.tick();
+
+            var isSteady = world.getPatrols().asList().equals(patrolsBefore) && takeSnapshot(patrolsBefore).equals(snapshotBefore);
+            long agentPhasesBytes = 0;
+            for (var phase : PHASES) {
+                var bytes = tickEngine.getTotalPhaseAllocatedBytes(phase) - before[phase.ordinal()];
+                (isSteady ? steadyBytes : otherBytes)[phase.ordinal()] += bytes;
+                if (AGENT_PHASES.contains(phase)) {
+                    agentPhasesBytes += bytes;
+                }
+            }
+            if (isSteady) {
+                numberOfSteadyTicks++;
+                maxSteadyAgentPhasesBytes = Math.max(maxSteadyAgentPhasesBytes, agentPhasesBytes);
+            }
+        }
+        tickEngine.shutdown();
+    }
+
+    // actions, states and wake-up times of the patrols (no path is calculated, nothing is logged and no patrol falls asleep
+    // or wakes up in a tick in which none of them changes)
+    private static List<Object> takeSnapshot(List<Patrol> patrols) {
+        var snapshot = new ArrayList<>();
+        for (var patrol : patrols) {
+            snapshot.add(patrol.getAction());
+            snapshot.add(patrol.getState());
+            snapshot.add(World.getInstance().getAgentActivity().getWakeUpTime(patrol));
+        }
+        return snapshot;
+    }
+
+    public int getNumberOfSteadyTicks() {
+        return numberOfSteadyTicks;
+    }
+
+    // the largest number of bytes allocated by the agent phases in a steady tick
+    public long getMaxSteadyAgentPhasesBytes() {
+        return maxSteadyAgentPhasesBytes;
+    }
+
+    // bytes allocated in the phase per tick on average, in the steady ticks and in the others
+    public double getAverageSteadyBytes(TickEngine.Phase phase) {
+        return numberOfSteadyTicks == 0 ? 0 : (double) steadyBytes[phase.ordinal()] / numberOfSteadyTicks;
+    }
+
+    public double getAverageOtherBytes(TickEngine.Phase phase) {
+        var numberOfOtherTicks = MEASURED_TICKS - numberOfSteadyTicks;
+        return numberOfOtherTicks == 0 ? 0 : (double) otherBytes[phase.ordinal()] / numberOfOtherTicks;
+    }
+
+    @Override
+    public String toString() {
+        var report = new StringBuilder(String.format("%d patrols, ticks %d to %d: %d steady, %d others (bytes per tick on average)%n",
+                numberOfPatrols, WARM_UP_TICKS, WARM_UP_TICKS + MEASURED_TICKS - 1, numberOfSteadyTicks, MEASURED_TICKS - numberOfSteadyTicks));
+        for (var phase : PHASES) {
+            report.append(String.format("  %-18s steady %10.1f, others %12.1f%n", phase, getAverageSteadyBytes(phase), getAverageOtherBytes(phase)));
+        }
+        report.append(String.format("  agent phases in a steady tick: at most %d bytes", maxSteadyAgentPhasesBytes));
+        return report.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package simulation;
+
+import entities.Headquarters;
+import fixtures.TestCity;
+import org.junit.jupiter.api.Test;
+import world.SimulationContext;
+import world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Agents planning their steps in parallel must end in the same state as when they plan them one after another,
+ * as the effects on shared objects are applied in the order of the agents in both cases.
+ */
+class AgentUpdateParallelismTest {
+
+    private static final long RANDOM_SEED = 5;
+    // longer than a shift, so that the patrols of the next one are sent out as well
+    private static final long SIMULATION_DURATION = 30000;
+    private static final int CITY_SIZE = 30;
+
+    @Test
+    void parallelPlanningEndsInTheSameStateAsSequential() {
+        var sequential = runSimulation(1);
+        var parallel = runSimulation(4);
+
+        // the statistics and at least one patrol
+        assertTrue(sequential.size() > 1);
+        assertEquals(sequential, parallel);
+    }
+
+    // statistics of the run and the final position and state of every patrol
+    private static List<String> runSimulation(int agentUpdateParallelism) {
+        var context = new SimulationContext("parallelism-" + agentUpdateParallelism);
+        context.bind();
+        try {
+            var world = World.getInstance();
+            world.getConfig().setRandomSeed(RANDOM_SEED);
+            world.getConfig().setSimulationDuration(SIMULATION_DURATION);
+            world.getConfig().setVirtualClock(true);
+            world.getConfig().setAgentUpdateParallelism(agentUpdateParallelism);
+            world.setMap(TestCity.createMap(CITY_SIZE));
+            world.addEntity(new Headquarters(TestCity.getLatitude(CITY_SIZE / 2), TestCity.getLongitude(CITY_SIZE / 2)));
+            new SimulationThread().run();
+
+            var result = new ArrayList<String>();
+            result.add(ReplicationRunner.collectMetrics().toString());
+            world.getPatrols().forEach(patrol -> result.add(String.format("%d %s %.12f %.12f", patrol.getId(), patrol.getState(),
+                    patrol.getLatitude(), patrol.getLongitude())));
+            return result;
+        } finally {
+            context.unbind();
+        }
+    }
+}
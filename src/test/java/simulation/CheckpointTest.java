@@ -0,0 +1,85 @@
+package simulation;
+
+import entities.Headquarters;
+import fixtures.TestCity;
+import org.junit.jupiter.api.Test;
+import world.SimulationContext;
+import world.World;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A seeded simulation which is captured half-way and restored in a fresh context must finish exactly like the same
+ * simulation run without a break: with the same statistics and the same number of entities created.
+ */
+class CheckpointTest {
+
+    private static final long RANDOM_SEED = 5;
+    private static final int CITY_SIZE = 20;
+    private static final long SIMULATION_DURATION = 7200;
+    private final entities.Map map = TestCity.createMap(CITY_SIZE);
+
+    @Test
+    void restoredSimulationFinishesLikeTheUninterruptedOne() throws IOException {
+        var uninterrupted = runInContext("checkpoint-uninterrupted", () -> {
+            startSimulation(SIMULATION_DURATION);
+            return getTotals();
+        });
+
+        var state = runInContext("checkpoint-captured", () -> {
+            var thread = startSimulation(SIMULATION_DURATION / 2);
+            return Checkpoint.capture(thread.getTickEngine(), null);
+        });
+        var resumed = runInContext("checkpoint-resumed", () -> {
+            var tickEngine = Checkpoint.restore(state, map.copyWithOwnDistricts(),
+                    config -> config.setSimulationDuration(SIMULATION_DURATION));
+            new SimulationThread(() -> tickEngine, "checkpoint captured in memory").run();
+            return getTotals();
+        });
+
+        assertTrue(uninterrupted.get(1) > 0, "no interventions in the simulation");
+        assertEquals(uninterrupted, resumed);
+    }
+
+    // runs a new seeded simulation to 'duration' simulated seconds on the calling thread
+    private SimulationThread startSimulation(long duration) {
+        var world = World.getInstance();
+        world.getConfig().setSimulationDuration(duration);
+        world.getConfig().setRandomSeed(RANDOM_SEED);
+        world.getConfig().setVirtualClock(true);
+        world.getConfig().setCheckpointInterval(0);
+        world.setMap(map);
+        world.addEntity(new Headquarters(TestCity.getLatitude(CITY_SIZE / 2), TestCity.getLongitude(CITY_SIZE / 2)));
+        var thread = new SimulationThread();
+        thread.run();
+        return thread;
+    }
+
+    // statistics of the finished simulation, its time and the id the next entity would get
+    private static List<Long> getTotals() {
+        var statistics = StatisticsCounter.getInstance();
+        var world = World.getInstance();
+        return List.of((long) statistics.getNumberOfPatrols(), (long) statistics.getNumberOfInterventions(),
+                (long) statistics.getNumberOfFirings(), (long) statistics.getNumberOfSolvedInterventions(),
+                (long) statistics.getNumberOfSolvedFirings(), (long) statistics.getNumberOfNeutralizedPatrols(),
+                world.getSimulationTimeLong(), world.nextEntityId());
+    }
+
+    private static <T> T runInContext(String name, ContextRun<T> run) throws IOException {
+        var context = new SimulationContext(name);
+        context.bind();
+        try {
+            return run.run();
+        } finally {
+            context.unbind();
+        }
+    }
+
+    private interface ContextRun<T> {
+        T run() throws IOException;
+    }
+}
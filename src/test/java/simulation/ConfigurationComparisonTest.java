@@ -0,0 +1,51 @@
+package simulation;
+
+import fixtures.TestCity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import world.SimulationContext;
+import world.World;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A pair in which a run fails is left out of the comparison, and must be counted in it instead of going missing without notice.
+ */
+class ConfigurationComparisonTest {
+
+    private static final int CITY_SIZE = 10;
+    private final SimulationContext context = new SimulationContext("configuration-comparison");
+
+    @BeforeEach
+    void bindContext() {
+        context.bind();
+    }
+
+    @AfterEach
+    void unbindContext() {
+        context.unbind();
+    }
+
+    @Test
+    void failedPairsAreCounted() {
+        var config = World.getInstance().getConfig();
+        config.setSimulationDuration(600);
+        var comparison = new ConfigurationComparison(config, TestCity.createMap(CITY_SIZE), TestCity.getLatitude(CITY_SIZE / 2),
+                TestCity.getLongitude(CITY_SIZE / 2), 1);
+        // with one thread the runs go in the order of the pairs, so only the first run of variant B fails
+        var hasFailed = new AtomicBoolean(false);
+        var result = comparison.run(variantConfig -> variantConfig.setNumberOfPolicePatrols(10), variantConfig -> {
+            if (!hasFailed.getAndSet(true)) {
+                throw new IllegalStateException("Variant B cannot be set up");
+            }
+            variantConfig.setNumberOfPolicePatrols(20);
+        }, 2);
+
+        assertEquals(1, result.getNumberOfPairs());
+        assertEquals(1, result.getNumberOfFailedPairs());
+        assertEquals(10, result.getMeanDifference(ReplicationRunner.Metric.PATROLS));
+    }
+}
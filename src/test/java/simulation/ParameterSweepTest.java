@@ -0,0 +1,54 @@
+package simulation;
+
+import fixtures.TestCity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import world.SimulationContext;
+import world.World;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs of the sweep which fail must stay in the results, marked as failed, instead of their points going missing.
+ */
+class ParameterSweepTest {
+
+    private static final int CITY_SIZE = 10;
+    private final SimulationContext context = new SimulationContext("parameter-sweep");
+
+    @BeforeEach
+    void bindContext() {
+        context.bind();
+    }
+
+    @AfterEach
+    void unbindContext() {
+        context.unbind();
+    }
+
+    @Test
+    void failedRunsStayInTheResults() {
+        var config = World.getInstance().getConfig();
+        config.setSimulationDuration(600);
+        var sweep = new ParameterSweep(config, TestCity.createMap(CITY_SIZE), TestCity.getLatitude(CITY_SIZE / 2),
+                TestCity.getLongitude(CITY_SIZE / 2), 1);
+        // the second of the two levels cannot be applied
+        sweep.addParameter(new SweepParameter("numberOfPolicePatrols", 10, 20, true, (runConfig, value) -> {
+            if (value > 10) {
+                throw new IllegalArgumentException("Too many patrols");
+            }
+            runConfig.setNumberOfPolicePatrols(value.intValue());
+        }));
+        var rows = sweep.runGrid(2);
+
+        assertEquals(2, rows.size());
+        assertFalse(rows.get(0).isFailed());
+        assertEquals(10, rows.get(0).getMetric(ReplicationRunner.Metric.PATROLS));
+        assertTrue(rows.get(1).isFailed());
+        assertEquals(1, rows.get(1).getPointNumber());
+        assertTrue(Double.isNaN(rows.get(1).getMetric(ReplicationRunner.Metric.PATROLS)));
+    }
+}
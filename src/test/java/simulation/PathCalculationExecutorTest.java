@@ -0,0 +1,166 @@
+package simulation;
+
+import de.westnordost.osmapi.map.data.Node;
+import entities.Patrol;
+import entities.Point;
+import fixtures.TestCity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import world.SimulationContext;
+import world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Orders revoked while the paths of their transfers are calculated on the executor: the patrol must not get the path,
+ * and the calculation is counted as cancelled, whether it was still waiting or already running.
+ */
+class PathCalculationExecutorTest {
+
+    private static final int CITY_SIZE = 10;
+    private static final long TIMEOUT_SECONDS = 30;
+    private SimulationContext context;
+    // the blocking calculations wait for it before calculating their paths
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PathCalculationExecutor executor;
+
+    // every test has a context of its own, so their logs do not go to the same file
+    @BeforeEach
+    void setUp(TestInfo testInfo) {
+        context = new SimulationContext("path-calculation-executor-" + testInfo.getTestMethod().orElseThrow().getName());
+        context.bind();
+        World.getInstance().setMap(TestCity.createMap(CITY_SIZE));
+        executor = PathCalculationExecutor.getInstance();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        context.unbind();
+    }
+
+    @Test
+    void orderRevokedWhileItsPathIsWaiting() throws InterruptedException {
+        // every thread of the executor is kept busy, so the path of the order stays in the queue
+        var blockers = new ArrayList<BlockingPathCalculator>();
+        for (int i = 0; i < Runtime.getRuntime().availableProcessors(); i++) {
+            var blocker = new BlockingPathCalculator(createPatrol());
+            blockers.add(blocker);
+            executor.submit(blocker, Patrol.State.TRANSFER_TO_FIRING);
+        }
+        blockers.get(0).awaitStarted();
+
+        var patrol = createPatrol();
+        var transfer = patrol.new Transfer(0, createTarget(), Patrol.State.PATROLLING);
+        patrol.takeOrder(transfer);
+        assertTrue(executor.getQueueDepth() > 0);
+        patrol.revokeOrder();
+        assertNull(patrol.getAction());
+
+        release.countDown();
+        awaitAllFinished();
+        assertNull(transfer.getPathNodeList());
+        assertEquals(1, executor.getNumberOfCancelled());
+        assertEquals(blockers.size(), executor.getNumberOfCalculated());
+        blockers.forEach(blocker -> assertNotNull(blocker.transfer.getPathNodeList()));
+    }
+
+    @Test
+    void calculationCancelledWhileItIsRunning() throws InterruptedException {
+        var calculator = new BlockingPathCalculator(createPatrol());
+        executor.submit(calculator, Patrol.State.PATROLLING);
+        calculator.awaitStarted();
+
+        assertTrue(calculator.cancel());
+        release.countDown();
+        awaitAllFinished();
+        assertNull(calculator.transfer.getPathNodeList());
+        assertEquals(1, executor.getNumberOfCancelled());
+        assertEquals(0, executor.getNumberOfCalculated());
+    }
+
+    @Test
+    void calculationNotCancelledAfterItsPathIsHandedOver() throws InterruptedException {
+        var calculator = new BlockingPathCalculator(createPatrol());
+        executor.submit(calculator, Patrol.State.PATROLLING);
+        release.countDown();
+        awaitAllFinished();
+
+        assertFalse(calculator.cancel());
+        assertNotNull(calculator.transfer.getPathNodeList());
+        assertEquals(0, executor.getNumberOfCancelled());
+        assertEquals(1, executor.getNumberOfCalculated());
+    }
+
+    private static Patrol createPatrol() {
+        return new Patrol(TestCity.getLatitude(0), TestCity.getLongitude(0));
+    }
+
+    private static Point createTarget() {
+        return new Point(TestCity.getLatitude(CITY_SIZE - 1), TestCity.getLongitude(CITY_SIZE - 1));
+    }
+
+    private void awaitAllFinished() throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (executor.getNumberOfCalculated() + executor.getNumberOfCancelled() < executor.getNumberOfSubmitted()) {
+            assertTrue(System.nanoTime() < deadline, "the calculations have not finished");
+            Thread.sleep(10);
+        }
+    }
+
+    // calculates the path of a transfer of the patrol only after the test releases it
+    private class BlockingPathCalculator extends PathCalculator {
+
+        private final Patrol.Transfer transfer;
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private BlockingPathCalculator(Patrol patrol) {
+            this(patrol, createTransfer(patrol));
+        }
+
+        private BlockingPathCalculator(Patrol patrol, Patrol.Transfer transfer) {
+            super(patrol, transfer.getTarget(), transfer);
+            this.transfer = transfer;
+        }
+
+        @Override
+        public List<Node> getPathNodeList(double sourceLatitude, double sourceLongitude, double targetLatitude, double targetLongitude) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+                Thread.currentThread().interrupt();
+            }
+            return super.getPathNodeList(sourceLatitude, sourceLongitude, targetLatitude, targetLongitude);
+        }
+
+        private void awaitStarted() throws InterruptedException {
+            assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    // with the virtual clock the transfer calculates its own path at once, which is dropped so that only this calculation hands one over
+    private static Patrol.Transfer createTransfer(Patrol patrol) {
+        var config = World.getInstance().getConfig();
+        config.setVirtualClock(true);
+        try {
+            var transfer = patrol.new Transfer(0, createTarget(), Patrol.State.PATROLLING);
+            transfer.setPathNodeList(null);
+            return transfer;
+        } finally {
+            config.setVirtualClock(false);
+        }
+    }
+}
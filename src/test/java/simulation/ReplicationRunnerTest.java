@@ -0,0 +1,53 @@
+package simulation;
+
+import fixtures.TestCity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInfo;
+import world.SimulationContext;
+import world.World;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Replications which fail must be counted in the summary instead of leaving it computed from fewer runs without notice.
+ */
+class ReplicationRunnerTest {
+
+    private static final int NUMBER_OF_REPLICATIONS = 2;
+    private SimulationContext context;
+
+    // every test has a context of its own, so their logs do not go to the same file
+    @BeforeEach
+    void bindContext(TestInfo testInfo) {
+        context = new SimulationContext("replication-runner-" + testInfo.getTestMethod().orElseThrow().getName());
+        context.bind();
+    }
+
+    @AfterEach
+    void unbindContext() {
+        context.unbind();
+    }
+
+    @Test
+    void failedReplicationsAreCounted() {
+        // without a map no replication can start
+        var runner = new ReplicationRunner(World.getInstance().getConfig(), null, TestCity.getLatitude(0), TestCity.getLongitude(0), 1);
+        var summary = runner.run(NUMBER_OF_REPLICATIONS);
+
+        assertEquals(0, summary.getNumberOfReplications());
+        assertEquals(NUMBER_OF_REPLICATIONS, summary.getNumberOfFailedReplications());
+    }
+
+    @Test
+    void replicationsWhichFinishAreNotCountedAsFailed() {
+        var config = World.getInstance().getConfig();
+        config.setSimulationDuration(600);
+        var runner = new ReplicationRunner(config, TestCity.createMap(10), TestCity.getLatitude(5), TestCity.getLongitude(5), 1);
+        var summary = runner.run(NUMBER_OF_REPLICATIONS);
+
+        assertEquals(NUMBER_OF_REPLICATIONS, summary.getNumberOfReplications());
+        assertEquals(0, summary.getNumberOfFailedReplications());
+    }
+}
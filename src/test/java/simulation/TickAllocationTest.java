@@ -0,0 +1,24 @@
+package simulation;
+
+import fixtures.TickAllocations;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The agent phases (dispatch, state updates and movement) must not allocate in the steady ticks of a seeded simulation,
+ * so that new allocations on the tick path are caught. What the other ticks allocate is given in the message.
+ */
+class TickAllocationTest {
+
+    private static final int NUMBER_OF_PATROLS = 40;
+    private static final long THRESHOLD_BYTES = 0;
+
+    @Test
+    void agentPhasesDoNotAllocateInSteadyTicks() {
+        var allocations = TickAllocations.measure(NUMBER_OF_PATROLS);
+
+        assertTrue(allocations.getNumberOfSteadyTicks() > 0, allocations::toString);
+        assertTrue(allocations.getMaxSteadyAgentPhasesBytes() <= THRESHOLD_BYTES, allocations::toString);
+    }
+}
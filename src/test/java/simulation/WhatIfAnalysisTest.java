@@ -0,0 +1,66 @@
+package simulation;
+
+import entities.District;
+import entities.Headquarters;
+import fixtures.TestCity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import world.SimulationContext;
+import world.World;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A branch whose change fails stays in the results of the analysis, marked as failed, instead of going missing without notice.
+ */
+class WhatIfAnalysisTest {
+
+    private static final int CITY_SIZE = 10;
+    private static final int TICKS_BEFORE_FORK = 100;
+    private final SimulationContext context = new SimulationContext("what-if-analysis");
+
+    @BeforeEach
+    void bindContext() {
+        context.bind();
+    }
+
+    @AfterEach
+    void unbindContext() {
+        context.unbind();
+    }
+
+    @Test
+    void failedBranchesAreKeptInTheResults() throws IOException {
+        var world = World.getInstance();
+        world.getConfig().setRandomSeed(5);
+        world.getConfig().setVirtualClock(true);
+        world.getConfig().setNumberOfPolicePatrols(0);
+        world.setMap(TestCity.createMap(CITY_SIZE));
+        world.simulationStart();
+        world.addEntity(new Headquarters(TestCity.getLatitude(CITY_SIZE / 2), TestCity.getLongitude(CITY_SIZE / 2)));
+        var tickEngine = new TickEngine();
+        for (int i = 0; i < TICKS_BEFORE_FORK; i++) {
+            tickEngine.tick();
+        }
+        var analysis = WhatIfAnalysis.fork(tickEngine, 1);
+        tickEngine.shutdown();
+
+        var results = analysis.run(List.of(
+                new WhatIfAnalysis.Branch("more-patrols", WhatIfAnalysis.addPatrols(10)),
+                new WhatIfAnalysis.Branch("missing-district", WhatIfAnalysis.setThreatLevel("Missing", District.ThreatLevelEnum.SAFE))), 600);
+
+        assertEquals(2, results.size());
+        assertEquals("more-patrols", results.get(0).getBranchName());
+        assertFalse(results.get(0).isFailed());
+        assertEquals(10, results.get(0).getChange(ReplicationRunner.Metric.PATROLS));
+        assertEquals("missing-district", results.get(1).getBranchName());
+        assertTrue(results.get(1).isFailed());
+        assertTrue(Double.isNaN(results.get(1).getChange(ReplicationRunner.Metric.PATROLS)));
+    }
+}
@@ -0,0 +1,141 @@
+package world;
+
+import entities.Entity;
+import entities.Point;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The entity store against a list of the same entities, for changes on one thread and for readers iterating it while
+ * the entities are changed, as the map painter and the exporters do while the simulation thread runs.
+ */
+class EntityStoreTest {
+
+    private static final int NUMBER_OF_ENTITIES = 1000;
+    private static final int NUMBER_OF_CHANGES = 20000;
+    // entities which stay in the store while the others are changed
+    private static final int NUMBER_OF_KEPT_ENTITIES = 100;
+    private static final int NUMBER_OF_READERS = 2;
+
+    private final SplittableRandom random = new SplittableRandom(NUMBER_OF_ENTITIES);
+    private final EntityStore store = new EntityStore();
+
+    @Test
+    void changesKeepTheOrderOfAddition() {
+        // in the order of addition, like the store
+        var expected = new LinkedHashSet<Entity>();
+        var present = new ArrayList<Entity>();
+        for (int i = 0; i < NUMBER_OF_ENTITIES; i++) {
+            var entity = new Point(random.nextDouble(), random.nextDouble());
+            assertTrue(store.add(entity));
+            expected.add(entity);
+            present.add(entity);
+        }
+
+        for (int i = 0; i < NUMBER_OF_CHANGES; i++) {
+            // more removals than additions for a while, and the other way around afterwards, so the array shrinks and grows
+            var removes = i < NUMBER_OF_CHANGES / 2 ? random.nextInt(3) > 0 : random.nextInt(3) == 0;
+            if (removes && !present.isEmpty()) {
+                var removed = present.remove(random.nextInt(present.size()));
+                assertTrue(store.remove(removed));
+                assertFalse(store.remove(removed));
+                assertFalse(store.contains(removed));
+                expected.remove(removed);
+            } else {
+                var added = new Point(random.nextDouble(), random.nextDouble());
+                assertTrue(store.add(added));
+                assertFalse(store.add(added));
+                assertTrue(store.contains(added));
+                expected.add(added);
+                present.add(added);
+            }
+            assertEquals(expected.size(), store.size());
+        }
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(store));
+
+        store.removeAll(present.subList(0, present.size() / 2));
+        expected.removeAll(present.subList(0, present.size() / 2));
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(store));
+        store.clear();
+        assertTrue(store.isEmpty());
+        assertFalse(store.iterator().hasNext());
+    }
+
+    @Test
+    void readersSeeEveryEntityKeptForTheWholeIteration() throws InterruptedException {
+        var kept = new ArrayList<Entity>();
+        var changed = new ArrayList<Entity>();
+        for (int i = 0; i < NUMBER_OF_ENTITIES; i++) {
+            var entity = new Point(random.nextDouble(), random.nextDouble());
+            if (i % (NUMBER_OF_ENTITIES / NUMBER_OF_KEPT_ENTITIES) == 0) {
+                kept.add(entity);
+            } else {
+                changed.add(entity);
+            }
+            store.add(entity);
+        }
+
+        var running = new AtomicBoolean(true);
+        var failure = new AtomicReference<String>();
+        var readers = new ArrayList<Thread>();
+        for (int r = 0; r < NUMBER_OF_READERS; r++) {
+            var reader = new Thread(() -> {
+                while (running.get() && failure.get() == null) {
+                    try {
+                        checkIteration(kept, failure);
+                    } catch (RuntimeException e) {
+                        failure.set(e.toString());
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+
+        for (int i = 0; i < NUMBER_OF_CHANGES && failure.get() == null; i++) {
+            var index = random.nextInt(changed.size());
+            store.remove(changed.get(index));
+            var added = new Point(random.nextDouble(), random.nextDouble());
+            changed.set(index, added);
+            store.add(added);
+        }
+        running.set(false);
+        for (var reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(NUMBER_OF_ENTITIES, store.size());
+    }
+
+    // every kept entity is returned once, in the order of addition, and no entity is returned twice
+    private void checkIteration(List<Entity> kept, AtomicReference<String> failure) {
+        var seen = Collections.newSetFromMap(new IdentityHashMap<Entity, Boolean>());
+        var nextKept = 0;
+        for (var entity : store) {
+            if (!seen.add(entity)) {
+                failure.set("entity returned twice");
+                return;
+            }
+            if (nextKept < kept.size() && entity == kept.get(nextKept)) {
+                nextKept++;
+            }
+        }
+        if (nextKept != kept.size()) {
+            failure.set(String.format("only %d of %d kept entities returned in their order", nextKept, kept.size()));
+        }
+    }
+}
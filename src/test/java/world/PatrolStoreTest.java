@@ -0,0 +1,92 @@
+package world;
+
+import entities.Patrol;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Patrols taken into and out of the store by the simulation thread, while another thread (as the GUI painter does) reads
+ * their positions: every read has to return the position of the patrol itself, never one of another patrol's slot.
+ */
+class PatrolStoreTest {
+
+    private static final int NUMBER_OF_PATROLS = 200;
+    private static final int NUMBER_OF_CHANGES = 300000;
+    private final SimulationContext context = new SimulationContext("patrol-store");
+
+    @BeforeEach
+    void bindContext() {
+        context.bind();
+    }
+
+    @AfterEach
+    void unbindContext() {
+        context.unbind();
+    }
+
+    @Test
+    void patrolsKeepTheirPositionsWhenSlotsAreReused() {
+        var store = new PatrolStore();
+        var patrols = new ArrayList<Patrol>();
+        for (int i = 0; i < NUMBER_OF_PATROLS; i++) {
+            var patrol = new Patrol(getLatitude(i), getLongitude(i));
+            patrols.add(patrol);
+            store.add(patrol);
+        }
+
+        var failure = new AtomicReference<String>();
+        var reader = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted() && failure.get() == null) {
+                for (int i = 0; i < NUMBER_OF_PATROLS; i++) {
+                    try {
+                        var latitude = patrols.get(i).getLatitude();
+                        var longitude = patrols.get(i).getLongitude();
+                        if (latitude != getLatitude(i) || longitude != getLongitude(i)) {
+                            failure.set(String.format("patrol %d read at %f, %f", i, latitude, longitude));
+                        }
+                    } catch (RuntimeException e) {
+                        failure.set(e.toString());
+                    }
+                }
+            }
+        });
+        reader.start();
+
+        var random = new SplittableRandom(NUMBER_OF_PATROLS);
+        for (int i = 0; i < NUMBER_OF_CHANGES && failure.get() == null; i++) {
+            var patrol = patrols.get(random.nextInt(NUMBER_OF_PATROLS));
+            store.remove(patrol);
+            store.add(patrol);
+        }
+        reader.interrupt();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        }
+
+        assertNull(failure.get());
+        assertEquals(NUMBER_OF_PATROLS, store.size());
+        for (var patrol : patrols) {
+            assertTrue(patrol.isInStore(store));
+        }
+    }
+
+    private static double getLatitude(int index) {
+        return 50 + index * 0.0001;
+    }
+
+    private static double getLongitude(int index) {
+        return 19.9 + index * 0.0001;
+    }
+}
@@ -0,0 +1,121 @@
+package world;
+
+import entities.Entity;
+import entities.Point;
+import org.junit.jupiter.api.Test;
+import utils.Haversine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Queries of the spatial grid against a scan of all entities, for moving patrols spread over a city: radius queries of
+ * growing ranges and queries for the nearest patrols, also after patrols have been removed and the cells resized.
+ */
+class SpatialGridTest {
+
+    private static final double MIN_LATITUDE = 49.98;
+    private static final double MAX_LATITUDE = 50.12;
+    private static final double MIN_LONGITUDE = 19.80;
+    private static final double MAX_LONGITUDE = 20.10;
+    private static final double SEARCH_DISTANCE = 1200;
+    private static final int NUMBER_OF_PATROLS = 500;
+    private static final int ROUNDS = 20;
+    private static final int QUERIES_PER_ROUND = 20;
+    private static final int NEAREST_PATROLS = 4;
+
+    private final SplittableRandom random = new SplittableRandom(NUMBER_OF_PATROLS);
+    private final List<Entity> patrols = new ArrayList<>();
+    private final SpatialGrid grid = new SpatialGrid(SEARCH_DISTANCE);
+
+    @Test
+    void queriesOfMovingPatrolsAreTheSameAsTheScan() {
+        addPatrols();
+        for (int round = 0; round < ROUNDS; round++) {
+            movePatrols();
+            checkQueries();
+        }
+    }
+
+    @Test
+    void queriesAfterRemovingPatrolsAreTheSameAsTheScan() {
+        addPatrols();
+        for (int i = 0; i < NUMBER_OF_PATROLS / 2; i++) {
+            grid.remove(patrols.remove(random.nextInt(patrols.size())));
+        }
+        assertEquals(patrols.size(), grid.size());
+        checkQueries();
+    }
+
+    @Test
+    void queriesAfterResizingTheCellsAreTheSameAsTheScan() {
+        addPatrols();
+        grid.setCellSize(SEARCH_DISTANCE / 3);
+        checkQueries();
+        grid.setCellSize(SEARCH_DISTANCE * 5);
+        checkQueries();
+    }
+
+    private void addPatrols() {
+        for (int i = 0; i < NUMBER_OF_PATROLS; i++) {
+            var patrol = new Point(random.nextDouble(MIN_LATITUDE, MAX_LATITUDE), random.nextDouble(MIN_LONGITUDE, MAX_LONGITUDE));
+            patrols.add(patrol);
+            grid.add(patrol);
+        }
+    }
+
+    // patrols move about 100 meters in a tick
+    private void movePatrols() {
+        for (var patrol : patrols) {
+            patrol.setLatitude(clamp(patrol.getLatitude() + random.nextDouble(-0.001, 0.001), MIN_LATITUDE, MAX_LATITUDE));
+            patrol.setLongitude(clamp(patrol.getLongitude() + random.nextDouble(-0.0015, 0.0015), MIN_LONGITUDE, MAX_LONGITUDE));
+            grid.update(patrol);
+        }
+    }
+
+    private void checkQueries() {
+        for (int i = 0; i < QUERIES_PER_ROUND; i++) {
+            var latitude = random.nextDouble(MIN_LATITUDE, MAX_LATITUDE);
+            var longitude = random.nextDouble(MIN_LONGITUDE, MAX_LONGITUDE);
+            for (int j = 0; j <= 10; j++) {
+                var range = SEARCH_DISTANCE * j;
+                assertEquals(scan(latitude, longitude, range), grid.getEntitiesNear(latitude, longitude, range), "range " + range);
+            }
+
+            var k = 1 + i % NEAREST_PATROLS;
+            assertEquals(sortByDistance(latitude, longitude, k, SEARCH_DISTANCE * 10, x -> true),
+                    grid.getNearestEntities(latitude, longitude, k, SEARCH_DISTANCE * 10, x -> true));
+            // like the headquarters skipping the patrols which are busy
+            Predicate<Entity> filter = patrol -> patrols.indexOf(patrol) % 3 != 0;
+            assertEquals(sortByDistance(latitude, longitude, k, SEARCH_DISTANCE * 10, filter),
+                    grid.getNearestEntities(latitude, longitude, k, SEARCH_DISTANCE * 10, filter));
+        }
+    }
+
+    // the order of the scan is the order in which the patrols have been added, the same as the grid's
+    private List<Entity> scan(double latitude, double longitude, double range) {
+        return patrols.stream().filter(patrol -> distance(patrol, latitude, longitude) <= range).collect(Collectors.toList());
+    }
+
+    private List<Entity> sortByDistance(double latitude, double longitude, int k, double range, Predicate<Entity> filter) {
+        // the stable sort keeps the patrols at the same distance in the order of the list
+        return patrols.stream().filter(patrol -> distance(patrol, latitude, longitude) <= range).filter(filter)
+                .sorted(Comparator.comparingDouble(patrol -> distance(patrol, latitude, longitude)))
+                .limit(k)
+                .collect(Collectors.toList());
+    }
+
+    private static double distance(Entity entity, double latitude, double longitude) {
+        return Haversine.distance(entity.getLatitude(), entity.getLongitude(), latitude, longitude);
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}